@@ -0,0 +1,4 @@
+-- Index used by keyset pagination over non-deleted products
+create index concurrently if not exists product_active_id_idx
+    on product (id)
+    where deleted is null;
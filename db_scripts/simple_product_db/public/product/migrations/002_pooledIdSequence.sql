@@ -0,0 +1,2 @@
+-- IDs are allocated by the application in blocks of 50 (pooled sequence optimizer), which enables batched inserts
+alter sequence product_id_seq increment by 50;
@@ -0,0 +1,54 @@
+-- Code must be unique among non-deleted products.
+-- Also serves code lookups, which were sequential scans before.
+-- Run with psql -v ON_ERROR_STOP=1, so that the script stops at the first failed step.
+
+-- Codes were checked for uniqueness by the application only (not atomically), so duplicates may already exist.
+-- They must be resolved manually (e.g. by changing codes or deleting products) before the index can be built.
+do
+$$
+    declare
+        duplicates text;
+    begin
+        select string_agg(code || ' (ids ' || ids || ')', ', ')
+        into duplicates
+        from (select code, string_agg(id::text, ', ' order by id) as ids
+              from product
+              where deleted is null
+              group by code
+              having count(*) > 1) d;
+
+        if duplicates is not null then
+            raise exception 'Duplicate codes of non-deleted products: %', duplicates;
+        end if;
+    end
+$$;
+
+-- A failed concurrent build leaves an invalid index, which "if not exists" would skip, so it is dropped first
+do
+$$
+    begin
+        if exists(select 1
+                  from pg_index i
+                  where i.indexrelid = to_regclass('product_code_uq')
+                    and not i.indisvalid) then
+            raise notice 'Dropping invalid index product_code_uq';
+            drop index product_code_uq;
+        end if;
+    end
+$$;
+
+create unique index concurrently if not exists product_code_uq
+    on product (code)
+    where deleted is null;
+
+do
+$$
+    begin
+        if not exists(select 1
+                      from pg_index i
+                      where i.indexrelid = to_regclass('product_code_uq')
+                        and i.indisvalid) then
+            raise exception 'Index product_code_uq was not built, run this script again';
+        end if;
+    end
+$$;
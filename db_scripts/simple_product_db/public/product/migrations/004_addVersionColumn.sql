@@ -0,0 +1,3 @@
+-- Row version for optimistic locking
+alter table product
+    add column if not exists version bigint not null default 0;
@@ -0,0 +1,3 @@
+-- Index used to find the latest catalog change (catalog ETag / Last-Modified)
+create index concurrently if not exists product_updated_timestamp_idx
+    on product (updated_timestamp);
@@ -0,0 +1,37 @@
+-- Indexes used by product search (GET /api/v1/products/search). All of them cover non-deleted products only.
+
+-- Trigram matching of name substrings (name filter)
+create extension if not exists pg_trgm;
+
+-- Full-text search over name and description (q filter).
+-- The expression must be the same as in ProductSearchRepository.
+create index concurrently if not exists product_search_text_idx
+    on product using gin (to_tsvector('simple', name || ' ' || coalesce(description, '')))
+    where deleted is null;
+
+create index concurrently if not exists product_name_trgm_idx
+    on product using gin (name gin_trgm_ops)
+    where deleted is null;
+
+-- Code prefix filter (LIKE 'prefix%' regardless of database collation)
+create index concurrently if not exists product_code_pattern_idx
+    on product (code text_pattern_ops)
+    where deleted is null;
+
+-- Price range filters and keyset pagination sorted by price or name
+create index concurrently if not exists product_price_hrk_id_idx
+    on product (price_hrk, id)
+    where deleted is null;
+
+create index concurrently if not exists product_price_eur_id_idx
+    on product (price_eur, id)
+    where deleted is null;
+
+create index concurrently if not exists product_name_id_idx
+    on product (name, id)
+    where deleted is null;
+
+-- isAvailable filter with the default sort (by ID)
+create index concurrently if not exists product_available_id_idx
+    on product (is_available, id)
+    where deleted is null;
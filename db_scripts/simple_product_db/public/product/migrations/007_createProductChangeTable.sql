@@ -0,0 +1,20 @@
+-- Outbox of product changes (creates, updates and soft deletes), written in the same transaction as the change.
+-- Read by the change feed (GET /api/v1/products/changes).
+create table if not exists product_change
+(
+    id                bigserial
+    constraint product_change_pk
+    primary key,
+    product_id        bigint      not null,
+    change_type       varchar(16) not null,
+    -- Transaction which made the change. Change feed returns only changes of transactions older than the oldest
+    -- running transaction, ordered by (tx_id, id), so a change which is committed late is never skipped.
+    tx_id             bigint      not null default pg_current_xact_id()::text::bigint,
+    created_timestamp timestamp   not null default now()
+    );
+
+alter table product_change
+    owner to postgres;
+
+create index if not exists product_change_tx_id_id_idx
+    on product_change (tx_id, id);
@@ -0,0 +1,15 @@
+-- HNB exchange rate lists (all currencies), downloaded daily. Used for price conversion to any currency and date.
+create table if not exists exchange_rate
+(
+    currency_code     varchar(3)     not null,
+    rate_date         date           not null,
+    -- Number of currency units the middle rate is given for (e.g. 100 for JPY)
+    unit              integer        not null,
+    middle_rate       numeric(12, 6) not null,
+    created_timestamp timestamp      not null default now(),
+    constraint exchange_rate_pk
+    primary key (currency_code, rate_date)
+    );
+
+alter table exchange_rate
+    owner to postgres;
@@ -0,0 +1,17 @@
+-- Progress of EUR re-pricing jobs (one job per rate date). Products are re-priced in chunks of IDs, and the last
+-- re-priced ID is saved in the same transaction as the chunk, so an interrupted job resumes after the last chunk.
+create table if not exists repricing_job
+(
+    rate_date          date           not null
+    constraint repricing_job_pk
+    primary key,
+    rate               numeric(12, 6) not null,
+    status             varchar(16)    not null,
+    last_product_id    bigint         not null default 0,
+    updated_count      bigint         not null default 0,
+    started_timestamp  timestamp      not null default now(),
+    finished_timestamp timestamp
+    );
+
+alter table repricing_job
+    owner to postgres;
@@ -0,0 +1,86 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jseric.simple_product_rest.model.product.Product;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSerializationBenchmark {
+    private ObjectReader createRequestReader;
+    private ObjectWriter fetchResponseWriter;
+
+    private Product product;
+    private String createRequestJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        createRequestReader = objectMapper.readerFor(CreateProductRequest.class);
+        fetchResponseWriter = objectMapper.writerFor(FetchProductResponse.class);
+
+        product = new Product("ABCDEFGHIJ", "Benchmark product", new BigDecimal("100.00"),
+                              new BigDecimal("13.27"), "Product used by serialization benchmark", Boolean.TRUE);
+        product.setId(1L);
+        product.setVersion(0L);
+
+        final CreateProductRequest createRequest = new CreateProductRequest();
+        createRequest.setProduct(new ProductWrapper(product));
+        createRequestJson = objectMapper.writeValueAsString(createRequest);
+    }
+
+    @Benchmark
+    public ProductWrapper constructWrapper() {
+        return new ProductWrapper(product);
+    }
+
+    @Benchmark
+    public CreateProductRequest deserializeCreateRequest() throws JsonProcessingException {
+        return createRequestReader.readValue(createRequestJson);
+    }
+
+    @Benchmark
+    public String serializeFetchResponse(final FetchResponseState state) throws JsonProcessingException {
+        return fetchResponseWriter.writeValueAsString(state.fetchResponse);
+    }
+
+    @State(Scope.Benchmark)
+    public static class FetchResponseState {
+        @Param({"1", "100"})
+        private int productCount;
+
+        private FetchProductResponse fetchResponse;
+
+        @Setup
+        public void setUp() {
+            fetchResponse = new FetchProductResponse();
+            for (long i = 0; i < productCount; i++) {
+                final Product product = new Product("ABCDEFGHIJ", "Benchmark product", new BigDecimal("100.00"),
+                                                    new BigDecimal("13.27"), "Product used by serialization benchmark",
+                                                    Boolean.TRUE);
+                product.setId(i + 1);
+                product.setVersion(0L);
+                fetchResponse.getProducts().add(new ProductWrapper(product));
+            }
+        }
+    }
+}
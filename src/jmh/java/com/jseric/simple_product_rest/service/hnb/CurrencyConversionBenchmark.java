@@ -0,0 +1,71 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CurrencyConversionBenchmark {
+    private static final BigDecimal CONVERSION_RATE = new BigDecimal("7.534500");
+
+    private CurrencyConversionService currencyConversionService;
+
+    private BigDecimal priceHrk;
+
+    @Setup
+    public void setUp() {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        currencyConversionService = new CurrencyConversionService(new StubHnbCommunicator(meterRegistry), meterRegistry,
+                                                                  RateFallbackPolicy.STALE_RATE);
+        priceHrk = new BigDecimal("100.00");
+
+        // Warm the rate cache so the benchmark measures the conversion path only
+        currencyConversionService.convertHrkToEur(priceHrk);
+    }
+
+    @Benchmark
+    public BigDecimal convertHrkToEur() {
+        return currencyConversionService.convertHrkToEur(priceHrk);
+    }
+
+    @Benchmark
+    public BigDecimal convertHrkToEurWithKnownRate() {
+        return currencyConversionService.convertHrkToEur(priceHrk, CONVERSION_RATE);
+    }
+
+    /**
+     * Stands in for the HNB API so no network calls are made while benchmarking.
+     */
+    private static class StubHnbCommunicator extends HnbCommunicator {
+        private StubHnbCommunicator(final MeterRegistry meterRegistry) {
+            super(new RestTemplate(), meterRegistry, CircuitBreaker.ofDefaults("hnb"), Bulkhead.ofDefaults("hnb"),
+                  Retry.ofDefaults("hnb"));
+        }
+
+        @Override
+        public BigDecimal fetchConversionRate(final String currencyCode, final LocalDate date) {
+            return CONVERSION_RATE;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HnbResponseParsingBenchmark {
+    private static final String HNB_EUR_RESPONSE =
+            "[{\"Broj tečajnice\":\"37\",\"Datum primjene\":\"01.01.2022\",\"Država\":\"EMU\"," +
+            "\"Šifra valute\":\"978\",\"Valuta\":\"EUR\",\"Jedinica\":1,\"Kupovni za devize\":\"7,511000\"," +
+            "\"Srednji za devize\":\"7,534500\",\"Prodajni za devize\":\"7,557000\"}]";
+
+    // Currencies of a full HNB rate list, with their units
+    private static final String[][] CURRENCIES = {
+            {"036", "AUD", "1"}, {"124", "CAD", "1"}, {"203", "CZK", "1"}, {"208", "DKK", "1"}, {"348", "HUF", "100"},
+            {"392", "JPY", "100"}, {"578", "NOK", "1"}, {"752", "SEK", "1"}, {"756", "CHF", "1"}, {"826", "GBP", "1"},
+            {"840", "USD", "1"}, {"977", "BAM", "1"}, {"978", "EUR", "1"}, {"985", "PLN", "1"}
+    };
+
+    // Rate lists of 30 days
+    private static final int LIST_DAYS = 30;
+
+    private HnbCommunicator hnbCommunicator;
+
+    private byte[] eurResponse;
+
+    private byte[] rateListResponse;
+
+    @Setup
+    public void setUp() {
+        hnbCommunicator = new HnbCommunicator(new RestTemplate(), new SimpleMeterRegistry(), CircuitBreaker.ofDefaults("hnb"),
+                                              Bulkhead.ofDefaults("hnb"), Retry.ofDefaults("hnb"));
+        eurResponse = HNB_EUR_RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+        final StringBuilder rateList = new StringBuilder("[");
+        for (int day = 1; day <= LIST_DAYS; day++) {
+            for (final String[] currency : CURRENCIES) {
+                if (rateList.length() > 1) {
+                    rateList.append(',');
+                }
+                rateList.append("{\"Broj tečajnice\":\"").append(day).append("\",")
+                        .append("\"Datum primjene\":\"").append(String.format("%02d", day)).append(".01.2022\",")
+                        .append("\"Država\":\"X\",\"Šifra valute\":\"").append(currency[0]).append("\",")
+                        .append("\"Valuta\":\"").append(currency[1]).append("\",\"Jedinica\":").append(currency[2]).append(',')
+                        .append("\"Kupovni za devize\":\"7,511000\",\"Srednji za devize\":\"7,534500\",")
+                        .append("\"Prodajni za devize\":\"7,557000\"}");
+            }
+        }
+        rateListResponse = rateList.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public BigDecimal parseResponse() throws IOException {
+        return hnbCommunicator.parse(new ByteArrayInputStream(eurResponse), HnbResponseParser::parseConversionRate);
+    }
+
+    @Benchmark
+    public List<ExchangeRate> parseRateList() throws IOException {
+        return hnbCommunicator.parse(new ByteArrayInputStream(rateListResponse), HnbResponseParser::parseExchangeRates);
+    }
+}
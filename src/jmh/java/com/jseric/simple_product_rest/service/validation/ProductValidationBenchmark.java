@@ -0,0 +1,55 @@
+package com.jseric.simple_product_rest.service.validation;
+
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductValidationBenchmark {
+    private ProductValidationService productValidationService;
+
+    private ProductWrapper validProduct;
+    private ProductWrapper invalidProduct;
+
+    @Setup
+    public void setUp() {
+        productValidationService = new ProductValidationService(new SimpleMeterRegistry());
+
+        validProduct = new ProductWrapper();
+        validProduct.setCode("ABCDEFGHIJ");
+        validProduct.setName("Benchmark product");
+        validProduct.setPriceHrk(new BigDecimal("100.00"));
+        validProduct.setDescription("Product used by validation benchmark");
+        validProduct.setIsAvailable(Boolean.TRUE);
+
+        invalidProduct = new ProductWrapper();
+        invalidProduct.setCode("ABC");
+        invalidProduct.setPriceHrk(new BigDecimal("-1.00"));
+    }
+
+    @Benchmark
+    public String validateValidRequest() {
+        return productValidationService.validateCreateUpdateRequest(validProduct);
+    }
+
+    @Benchmark
+    public String validateInvalidRequest() {
+        return productValidationService.validateCreateUpdateRequest(invalidProduct);
+    }
+}
@@ -2,8 +2,10 @@ package com.jseric.simple_product_rest;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SimpleProductRestApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,36 @@
+package com.jseric.simple_product_rest.config;
+
+import java.util.concurrent.Callable;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+/**
+ * Applies the async request timeout set by the handler (see {@link #setTimeout(HttpServletRequest, long)}),
+ * instead of the global spring.mvc.async.request-timeout.
+ * Used by handlers which return a body written on another thread (e.g. StreamingResponseBody), since those
+ * can't set a timeout of their own.
+ */
+public class AsyncTimeoutInterceptor implements CallableProcessingInterceptor {
+    private static final String TIMEOUT_ATTRIBUTE = AsyncTimeoutInterceptor.class.getName() + ".timeout";
+
+    /**
+     * Set async request timeout of the given request. Must be called by the handler, before it returns.
+     * @param request Request
+     * @param timeoutMs Timeout (in milliseconds)
+     */
+    public static void setTimeout(final HttpServletRequest request, final long timeoutMs) {
+        request.setAttribute(TIMEOUT_ATTRIBUTE, timeoutMs);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(final NativeWebRequest request, final Callable<T> task) {
+        // Called before async processing is started, so the timeout is applied to the servlet async context
+        final Object timeoutMs = request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (timeoutMs != null && request instanceof AsyncWebRequest) {
+            ((AsyncWebRequest) request).setTimeout((Long) timeoutMs);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.jseric.simple_product_rest.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Slf4j
+@Configuration
+@Profile("!reactive")
+public class ExecutionConfig implements WebMvcConfigurer {
+    private final ExecutionMode executionMode;
+    private final int poolSize;
+    private final int queueCapacity;
+
+    // Executor used by Tomcat in virtual execution mode (null in other modes)
+    private final ExecutorService virtualThreadExecutor;
+
+    @Autowired
+    public ExecutionConfig(@Value("${com.jseric.simple_product_rest.execution.mode:sync}") final String executionMode,
+                           @Value("${com.jseric.simple_product_rest.execution.pool-size:50}") final int poolSize,
+                           @Value("${com.jseric.simple_product_rest.execution.queue-capacity:500}") final int queueCapacity) {
+        this(executionMode, poolSize, queueCapacity, ExecutionConfig::createVirtualThreadExecutor);
+    }
+
+    /**
+     * @param virtualThreadExecutorFactory Creates the executor of virtual execution mode, returns null if virtual
+     *                                     threads are not supported
+     */
+    ExecutionConfig(final String executionMode, final int poolSize, final int queueCapacity,
+                    final Supplier<ExecutorService> virtualThreadExecutorFactory) {
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+
+        ExecutionMode mode = ExecutionMode.valueOf(executionMode.trim().toUpperCase());
+        virtualThreadExecutor = mode == ExecutionMode.VIRTUAL ? virtualThreadExecutorFactory.get() : null;
+        if (mode == ExecutionMode.VIRTUAL && virtualThreadExecutor == null) {
+            log.warn("Virtual threads are not supported by this JVM, using async execution mode");
+            mode = ExecutionMode.ASYNC;
+        }
+        this.executionMode = mode;
+        log.info("Execution mode: " + this.executionMode);
+    }
+
+    /**
+     * Executor which runs product write requests.
+     * In sync and virtual mode requests run on the thread which received them (in virtual mode, that is already
+     * a virtual thread). In async mode they run on a bounded pool; when both the pool and its queue are full,
+     * new requests are rejected instead of queueing without limit.
+     * @return {@link org.springframework.core.task.TaskExecutor}
+     */
+    @Bean
+    public TaskExecutor productRequestExecutor() {
+        if (executionMode != ExecutionMode.ASYNC) {
+            return new SyncTaskExecutor();
+        }
+
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("product-request-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Run all Tomcat requests on virtual threads, when virtual execution mode is enabled
+     * @return {@link org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer}
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (virtualThreadExecutor != null) {
+                protocolHandler.setExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+            }
+        };
+    }
+
+    /**
+     * Let handlers set their own async request timeout (see {@link AsyncTimeoutInterceptor})
+     */
+    @Override
+    public void configureAsyncSupport(final AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new AsyncTimeoutInterceptor());
+    }
+
+    /**
+     * Create an executor which starts a new virtual thread for each task.
+     * Looked up reflectively, since the project is built for a JDK without virtual threads.
+     * @return {@link java.util.concurrent.ExecutorService}, or null if virtual threads are not supported
+     */
+    static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.jseric.simple_product_rest.config;
+
+/**
+ * How product write requests (create, update, delete, batch) are executed
+ */
+public enum ExecutionMode {
+    /**
+     * On the servlet thread which received the request
+     */
+    SYNC,
+    /**
+     * On a bounded executor, releasing the servlet thread while the request waits for DB and HNB API
+     */
+    ASYNC,
+    /**
+     * On virtual threads (JDK 21+), which Tomcat uses for all requests. Falls back to ASYNC on older JDKs.
+     */
+    VIRTUAL
+}
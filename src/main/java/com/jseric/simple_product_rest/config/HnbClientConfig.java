@@ -0,0 +1,241 @@
+package com.jseric.simple_product_rest.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+public class HnbClientConfig {
+    private static final String HNB = "hnb";
+
+    @Value("${com.jseric.simple_product_rest.hnb.http.max-connections:20}")
+    private int maxConnections;
+
+    @Value("${com.jseric.simple_product_rest.hnb.http.max-connections-per-route:10}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${com.jseric.simple_product_rest.hnb.http.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${com.jseric.simple_product_rest.hnb.http.read-timeout-ms:3000}")
+    private int readTimeoutMs;
+
+    @Value("${com.jseric.simple_product_rest.hnb.http.pool-timeout-ms:1000}")
+    private int poolTimeoutMs;
+
+    @Value("${com.jseric.simple_product_rest.hnb.http.idle-timeout-ms:30000}")
+    private long idleTimeoutMs;
+
+    @Value("${com.jseric.simple_product_rest.hnb.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${com.jseric.simple_product_rest.hnb.circuit-breaker.slow-call-duration-ms:2000}")
+    private long slowCallDurationMs;
+
+    @Value("${com.jseric.simple_product_rest.hnb.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${com.jseric.simple_product_rest.hnb.circuit-breaker.minimum-number-of-calls:10}")
+    private int minimumNumberOfCalls;
+
+    @Value("${com.jseric.simple_product_rest.hnb.circuit-breaker.open-state-ms:30000}")
+    private long openStateMs;
+
+    @Value("${com.jseric.simple_product_rest.hnb.bulkhead.max-concurrent-calls:10}")
+    private int maxConcurrentCalls;
+
+    @Value("${com.jseric.simple_product_rest.hnb.bulkhead.max-wait-ms:100}")
+    private long maxWaitMs;
+
+    @Value("${com.jseric.simple_product_rest.hnb.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${com.jseric.simple_product_rest.hnb.retry.initial-backoff-ms:100}")
+    private long initialBackoffMs;
+
+    /**
+     * Pooled HTTP client used for all requests towards HNB API.
+     * Connections are kept alive and reused between requests. Number of concurrent connections is capped,
+     * and every phase of a request (waiting for a pooled connection, connecting, reading) is bounded by a timeout.
+     * @return {@link org.apache.http.impl.client.CloseableHttpClient}
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient hnbHttpClient() {
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(2000);
+
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(poolTimeoutMs)
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictIdleConnections(idleTimeoutMs, TimeUnit.MILLISECONDS)
+                .evictExpiredConnections()
+                .build();
+    }
+
+    /**
+     * {@link org.springframework.web.client.RestTemplate} backed by the pooled HNB HTTP client
+     * @param hnbHttpClient {@link org.apache.http.impl.client.CloseableHttpClient}
+     * @return {@link org.springframework.web.client.RestTemplate}
+     */
+    @Bean
+    public RestTemplate hnbRestTemplate(final CloseableHttpClient hnbHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(hnbHttpClient));
+    }
+
+    /**
+     * Circuit breaker of HNB API requests. When the share of failed or slow requests in the sliding window crosses
+     * the threshold, requests fail fast (without reaching HNB API) until the circuit is half-open again.
+     * HTTP 4xx responses are answers to invalid requests, so they are not counted as failures.
+     * @param meterRegistry Registry of circuit breaker metrics
+     * @return {@link io.github.resilience4j.circuitbreaker.CircuitBreaker}
+     */
+    @Bean
+    public CircuitBreaker hnbCircuitBreaker(final MeterRegistry meterRegistry) {
+        final CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofMillis(openStateMs))
+                .recordException(e -> !isClientError(e))
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+
+        final CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(HNB);
+    }
+
+    /**
+     * Bulkhead which caps the number of concurrent HNB API requests.
+     * Requests over the cap wait at most max-wait-ms for a free slot, and are rejected after that.
+     * @param meterRegistry Registry of bulkhead metrics
+     * @return {@link io.github.resilience4j.bulkhead.Bulkhead}
+     */
+    @Bean
+    public Bulkhead hnbBulkhead(final MeterRegistry meterRegistry) {
+        final BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(maxWaitMs))
+                .build();
+
+        final BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(HNB);
+    }
+
+    /**
+     * Retry of failed HNB API requests, with exponential backoff and jitter.
+     * Only fast failures (refused or reset connections, HTTP 5xx) are retried. Timeouts are not retried, since
+     * a timed out request has already used up its time, so latency of a request stays bounded by a single timeout.
+     * @param meterRegistry Registry of retry metrics
+     * @return {@link io.github.resilience4j.retry.Retry}
+     */
+    @Bean
+    public Retry hnbRetry(final MeterRegistry meterRegistry) {
+        final RetryConfig config = RetryConfig.custom()
+                .maxAttempts(maxAttempts)
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(initialBackoffMs, 2.0, 0.5))
+                .retryOnException(HnbClientConfig::isRetryable)
+                .build();
+
+        final RetryRegistry registry = RetryRegistry.of(config);
+        TaggedRetryMetrics.ofRetryRegistry(registry).bindTo(meterRegistry);
+        return registry.retry(HNB);
+    }
+
+    /**
+     * Non-blocking HNB API client, used by the reactive profile.
+     * Connection pool size and timeouts are the same as for {@link #hnbHttpClient()}.
+     * @param webClientBuilder {@link org.springframework.web.reactive.function.client.WebClient.Builder}
+     * @return {@link org.springframework.web.reactive.function.client.WebClient}
+     */
+    @Bean
+    @Profile("reactive")
+    public WebClient hnbWebClient(final WebClient.Builder webClientBuilder) {
+        final ConnectionProvider connectionProvider = ConnectionProvider.builder("hnb")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(poolTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(idleTimeoutMs))
+                .build();
+
+        final HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+
+        return webClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+
+    /**
+     * @return true if HNB API responded with HTTP 4xx
+     */
+    static boolean isClientError(final Throwable e) {
+        return e instanceof HttpClientErrorException
+                || e instanceof WebClientResponseException && ((WebClientResponseException) e).getStatusCode().is4xxClientError();
+    }
+
+    /**
+     * @return true if request failed fast, with HTTP 5xx or refused or reset connection
+     */
+    static boolean isRetryable(final Throwable e) {
+        if (e instanceof CallNotPermittedException || e instanceof BulkheadFullException) {
+            return false;
+        }
+        if (e instanceof HttpServerErrorException
+                || e instanceof WebClientResponseException && ((WebClientResponseException) e).getStatusCode().is5xxServerError()) {
+            return true;
+        }
+
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
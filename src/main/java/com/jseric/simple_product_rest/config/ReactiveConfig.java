@@ -0,0 +1,20 @@
+package com.jseric.simple_product_rest.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+    /**
+     * Run the reactive profile on Netty. Tomcat is on the classpath for the servlet profile and would be
+     * picked by default.
+     * @return {@link org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory}
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
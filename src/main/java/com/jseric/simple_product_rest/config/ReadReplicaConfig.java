@@ -0,0 +1,130 @@
+package com.jseric.simple_product_rest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Read replica routing, enabled when replica URLs are configured.
+ * Replaces the auto-configured data source with a routing one; the primary pool is still configured
+ * by spring.datasource.* properties.
+ */
+@Slf4j
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "com.jseric.simple_product_rest.read-replicas", name = "urls")
+public class ReadReplicaConfig {
+    @Value("${com.jseric.simple_product_rest.read-replicas.urls}")
+    private String[] urls;
+
+    @Value("${com.jseric.simple_product_rest.read-replicas.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${com.jseric.simple_product_rest.read-replicas.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${com.jseric.simple_product_rest.read-replicas.max-pool-size:10}")
+    private int maxPoolSize;
+
+    @Value("${com.jseric.simple_product_rest.read-replicas.connection-timeout-ms:1000}")
+    private long connectionTimeoutMs;
+
+    @Value("${com.jseric.simple_product_rest.read-replicas.validation-timeout-seconds:1}")
+    private int validationTimeoutSeconds;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    /**
+     * Connection pool of the primary database
+     * @param properties spring.datasource.* properties
+     * @return {@link com.zaxxer.hikari.HikariDataSource}
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+        final HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Data source which routes read-only transactions to replicas and everything else to the primary.
+     * Replicas are checked before they are used, so a replica which is down on startup does not fail the application.
+     * @param primaryDataSource Primary connection pool
+     * @param meterRegistry {@link io.micrometer.core.instrument.MeterRegistry}
+     * @return {@link com.jseric.simple_product_rest.config.ReplicaRoutingDataSource}
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") final DataSource primaryDataSource, final MeterRegistry meterRegistry) {
+        final Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (final String url : urls) {
+            if (StringUtils.isBlank(url)) {
+                continue;
+            }
+            final String name = "replica-" + replicas.size();
+            replicas.put(name, replicaDataSource(name, url.trim(), meterRegistry));
+            log.info("Read replica " + name + ": " + url.trim());
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas, validationTimeoutSeconds);
+        routingDataSource.checkHealth();
+        for (final String name : routingDataSource.getReplicaNames()) {
+            Gauge.builder("datasource.replica.healthy", routingDataSource, dataSource -> dataSource.isHealthy(name) ? 1 : 0)
+                    .description("Whether the read replica passed the last health check")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        }
+        return routingDataSource;
+    }
+
+    /**
+     * Data source used by JPA and JDBC repositories. Physical connection is obtained on the first statement,
+     * when it is already known whether the transaction is read-only.
+     * @param replicaRoutingDataSource {@link com.jseric.simple_product_rest.config.ReplicaRoutingDataSource}
+     * @return {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(final ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${com.jseric.simple_product_rest.read-replicas.health-check-interval-ms:5000}")
+    public void checkReplicaHealth() {
+        if (routingDataSource != null) {
+            routingDataSource.checkHealth();
+        }
+    }
+
+    private HikariDataSource replicaDataSource(final String name, final String url, final MeterRegistry meterRegistry) {
+        final HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        dataSource.setMaximumPoolSize(maxPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeoutMs);
+        // Pool is started even if the replica is down; it is used only after it passes the health check
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+}
@@ -0,0 +1,53 @@
+package com.jseric.simple_product_rest.config;
+
+/**
+ * Read replica routing state of the request handled by the current thread.
+ * Outside of a request (scheduled jobs, async tasks), every read-only transaction picks its own replica.
+ */
+public final class ReplicaRoutingContext {
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    /**
+     * Start routing scope of a request
+     * @param primaryRequired If true, all reads of the request go to the primary (e.g. client has just written)
+     */
+    public static void begin(final boolean primaryRequired) {
+        SCOPE.set(new Scope(primaryRequired));
+    }
+
+    public static void end() {
+        SCOPE.remove();
+    }
+
+    static boolean isPrimaryRequired() {
+        final Scope scope = SCOPE.get();
+        return scope != null && scope.primaryRequired;
+    }
+
+    /**
+     * Replica used by earlier reads of the request, so that all reads of a request see the same (or newer) state
+     */
+    static String pinnedReplica() {
+        final Scope scope = SCOPE.get();
+        return scope != null ? scope.pinnedReplica : null;
+    }
+
+    static void pin(final String replica) {
+        final Scope scope = SCOPE.get();
+        if (scope != null) {
+            scope.pinnedReplica = replica;
+        }
+    }
+
+    private static final class Scope {
+        private final boolean primaryRequired;
+        private String pinnedReplica;
+
+        private Scope(final boolean primaryRequired) {
+            this.primaryRequired = primaryRequired;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.jseric.simple_product_rest.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes read-only transactions to read replicas (round robin over healthy replicas) and everything else to
+ * the primary. Routing is decided when a connection is obtained, so this data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager then gets
+ * the physical connection on the first statement, after the read-only flag of the transaction is set.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaNames;
+    private final int validationTimeoutSeconds;
+
+    // Replicas which passed the last health check
+    private final Set<String> healthyReplicas = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary Primary data source
+     * @param replicas Read replica data sources, by name
+     * @param validationTimeoutSeconds Time (in seconds) within which a replica must answer the health check
+     */
+    public ReplicaRoutingDataSource(final DataSource primary, final Map<String, DataSource> replicas,
+                                    final int validationTimeoutSeconds) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.replicaNames = new ArrayList<>(replicas.keySet());
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+
+        final Map<Object, Object> targetDataSources = new HashMap<>(replicas);
+        targetDataSources.put(PRIMARY, primary);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReplicaRoutingContext.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+
+        final String pinnedReplica = ReplicaRoutingContext.pinnedReplica();
+        if (pinnedReplica != null && healthyReplicas.contains(pinnedReplica)) {
+            return pinnedReplica;
+        }
+
+        final String replica = nextHealthyReplica();
+        if (replica == null) {
+            return PRIMARY;
+        }
+        ReplicaRoutingContext.pin(replica);
+        return replica;
+    }
+
+    /**
+     * Check whether replicas accept connections, and take replicas which don't out of rotation
+     */
+    public void checkHealth() {
+        for (final Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            final boolean healthy = isValid(replica.getValue());
+            final boolean changed = healthy
+                    ? healthyReplicas.add(replica.getKey())
+                    : healthyReplicas.remove(replica.getKey());
+            if (changed && healthy) {
+                log.info("Read replica " + replica.getKey() + " is healthy");
+            } else if (changed) {
+                log.warn("Read replica " + replica.getKey() + " is unhealthy, reads are sent to other replicas or primary");
+            }
+        }
+    }
+
+    public boolean isHealthy(final String replica) {
+        return healthyReplicas.contains(replica);
+    }
+
+    public List<String> getReplicaNames() {
+        return replicaNames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (final DataSource replica : replicas.values()) {
+            if (replica instanceof Closeable) {
+                ((Closeable) replica).close();
+            }
+        }
+    }
+
+    private String nextHealthyReplica() {
+        for (int i = 0; i < replicaNames.size(); i++) {
+            final String replica = replicaNames.get(Math.floorMod(next.getAndIncrement(), replicaNames.size()));
+            if (healthyReplicas.contains(replica)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private boolean isValid(final DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(validationTimeoutSeconds);
+        } catch (final SQLException e) {
+            log.debug("Read replica health check failed: " + e.getMessage());
+            return false;
+        }
+    }
+}
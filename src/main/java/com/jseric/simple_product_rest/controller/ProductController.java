@@ -1,11 +1,40 @@
 package com.jseric.simple_product_rest.controller;
 
+import com.jseric.simple_product_rest.config.AsyncTimeoutInterceptor;
+import com.jseric.simple_product_rest.filter.RateLimitFilter;
+import com.jseric.simple_product_rest.filter.ReplicaRoutingFilter;
+import com.jseric.simple_product_rest.model.fe.BatchProductRequest;
+import com.jseric.simple_product_rest.model.fe.BatchProductResponse;
 import com.jseric.simple_product_rest.model.fe.CreateProductRequest;
 import com.jseric.simple_product_rest.model.fe.CreateProductResponse;
+import com.jseric.simple_product_rest.model.fe.DeleteProductsResponse;
+import com.jseric.simple_product_rest.model.fe.FetchProductChangesResponse;
 import com.jseric.simple_product_rest.model.fe.FetchProductResponse;
+import com.jseric.simple_product_rest.model.fe.ProductSearchRequest;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.fe.SearchProductResponse;
+import com.jseric.simple_product_rest.model.product.CatalogState;
 import com.jseric.simple_product_rest.service.ProductService;
+import com.jseric.simple_product_rest.service.change.ProductChangeService;
+import com.jseric.simple_product_rest.service.export.ExportFormat;
+import com.jseric.simple_product_rest.service.export.ProductExportService;
+import com.jseric.simple_product_rest.service.hnb.ExchangeRateService;
+import com.jseric.simple_product_rest.service.hnb.PriceConversion;
+import com.jseric.simple_product_rest.service.idempotency.IdempotencyService;
+import com.jseric.simple_product_rest.service.search.ProductSearchService;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import javax.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,81 +42,318 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/products")
 public class ProductController {
     private static final String BASE_CONTROLLER_PATH = "/api/v1/products";
 
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final ProductSearchService productSearchService;
+    private final ProductChangeService productChangeService;
+    private final ExchangeRateService exchangeRateService;
+    private final IdempotencyService idempotencyService;
+    private final String apiKeyHeader;
+    private final TaskExecutor productRequestExecutor;
+    private final long exportTimeoutMs;
 
     @Autowired
-    public ProductController(final ProductService productService) {
+    public ProductController(final ProductService productService, final ProductExportService productExportService,
+                             final ProductSearchService productSearchService,
+                             final ProductChangeService productChangeService,
+                             final ExchangeRateService exchangeRateService,
+                             final IdempotencyService idempotencyService,
+                             @Value("${com.jseric.simple_product_rest.rate-limit.api-key-header:X-API-Key}") final String apiKeyHeader,
+                             @Qualifier("productRequestExecutor") final TaskExecutor productRequestExecutor,
+                             @Value("${com.jseric.simple_product_rest.export.request-timeout-ms:600000}") final long exportTimeoutMs) {
         this.productService = productService;
+        this.productExportService = productExportService;
+        this.productSearchService = productSearchService;
+        this.productChangeService = productChangeService;
+        this.exchangeRateService = exchangeRateService;
+        this.idempotencyService = idempotencyService;
+        this.apiKeyHeader = apiKeyHeader;
+        this.productRequestExecutor = productRequestExecutor;
+        this.exportTimeoutMs = exportTimeoutMs;
     }
 
 
     @PostMapping(consumes = {"application/json"}, produces = {"application/json"})
-    public ResponseEntity<CreateProductResponse> createNewProduct(@RequestBody final CreateProductRequest reqBody) {
+    public CompletableFuture<ResponseEntity<CreateProductResponse>> createNewProduct(
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) final String idempotencyKey,
+            @RequestBody final CreateProductRequest reqBody,
+            final HttpServletRequest request) {
         log.info("New POST Request:: " + BASE_CONTROLLER_PATH);
+        log.debug("Idempotency key: " + idempotencyKey);
         log.debug("Request body: " + reqBody);
 
-        final ResponseEntity<CreateProductResponse> rsp = productService.createAndSave(reqBody);
+        return idempotencyService.execute(RateLimitFilter.clientKey(request, apiKeyHeader), idempotencyKey,
+                "POST " + BASE_CONTROLLER_PATH, reqBody,
+                () -> execute(request, () -> productService.createAndSave(reqBody)), ProductController::createErrorBody);
+    }
 
-        log.info("Response status: " + rsp.getStatusCode());
-        log.debug("Response body: " + rsp.getBody());
-        return rsp;
+    @PostMapping(value = "/batch", consumes = {"application/json"}, produces = {"application/json"})
+    public CompletableFuture<ResponseEntity<BatchProductResponse>> createOrUpdateProducts(
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) final String idempotencyKey,
+            @RequestBody final BatchProductRequest reqBody,
+            final HttpServletRequest request) {
+        log.info("New POST Request:: " + BASE_CONTROLLER_PATH + "/batch");
+        log.debug("Idempotency key: " + idempotencyKey);
+        log.debug("Request body: " + reqBody);
+
+        return idempotencyService.execute(RateLimitFilter.clientKey(request, apiKeyHeader), idempotencyKey,
+                "POST " + BASE_CONTROLLER_PATH + "/batch", reqBody,
+                () -> execute(request, () -> productService.createOrUpdateBatch(reqBody)), ProductController::batchErrorBody);
     }
 
     @PutMapping(value = "/{productId}", consumes={"application/json"}, produces={"application/json"})
-    public ResponseEntity<CreateProductResponse> updateProduct(
+    public CompletableFuture<ResponseEntity<CreateProductResponse>> updateProduct(
             @PathVariable final String productId,
-            @RequestBody final CreateProductRequest reqBody) {
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) final String idempotencyKey,
+            @RequestBody final CreateProductRequest reqBody,
+            final HttpServletRequest request) {
         log.info("New PUT Request:: " + BASE_CONTROLLER_PATH + "/id");
         log.debug("Product ID: " + productId);
+        log.debug("Idempotency key: " + idempotencyKey);
         log.debug("Request body: " + reqBody);
 
-        final ResponseEntity<CreateProductResponse> rsp = productService.update(productId, reqBody);
-
-        log.info("Response status: " + rsp.getStatusCode());
-        log.debug("Response body: " + rsp.getBody());
-        return rsp;
+        return idempotencyService.execute(RateLimitFilter.clientKey(request, apiKeyHeader), idempotencyKey,
+                "PUT " + BASE_CONTROLLER_PATH + "/" + productId, reqBody,
+                () -> execute(request, () -> productService.update(productId, reqBody)), ProductController::createErrorBody);
     }
 
     @DeleteMapping(value = "/{productId}")
-    public ResponseEntity<Object> deleteProduct(@PathVariable final String productId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteProduct(@PathVariable final String productId,
+                                                                   final HttpServletRequest request) {
         log.info("New DELETE Request:: " + BASE_CONTROLLER_PATH + "/id");
         log.debug("Product ID: " + productId);
 
-        final ResponseEntity<Object> rsp = productService.delete(productId);
+        return execute(request, () -> productService.delete(productId));
+    }
 
-        log.info("Response status: " + rsp.getStatusCode());
-        return rsp;
+    @DeleteMapping(produces = {"application/json"})
+    public CompletableFuture<ResponseEntity<DeleteProductsResponse>> deleteProducts(
+            @RequestParam(required = false) final String ids,
+            final HttpServletRequest request) {
+        log.info("New DELETE Request:: " + BASE_CONTROLLER_PATH);
+        log.debug("Product IDs: " + ids);
+
+        return execute(request, () -> productService.deleteAll(ids));
     }
 
     @GetMapping(produces = {"application/json"})
-    public ResponseEntity<FetchProductResponse> fetchAll() {
+    public ResponseEntity<FetchProductResponse> fetchAll(
+            @RequestParam(required = false) final String limit,
+            @RequestParam(required = false) final String cursor,
+            @RequestParam(required = false) final String page,
+            @RequestParam(required = false) final String fields,
+            @RequestParam(required = false) final String currency,
+            @RequestParam(required = false) final String date,
+            final WebRequest webRequest) {
         log.info("New GET Request:: " + BASE_CONTROLLER_PATH);
+        log.debug("limit: " + limit + ", cursor: " + cursor + ", page: " + page + ", fields: " + fields
+                + ", currency: " + currency + ", date: " + date);
+
+        final ResponseEntity<FetchProductResponse> conversionErrorRsp = validateConversion(currency, date);
+        if (conversionErrorRsp != null) {
+            return conversionErrorRsp;
+        }
+        // Invalid parameters get HTTP 400 even if the catalog has not changed
+        final ResponseEntity<FetchProductResponse> pageErrorRsp = productService.validatePage(limit, cursor, page, fields);
+        if (pageErrorRsp != null) {
+            log.info("Response status: " + pageErrorRsp.getStatusCode());
+            return pageErrorRsp;
+        }
+        final Optional<PriceConversion> priceConversion = exchangeRateService.findConversion(currency, date);
 
-        final ResponseEntity<FetchProductResponse> rsp = productService.fetchAll();
+        // Catalog state is checked before loading any Products, so unchanged catalog costs a single aggregate query
+        final CatalogState catalogState = productService.fetchCatalogState();
+        final String eTag = conversionETag(catalogETag(catalogState), priceConversion);
+        // Validated by ETag only: Last-Modified would come from modification timestamps, which can't tell whether
+        // a change was committed after If-Modified-Since (see ProductRepository#fetchCatalogState)
+        if (webRequest.checkNotModified(eTag)) {
+            log.info("Response status: " + HttpStatus.NOT_MODIFIED);
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+
+        final ResponseEntity<FetchProductResponse> rsp = productService.fetchPage(limit, cursor, page, fields);
+        priceConversion.ifPresent(conversion -> convertPrices(rsp, conversion));
 
         log.info("Response status: " + rsp.getStatusCode());
         log.debug("Response body: " + rsp.getBody());
         return rsp;
     }
 
+    @GetMapping(value = "/search", produces = {"application/json"})
+    public ResponseEntity<SearchProductResponse> searchProducts(final ProductSearchRequest reqParams) {
+        log.info("New GET Request:: " + BASE_CONTROLLER_PATH + "/search");
+        log.debug("Request parameters: " + reqParams);
+
+        final ResponseEntity<SearchProductResponse> rsp = productSearchService.search(reqParams);
+
+        log.info("Response status: " + rsp.getStatusCode());
+        log.debug("Response body: " + rsp.getBody());
+        return rsp;
+    }
+
+    @GetMapping(value = "/changes", produces = {"application/json"})
+    public CompletableFuture<ResponseEntity<FetchProductChangesResponse>> fetchChanges(
+            @RequestParam(required = false) final String since,
+            @RequestParam(required = false) final String limit,
+            @RequestParam(required = false) final String wait) {
+        log.info("New GET Request:: " + BASE_CONTROLLER_PATH + "/changes");
+        log.debug("since: " + since + ", limit: " + limit + ", wait: " + wait);
+
+        return productChangeService.fetchChanges(since, limit, wait);
+    }
+
     @GetMapping(value = "/{productId}", produces = {"application/json"})
-    public ResponseEntity<FetchProductResponse> fetchById(@PathVariable final String productId) {
+    public ResponseEntity<FetchProductResponse> fetchById(@PathVariable final String productId,
+                                                          @RequestParam(required = false) final String currency,
+                                                          @RequestParam(required = false) final String date,
+                                                          final WebRequest webRequest) {
         log.info("New GET Request:: " + BASE_CONTROLLER_PATH + "/id");
-        log.debug("Product ID: " + productId);
+        log.debug("Product ID: " + productId + ", currency: " + currency + ", date: " + date);
+
+        final ResponseEntity<FetchProductResponse> conversionErrorRsp = validateConversion(currency, date);
+        if (conversionErrorRsp != null) {
+            return conversionErrorRsp;
+        }
+        final Optional<PriceConversion> priceConversion = exchangeRateService.findConversion(currency, date);
 
         final ResponseEntity<FetchProductResponse> rsp = productService.fetchById(productId);
 
+        if (rsp.getStatusCode() == HttpStatus.OK && webRequest.checkNotModified(
+                conversionETag(productETag(rsp.getBody().getProducts().get(0)), priceConversion))) {
+            log.info("Response status: " + HttpStatus.NOT_MODIFIED);
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+        priceConversion.ifPresent(conversion -> convertPrices(rsp, conversion));
+
         log.info("Response status: " + rsp.getStatusCode());
         log.debug("Response body: " + rsp.getBody());
         return rsp;
     }
+
+    @GetMapping(value = "/export", produces = {"application/json", "application/x-ndjson"})
+    public ResponseEntity<StreamingResponseBody> exportAll(@RequestParam(required = false) final String format,
+                                                           final HttpServletRequest servletRequest) {
+        log.info("New GET Request:: " + BASE_CONTROLLER_PATH + "/export");
+        log.debug("format: " + format);
+
+        final ExportFormat exportFormat;
+        if (format == null || format.equalsIgnoreCase("json")) {
+            exportFormat = ExportFormat.JSON;
+        } else if (format.equalsIgnoreCase("ndjson")) {
+            exportFormat = ExportFormat.NDJSON;
+        } else {
+            log.info("Response status: " + HttpStatus.BAD_REQUEST);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        final StreamingResponseBody body = outputStream -> productExportService.exportAll(outputStream, exportFormat);
+        // Export of a large catalog may take longer than other async requests are allowed to
+        AsyncTimeoutInterceptor.setTimeout(servletRequest, exportTimeoutMs);
+
+        log.info("Response status: " + HttpStatus.OK);
+        return ResponseEntity.ok().contentType(exportFormat.getMediaType()).body(body);
+    }
+
+    /**
+     * Run request on the product request executor (see {@link com.jseric.simple_product_rest.config.ExecutionMode}).
+     * If the executor is saturated, request is rejected with HTTP 503.
+     * Read-your-writes window of the client starts when the write completes, not when the request thread returns
+     * (see {@link com.jseric.simple_product_rest.filter.ReplicaRoutingFilter#writeDoneCallback(HttpServletRequest)}).
+     */
+    private <T> CompletableFuture<ResponseEntity<T>> execute(final HttpServletRequest servletRequest,
+                                                             final Supplier<ResponseEntity<T>> request) {
+        final Runnable writeDone = ReplicaRoutingFilter.writeDoneCallback(servletRequest);
+        CompletableFuture<ResponseEntity<T>> rspFuture;
+        try {
+            rspFuture = CompletableFuture.supplyAsync(request, productRequestExecutor);
+        } catch (final RejectedExecutionException e) {
+            log.warn("Request rejected, product request executor is saturated");
+            rspFuture = CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+        }
+
+        return rspFuture.whenComplete((rsp, e) -> writeDone.run()).thenApply(rsp -> {
+            log.info("Response status: " + rsp.getStatusCode());
+            log.debug("Response body: " + rsp.getBody());
+            return rsp;
+        });
+    }
+
+    /**
+     * Validate currency and date of price conversion
+     * @return Response with HTTP 400 if conversion is not possible, otherwise null
+     */
+    private ResponseEntity<FetchProductResponse> validateConversion(final String currency, final String date) {
+        final String errorMessage = exchangeRateService.validateConversion(currency, date);
+        if (errorMessage.isEmpty()) {
+            return null;
+        }
+
+        final FetchProductResponse rspBody = new FetchProductResponse();
+        rspBody.setErrorMessage(errorMessage);
+        log.info("Response status: " + HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
+    }
+
+    private static CreateProductResponse createErrorBody(final String errorMessage) {
+        final CreateProductResponse rspBody = new CreateProductResponse();
+        rspBody.setErrorMessage(errorMessage);
+        return rspBody;
+    }
+
+    private static BatchProductResponse batchErrorBody(final String errorMessage) {
+        final BatchProductResponse rspBody = new BatchProductResponse();
+        rspBody.setErrorMessage(errorMessage);
+        return rspBody;
+    }
+
+    /**
+     * Replace Products in successful response with copies with converted prices (fetched Products may be cached)
+     */
+    private static void convertPrices(final ResponseEntity<FetchProductResponse> rsp, final PriceConversion conversion) {
+        if (rsp.getStatusCode() == HttpStatus.OK && rsp.getBody() != null) {
+            rsp.getBody().setProducts(conversion.apply(rsp.getBody().getProducts()));
+        }
+    }
+
+    /**
+     * ETag of representation with converted prices: currency and rate date are appended to the ETag
+     */
+    private static String conversionETag(final String eTag, final Optional<PriceConversion> priceConversion) {
+        return priceConversion
+                .map(PriceConversion::getExchangeRate)
+                .map(rate -> eTag.substring(0, eTag.length() - 1)
+                        + "-" + rate.getCurrencyCode() + "-" + rate.getDate() + "\"")
+                .orElse(eTag);
+    }
+
+    /**
+     * Strong ETag of a single Product. Version changes on every update, so ID and version identify the representation.
+     */
+    private static String productETag(final ProductWrapper product) {
+        return "\"" + product.getId() + "-" + product.getVersion() + "\"";
+    }
+
+    /**
+     * Strong ETag of the catalog, derived from the position of the last committed change.
+     * Unlike modification time, it changes on every commit, even if the transaction wrote an older timestamp.
+     */
+    private static String catalogETag(final CatalogState catalogState) {
+        return "\"" + Objects.requireNonNullElse(catalogState.getLastChangeTxId(), 0L)
+                + "-" + Objects.requireNonNullElse(catalogState.getLastChangeId(), 0L)
+                + "-" + catalogState.getPendingChangeCount() + "\"";
+    }
 }
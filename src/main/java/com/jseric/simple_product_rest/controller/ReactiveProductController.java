@@ -0,0 +1,91 @@
+package com.jseric.simple_product_rest.controller;
+
+import com.jseric.simple_product_rest.model.fe.CreateProductRequest;
+import com.jseric.simple_product_rest.model.fe.CreateProductResponse;
+import com.jseric.simple_product_rest.model.fe.FetchProductResponse;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.service.reactive.ReactiveProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux variant of {@link com.jseric.simple_product_rest.controller.ProductController}, used by the reactive profile
+ */
+@Slf4j
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/products")
+public class ReactiveProductController {
+    private static final String BASE_CONTROLLER_PATH = "/api/v1/products";
+
+    private final ReactiveProductService reactiveProductService;
+
+    @Autowired
+    public ReactiveProductController(final ReactiveProductService reactiveProductService) {
+        this.reactiveProductService = reactiveProductService;
+    }
+
+
+    @PostMapping(consumes = {"application/json"}, produces = {"application/json"})
+    public Mono<ResponseEntity<CreateProductResponse>> createNewProduct(@RequestBody final CreateProductRequest reqBody) {
+        log.info("New POST Request:: " + BASE_CONTROLLER_PATH);
+        log.debug("Request body: " + reqBody);
+
+        return reactiveProductService.createAndSave(reqBody).doOnNext(ReactiveProductController::logResponse);
+    }
+
+    @PutMapping(value = "/{productId}", consumes={"application/json"}, produces={"application/json"})
+    public Mono<ResponseEntity<CreateProductResponse>> updateProduct(
+            @PathVariable final String productId,
+            @RequestBody final CreateProductRequest reqBody) {
+        log.info("New PUT Request:: " + BASE_CONTROLLER_PATH + "/id");
+        log.debug("Product ID: " + productId);
+        log.debug("Request body: " + reqBody);
+
+        return reactiveProductService.update(productId, reqBody).doOnNext(ReactiveProductController::logResponse);
+    }
+
+    @DeleteMapping(value = "/{productId}")
+    public Mono<ResponseEntity<Object>> deleteProduct(@PathVariable final String productId) {
+        log.info("New DELETE Request:: " + BASE_CONTROLLER_PATH + "/id");
+        log.debug("Product ID: " + productId);
+
+        return reactiveProductService.delete(productId).doOnNext(ReactiveProductController::logResponse);
+    }
+
+    /**
+     * Stream all Products (as a JSON array, or as newline delimited JSON).
+     * Products are read from the database only as fast as the client consumes them.
+     */
+    @GetMapping(produces = {"application/json", "application/x-ndjson"})
+    public Flux<ProductWrapper> fetchAll() {
+        log.info("New GET Request:: " + BASE_CONTROLLER_PATH);
+
+        return reactiveProductService.fetchAll();
+    }
+
+    @GetMapping(value = "/{productId}", produces = {"application/json"})
+    public Mono<ResponseEntity<FetchProductResponse>> fetchById(@PathVariable final String productId) {
+        log.info("New GET Request:: " + BASE_CONTROLLER_PATH + "/id");
+        log.debug("Product ID: " + productId);
+
+        return reactiveProductService.fetchById(productId).doOnNext(ReactiveProductController::logResponse);
+    }
+
+    private static void logResponse(final ResponseEntity<?> rsp) {
+        log.info("Response status: " + rsp.getStatusCode());
+        log.debug("Response body: " + rsp.getBody());
+    }
+}
@@ -0,0 +1,195 @@
+package com.jseric.simple_product_rest.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+@Slf4j
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class LoadSheddingFilter extends OncePerRequestFilter {
+    private static final String ERR_OVERLOADED = "{\"errorMessage\":\"service is overloaded, try again later;\"}";
+
+    // Long-running requests (streaming export, long-polling change feed) are not limited and not measured
+    private static final String EXPORT_PATH = RateLimitFilter.PRODUCT_PATH + "/export";
+    private static final String CHANGES_PATH = RateLimitFilter.PRODUCT_PATH + "/changes";
+
+    // Limit is decreased by this factor after a slow request and increased by one after a fast one
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private static final String REJECTED_COUNTER = "http.requests.rejected";
+    private static final String REASON_TAG = "reason";
+    private static final String KIND_TAG = "kind";
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final long retryAfterSeconds;
+    private final LongSupplier nanoClock;
+
+    // Requests which were admitted and have not completed yet (running, or queued for the product request executor)
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Current concurrency limit, between minLimit and maxLimit
+    private volatile double limit;
+
+    private final Counter readRejectedCounter;
+    private final Counter writeRejectedCounter;
+
+    /**
+     * Adaptive load shedding of product endpoints.
+     * The number of concurrent requests is capped by a limit which adapts to latency (additive increase,
+     * multiplicative decrease): every request slower than the latency threshold lowers the limit, every faster
+     * request raises it, up to max-in-flight. Requests over the limit are rejected with HTTP 503 and Retry-After
+     * header, so that admitted requests keep their latency instead of everyone queueing.
+     */
+    @Autowired
+    public LoadSheddingFilter(
+            @Value("${com.jseric.simple_product_rest.load-shedding.enabled:true}") final boolean enabled,
+            @Value("${com.jseric.simple_product_rest.load-shedding.min-in-flight:10}") final int minLimit,
+            @Value("${com.jseric.simple_product_rest.load-shedding.max-in-flight:200}") final int maxLimit,
+            @Value("${com.jseric.simple_product_rest.load-shedding.latency-threshold-ms:500}") final long latencyThresholdMs,
+            @Value("${com.jseric.simple_product_rest.load-shedding.retry-after-seconds:1}") final long retryAfterSeconds,
+            final MeterRegistry meterRegistry) {
+        this(enabled, minLimit, maxLimit, latencyThresholdMs, retryAfterSeconds, meterRegistry, System::nanoTime);
+    }
+
+    LoadSheddingFilter(final boolean enabled, final int minLimit, final int maxLimit, final long latencyThresholdMs,
+                       final long retryAfterSeconds, final MeterRegistry meterRegistry, final LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.nanoClock = nanoClock;
+        this.limit = maxLimit;
+
+        Gauge.builder("http.requests.in_flight", inFlight, AtomicInteger::get)
+                .description("Product requests currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("http.requests.in_flight.limit", this, filter -> filter.limit)
+                .description("Current adaptive limit of product requests in flight")
+                .register(meterRegistry);
+        readRejectedCounter = rejectedCounter("read", meterRegistry);
+        writeRejectedCounter = rejectedCounter("write", meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        final String uri = request.getRequestURI();
+        return !enabled || !uri.startsWith(RateLimitFilter.PRODUCT_PATH)
+                || uri.startsWith(EXPORT_PATH) || uri.startsWith(CHANGES_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        if (!tryAcquire()) {
+            log.warn("Too many requests in flight (limit " + (int) limit + "), request rejected");
+            (RateLimitFilter.isRead(request) ? readRejectedCounter : writeRejectedCounter).increment();
+            RateLimitFilter.reject(response, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds, ERR_OVERLOADED);
+            return;
+        }
+
+        final long start = nanoClock.getAsLong();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Request is completed by the product request executor, after this thread returns
+                request.getAsyncContext().addListener(new ReleaseListener(start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                release(nanoClock.getAsLong() - start);
+            }
+        }
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(final long latencyNanos) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            limit = latencyNanos > latencyThresholdNanos
+                    ? Math.max(minLimit, limit * BACKOFF_RATIO)
+                    : Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    private static Counter rejectedCounter(final String kind, final MeterRegistry meterRegistry) {
+        return Counter.builder(REJECTED_COUNTER)
+                .description("Product requests rejected before they were handled")
+                .tag(REASON_TAG, "load_shedding")
+                .tag(KIND_TAG, kind)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Releases the slot of an async request when it completes (with a response, error or timeout)
+     */
+    private final class ReleaseListener implements AsyncListener {
+        private final long start;
+
+        private ReleaseListener(final long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            release(nanoClock.getAsLong() - start);
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+        }
+    }
+}
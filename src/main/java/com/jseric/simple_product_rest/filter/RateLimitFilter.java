@@ -0,0 +1,166 @@
+package com.jseric.simple_product_rest.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+@Slf4j
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+    static final String PRODUCT_PATH = "/api/v1/products";
+
+    private static final String ERR_RATE_LIMITED = "{\"errorMessage\":\"rate limit exceeded, try again later;\"}";
+
+    private static final String REJECTED_COUNTER = "http.requests.rejected";
+    private static final String REASON_TAG = "reason";
+    private static final String KIND_TAG = "kind";
+
+    private final boolean enabled;
+    private final String apiKeyHeader;
+    private final long readCapacity;
+    private final double readRefillPerSecond;
+    private final long writeCapacity;
+    private final double writeRefillPerSecond;
+    private final LongSupplier nanoClock;
+
+    // Token buckets by client; idle clients are evicted, and the number of tracked clients is bounded
+    private final Cache<String, TokenBucket> readBuckets;
+    private final Cache<String, TokenBucket> writeBuckets;
+
+    private final Counter readRejectedCounter;
+    private final Counter writeRejectedCounter;
+
+    /**
+     * Per-client rate limiter of product endpoints, with separate budgets for reads (GET, HEAD) and writes.
+     * Clients are identified by API key header or, if there is none, by remote address.
+     * Requests over the budget are rejected with HTTP 429 and Retry-After header, before they use any
+     * shared resources (servlet threads, DB connections, HNB API calls).
+     */
+    @Autowired
+    public RateLimitFilter(
+            @Value("${com.jseric.simple_product_rest.rate-limit.enabled:true}") final boolean enabled,
+            @Value("${com.jseric.simple_product_rest.rate-limit.api-key-header:X-API-Key}") final String apiKeyHeader,
+            @Value("${com.jseric.simple_product_rest.rate-limit.read.capacity:200}") final long readCapacity,
+            @Value("${com.jseric.simple_product_rest.rate-limit.read.refill-per-second:100}") final double readRefillPerSecond,
+            @Value("${com.jseric.simple_product_rest.rate-limit.write.capacity:50}") final long writeCapacity,
+            @Value("${com.jseric.simple_product_rest.rate-limit.write.refill-per-second:20}") final double writeRefillPerSecond,
+            @Value("${com.jseric.simple_product_rest.rate-limit.max-clients:10000}") final long maxClients,
+            final MeterRegistry meterRegistry) {
+        this(enabled, apiKeyHeader, readCapacity, readRefillPerSecond, writeCapacity, writeRefillPerSecond, maxClients,
+             meterRegistry, System::nanoTime);
+    }
+
+    RateLimitFilter(final boolean enabled, final String apiKeyHeader, final long readCapacity,
+                    final double readRefillPerSecond, final long writeCapacity, final double writeRefillPerSecond,
+                    final long maxClients, final MeterRegistry meterRegistry, final LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.apiKeyHeader = apiKeyHeader;
+        this.readCapacity = readCapacity;
+        this.readRefillPerSecond = readRefillPerSecond;
+        this.writeCapacity = writeCapacity;
+        this.writeRefillPerSecond = writeRefillPerSecond;
+        this.nanoClock = nanoClock;
+
+        // A bucket which was idle long enough to refill completely is the same as a new one
+        readBuckets = buckets(maxClients, readCapacity, readRefillPerSecond);
+        writeBuckets = buckets(maxClients, writeCapacity, writeRefillPerSecond);
+
+        readRejectedCounter = rejectedCounter("read", meterRegistry);
+        writeRejectedCounter = rejectedCounter("write", meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(PRODUCT_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        final String client = clientKey(request, apiKeyHeader);
+        final boolean read = isRead(request);
+        final long now = nanoClock.getAsLong();
+
+        final TokenBucket bucket = read
+                ? readBuckets.get(client, key -> new TokenBucket(readCapacity, readRefillPerSecond, now))
+                : writeBuckets.get(client, key -> new TokenBucket(writeCapacity, writeRefillPerSecond, now));
+        final long waitNanos = bucket.tryConsume(now);
+        if (waitNanos > 0) {
+            log.info("Rate limit of client " + client + " exceeded, request rejected");
+            (read ? readRejectedCounter : writeRejectedCounter).increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds(waitNanos), ERR_RATE_LIMITED);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Client identifier: API key, if it is sent, otherwise remote address
+     */
+    public static String clientKey(final HttpServletRequest request, final String apiKeyHeader) {
+        final String apiKey = request.getHeader(apiKeyHeader);
+        if (apiKey != null && !apiKey.isBlank()) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    static boolean isRead(final HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    static long retryAfterSeconds(final long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Reject request with JSON error body and Retry-After header
+     */
+    static void reject(final HttpServletResponse response, final HttpStatus status, final long retryAfterSeconds,
+                       final String body) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(body);
+    }
+
+    private static Cache<String, TokenBucket> buckets(final long maxClients, final long capacity,
+                                                      final double refillPerSecond) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos((long) Math.ceil(capacity / refillPerSecond * 1_000_000_000L)))
+                .build();
+    }
+
+    private static Counter rejectedCounter(final String kind, final MeterRegistry meterRegistry) {
+        return Counter.builder(REJECTED_COUNTER)
+                .description("Product requests rejected before they were handled")
+                .tag(REASON_TAG, "rate_limit")
+                .tag(KIND_TAG, kind)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,111 @@
+package com.jseric.simple_product_rest.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.jseric.simple_product_rest.config.ReplicaRoutingContext;
+import java.io.IOException;
+import java.time.Duration;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+@Slf4j
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "com.jseric.simple_product_rest.read-replicas", name = "urls")
+@Order(Ordered.HIGHEST_PRECEDENCE + 30)
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+    // Request attribute with the callback which marks the client of a write request as a recent writer
+    private static final String WRITE_DONE_ATTRIBUTE = ReplicaRoutingFilter.class.getName() + ".writeDone";
+
+    private final String apiKeyHeader;
+
+    // Clients which sent a write request within the sticky window
+    private final Cache<String, Boolean> recentWriters;
+
+    /**
+     * Read-your-writes for read replicas: after a client sends a write request, its reads go to the primary
+     * for sticky-window-ms, so it does not read data older than its own write from a lagging replica.
+     * Clients are identified the same way as by the rate limiter (API key header or remote address).
+     * All reads of a request use the same replica (see {@link com.jseric.simple_product_rest.config.ReplicaRoutingContext}).
+     * Writes which are still running when the request thread returns (handed over to the product request executor)
+     * start the window when they complete (see {@link #writeDoneCallback(HttpServletRequest)}).
+     */
+    @Autowired
+    public ReplicaRoutingFilter(
+            @Value("${com.jseric.simple_product_rest.rate-limit.api-key-header:X-API-Key}") final String apiKeyHeader,
+            @Value("${com.jseric.simple_product_rest.read-replicas.sticky-window-ms:5000}") final long stickyWindowMs,
+            @Value("${com.jseric.simple_product_rest.read-replicas.max-clients:10000}") final long maxClients) {
+        this(apiKeyHeader, stickyWindowMs, maxClients, Ticker.systemTicker());
+    }
+
+    ReplicaRoutingFilter(final String apiKeyHeader, final long stickyWindowMs, final long maxClients,
+                         final Ticker ticker) {
+        this.apiKeyHeader = apiKeyHeader;
+        recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterWrite(Duration.ofMillis(stickyWindowMs))
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Callback to run when the write of the request is done (committed or failed), which starts the sticky window
+     * of its client again. Must be taken on the request thread.
+     * @param request Write request
+     * @return Callback, which does nothing if read replicas are not used
+     */
+    public static Runnable writeDoneCallback(final HttpServletRequest request) {
+        final Object writeDone = request.getAttribute(WRITE_DONE_ATTRIBUTE);
+        return writeDone instanceof Runnable ? (Runnable) writeDone : () -> { };
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(RateLimitFilter.PRODUCT_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        final String client = RateLimitFilter.clientKey(request, apiKeyHeader);
+        final boolean primaryRequired;
+        if (RateLimitFilter.isRead(request)) {
+            primaryRequired = recentWriters.getIfPresent(client) != null;
+            if (primaryRequired) {
+                log.debug("Client " + client + " has written recently, reading from primary");
+            }
+        } else {
+            recentWriters.put(client, Boolean.TRUE);
+            request.setAttribute(WRITE_DONE_ATTRIBUTE, (Runnable) () -> recentWriters.put(client, Boolean.TRUE));
+            primaryRequired = true;
+        }
+
+        ReplicaRoutingContext.begin(primaryRequired);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingContext.end();
+            if (!RateLimitFilter.isRead(request) && !request.isAsyncStarted()) {
+                // Window starts again when the write is done. Async writes may not even be started yet, so they
+                // start it themselves when they complete.
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        }
+    }
+
+    boolean isRecentWriter(final String client) {
+        return recentWriters.getIfPresent(client) != null;
+    }
+}
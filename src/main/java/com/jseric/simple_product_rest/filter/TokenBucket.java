@@ -0,0 +1,39 @@
+package com.jseric.simple_product_rest.filter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket: holds at most capacity tokens and is refilled at a constant rate.
+ * Each request takes one token, so a client can send a burst of capacity requests and then
+ * refill-per-second requests per second.
+ */
+final class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(final long capacity, final double refillPerSecond, final long nowNanos) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Take a token, if there is one
+     * @param nowNanos Current {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise nanoseconds until the next token is available
+     */
+    synchronized long tryConsume(final long nowNanos) {
+        tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = nowNanos;
+
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+}
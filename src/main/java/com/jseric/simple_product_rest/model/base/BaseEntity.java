@@ -8,6 +8,7 @@ import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
+import javax.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,8 +19,9 @@ import lombok.experimental.Accessors;
 @MappedSuperclass
 @NoArgsConstructor @AllArgsConstructor @Getter @Setter @ToString @Accessors(chain = true)
 public class BaseEntity {
+    // Sequence generator is declared by each entity (pooled allocation, so that inserts can be batched)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "id_sequence")
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -32,6 +34,10 @@ public class BaseEntity {
     @Column(name = "deleted")
     private LocalDateTime deleted;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public BaseEntity(Long id) {
         this.id = id;
     }
@@ -0,0 +1,26 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.Serializable;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@JsonSerialize
+@JsonIgnoreProperties(ignoreUnknown=true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "products"
+})
+@NoArgsConstructor @Getter @Setter @ToString @EqualsAndHashCode
+public class BatchProductRequest implements Serializable {
+    @JsonProperty("products")
+    private List<ProductWrapper> products;
+}
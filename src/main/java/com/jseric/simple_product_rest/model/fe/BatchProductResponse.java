@@ -0,0 +1,30 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@JsonPropertyOrder({
+        "errorMessage",
+        "results"
+})
+@Getter @Setter @ToString @EqualsAndHashCode
+public class BatchProductResponse implements Serializable {
+    @JsonProperty("results")
+    private List<BatchProductResult> results;
+
+    @JsonProperty("errorMessage")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String errorMessage;
+
+    public BatchProductResponse() {
+        results = new ArrayList<>();
+    }
+}
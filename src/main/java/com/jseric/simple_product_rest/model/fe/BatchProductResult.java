@@ -0,0 +1,35 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@JsonPropertyOrder({
+        "index",
+        "status",
+        "errorMessage",
+        "product"
+})
+@NoArgsConstructor @AllArgsConstructor @Getter @Setter @ToString @EqualsAndHashCode
+public class BatchProductResult implements Serializable {
+    @JsonProperty("index")
+    private int index;
+
+    @JsonProperty("status")
+    private int status;
+
+    @JsonProperty("errorMessage")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String errorMessage;
+
+    @JsonProperty("product")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ProductWrapper product;
+}
@@ -0,0 +1,31 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@JsonPropertyOrder({
+        "currency",
+        "date",
+        "amount"
+})
+@NoArgsConstructor @AllArgsConstructor @Getter @Setter @ToString @EqualsAndHashCode
+public class ConvertedPrice implements Serializable {
+    @JsonProperty("currency")
+    private String currency;
+
+    // Date of the exchange rate which was used for conversion
+    @JsonProperty("date")
+    private LocalDate date;
+
+    @JsonProperty("amount")
+    private BigDecimal amount;
+}
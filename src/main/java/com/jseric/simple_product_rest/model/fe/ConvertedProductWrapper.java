@@ -0,0 +1,25 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Product with its HRK price converted to another currency.
+ * It is a copy of the original {@link com.jseric.simple_product_rest.model.fe.ProductWrapper},
+ * so Products from cache are never modified.
+ */
+@NoArgsConstructor @Getter @Setter @ToString(callSuper = true) @EqualsAndHashCode(callSuper = true)
+public class ConvertedProductWrapper extends ProductWrapper {
+    @JsonProperty("convertedPrice")
+    private ConvertedPrice convertedPrice;
+
+    public ConvertedProductWrapper(final ProductWrapper product, final ConvertedPrice convertedPrice) {
+        super(product.getId(), product.getCode(), product.getName(), product.getPriceHrk(), product.getPriceEur(),
+              product.getDescription(), product.getIsAvailable(), product.getVersion());
+        this.convertedPrice = convertedPrice;
+    }
+}
@@ -0,0 +1,26 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.io.Serializable;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@JsonPropertyOrder({
+        "errorMessage",
+        "deletedCount"
+})
+@NoArgsConstructor @Getter @Setter @ToString @EqualsAndHashCode
+public class DeleteProductsResponse implements Serializable {
+    @JsonProperty("deletedCount")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer deletedCount;
+
+    @JsonProperty("errorMessage")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String errorMessage;
+}
@@ -0,0 +1,36 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@JsonPropertyOrder({
+        "errorMessage",
+        "changes",
+        "nextToken"
+})
+@Getter @Setter @ToString @EqualsAndHashCode
+public class FetchProductChangesResponse implements Serializable {
+    @JsonProperty("changes")
+    private List<ProductChangeWrapper> changes;
+
+    @JsonProperty("errorMessage")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String errorMessage;
+
+    // Token for the next request (since parameter), set even if there are no new changes
+    @JsonProperty("nextToken")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextToken;
+
+    public FetchProductChangesResponse() {
+        changes = new ArrayList<>();
+    }
+}
@@ -13,7 +13,8 @@ import lombok.ToString;
 
 @JsonPropertyOrder({
         "errorMessage",
-        "products"
+        "products",
+        "nextCursor"
 })
 @Getter @Setter @ToString @EqualsAndHashCode
 public class FetchProductResponse implements Serializable {
@@ -24,6 +25,10 @@ public class FetchProductResponse implements Serializable {
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private String errorMessage;
 
+    @JsonProperty("nextCursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long nextCursor;
+
     public FetchProductResponse() {
         products = new ArrayList<>();
     }
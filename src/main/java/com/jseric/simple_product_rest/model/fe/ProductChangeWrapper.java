@@ -0,0 +1,45 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.jseric.simple_product_rest.model.product.ProductChange;
+import com.jseric.simple_product_rest.model.product.ProductChangeType;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "productId",
+        "changeType",
+        "changedAt",
+        "product"
+})
+@NoArgsConstructor @AllArgsConstructor @Getter @Setter @ToString @EqualsAndHashCode
+public class ProductChangeWrapper implements Serializable {
+    @JsonProperty("productId")
+    private Long productId;
+
+    @JsonProperty("changeType")
+    private ProductChangeType changeType;
+
+    @JsonProperty("changedAt")
+    private LocalDateTime changedAt;
+
+    // Current state of the Product, not the state right after the change (not set for deleted Products)
+    @JsonProperty("product")
+    private ProductWrapper product;
+
+    public ProductChangeWrapper(final ProductChange change) {
+        this.productId = change.getProductId();
+        this.changeType = change.getChangeType();
+        this.changedAt = change.getCreatedTimestamp();
+        this.product = change.getProduct();
+    }
+}
@@ -0,0 +1,38 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import java.io.Serializable;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Query parameters of product search request (all of them are optional)
+ */
+@NoArgsConstructor @Getter @Setter @ToString @EqualsAndHashCode
+public class ProductSearchRequest implements Serializable {
+    // Full-text search over name and description
+    private String q;
+
+    // Substring of name
+    private String name;
+
+    private String codePrefix;
+
+    private String minPrice;
+
+    private String maxPrice;
+
+    // Currency of price range, HRK (default) or EUR
+    private String currency;
+
+    private String isAvailable;
+
+    // Sort field (id, name, priceHrk or priceEur), prefixed with '-' for descending order
+    private String sort;
+
+    private String limit;
+
+    private String cursor;
+}
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.jseric.simple_product_rest.model.product.Product;
+import com.jseric.simple_product_rest.model.product.ProductRecord;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
@@ -25,7 +26,8 @@ import lombok.ToString;
         "priceHrk",
         "priceEur",
         "description",
-        "isAvailable"
+        "isAvailable",
+        "version"
 })
 @NoArgsConstructor @AllArgsConstructor @Getter @Setter @ToString @EqualsAndHashCode
 public class ProductWrapper implements Serializable {
@@ -50,6 +52,9 @@ public class ProductWrapper implements Serializable {
     @JsonProperty("isAvailable")
     private Boolean isAvailable;
 
+    @JsonProperty("version")
+    private Long version;
+
     public ProductWrapper(final Product product) {
         this.id = product.getId();
         this.code = product.getCode();
@@ -58,5 +63,17 @@ public class ProductWrapper implements Serializable {
         this.priceEur = product.getPriceEur();
         this.description = product.getDescription();
         this.isAvailable = product.getIsAvailable();
+        this.version = product.getVersion();
+    }
+
+    public ProductWrapper(final ProductRecord product) {
+        this.id = product.getId();
+        this.code = product.getCode();
+        this.name = product.getName();
+        this.priceHrk = product.getPriceHrk();
+        this.priceEur = product.getPriceEur();
+        this.description = product.getDescription();
+        this.isAvailable = product.getIsAvailable();
+        this.version = product.getVersion();
     }
 }
@@ -0,0 +1,36 @@
+package com.jseric.simple_product_rest.model.fe;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@JsonPropertyOrder({
+        "errorMessage",
+        "products",
+        "nextCursor"
+})
+@Getter @Setter @ToString @EqualsAndHashCode
+public class SearchProductResponse implements Serializable {
+    @JsonProperty("products")
+    private List<ProductWrapper> products;
+
+    @JsonProperty("errorMessage")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String errorMessage;
+
+    // Opaque cursor of the next page (set only if there might be more products)
+    @JsonProperty("nextCursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public SearchProductResponse() {
+        products = new ArrayList<>();
+    }
+}
@@ -0,0 +1,21 @@
+package com.jseric.simple_product_rest.model.product;
+
+/**
+ * State of the product catalog, used for conditional GET requests
+ */
+public interface CatalogState {
+    /**
+     * @return Transaction ID of the last change of transactions older than the oldest running one, or null if there are none
+     */
+    Long getLastChangeTxId();
+
+    /**
+     * @return ID of the last change of transactions older than the oldest running one, or null if there are none
+     */
+    Long getLastChangeId();
+
+    /**
+     * @return Number of changes of transactions which are not older than the oldest running one
+     */
+    Long getPendingChangeCount();
+}
@@ -4,6 +4,7 @@ import com.jseric.simple_product_rest.model.base.BaseEntity;
 import java.math.BigDecimal;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -14,6 +15,7 @@ import lombok.experimental.Accessors;
 
 @Entity
 @Table(schema = "public", name = "product")
+@SequenceGenerator(name = "id_sequence", schema = "public", sequenceName = "product_id_seq", allocationSize = 50)
 @NoArgsConstructor @AllArgsConstructor @Getter @Setter @ToString @Accessors(chain = true)
 public class Product extends BaseEntity {
     @Column(name = "code", nullable = false, length = 10)
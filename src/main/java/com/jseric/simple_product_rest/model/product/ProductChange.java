@@ -0,0 +1,30 @@
+package com.jseric.simple_product_rest.model.product;
+
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/**
+ * Row of the product_change outbox table
+ */
+@NoArgsConstructor @AllArgsConstructor @Getter @Setter @ToString @Accessors(chain = true)
+public class ProductChange {
+    private Long id;
+
+    // ID of the transaction which made the change (changes are ordered by transaction ID and ID)
+    private Long txId;
+
+    private Long productId;
+
+    private ProductChangeType changeType;
+
+    private LocalDateTime createdTimestamp;
+
+    // Current state of the Product (null if Product is deleted)
+    private ProductWrapper product;
+}
@@ -0,0 +1,7 @@
+package com.jseric.simple_product_rest.model.product;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,37 @@
+package com.jseric.simple_product_rest.model.product;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Product fields which can be selected with sparse fieldsets (fields parameter)
+ */
+public enum ProductField {
+    ID("id"),
+    CODE("code"),
+    NAME("name"),
+    PRICE_HRK("priceHrk"),
+    PRICE_EUR("priceEur"),
+    DESCRIPTION("description"),
+    IS_AVAILABLE("isAvailable"),
+    VERSION("version");
+
+    private final String fieldName;
+
+    ProductField(final String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Find field by its name in API
+     * @param fieldName Field name (e.g. priceEur)
+     * @return Field, or {@link java.util.Optional#empty()} if Product has no such field
+     */
+    public static Optional<ProductField> fromFieldName(final String fieldName) {
+        return Arrays.stream(values()).filter(f -> f.fieldName.equals(fieldName)).findFirst();
+    }
+}
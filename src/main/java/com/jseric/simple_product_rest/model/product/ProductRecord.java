@@ -0,0 +1,57 @@
+package com.jseric.simple_product_rest.model.product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Product row, as mapped by R2DBC in the reactive profile (see {@link com.jseric.simple_product_rest.model.product.Product}
+ * for the JPA entity of the same table)
+ */
+@Table("product")
+@NoArgsConstructor @Getter @Setter @ToString @Accessors(chain = true)
+public class ProductRecord {
+    // Assigned by the database on insert
+    @Id
+    @Column("id")
+    private Long id;
+
+    @Column("code")
+    private String code;
+
+    @Column("name")
+    private String name;
+
+    @Column("price_hrk")
+    private BigDecimal priceHrk;
+
+    @Column("price_eur")
+    private BigDecimal priceEur;
+
+    @Column("description")
+    private String description;
+
+    @Column("is_available")
+    private Boolean isAvailable = false;
+
+    @Column("created_timestamp")
+    private LocalDateTime createdTimestamp;
+
+    @Column("updated_timestamp")
+    private LocalDateTime updatedTimestamp;
+
+    @Column("deleted")
+    private LocalDateTime deleted;
+
+    @Version
+    @Column("version")
+    private Long version;
+}
@@ -0,0 +1,40 @@
+package com.jseric.simple_product_rest.model.product;
+
+import java.math.BigDecimal;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/**
+ * Validated product search filters, sort and page. Filters which are null are not applied.
+ */
+@NoArgsConstructor @Getter @Setter @ToString @Accessors(chain = true)
+public class ProductSearchCriteria {
+    private String text;
+
+    private String name;
+
+    private String codePrefix;
+
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+
+    // Price range is in EUR instead of HRK
+    private boolean priceInEur;
+
+    private Boolean isAvailable;
+
+    private ProductSortField sortField = ProductSortField.ID;
+
+    private boolean descending;
+
+    private int limit;
+
+    // Sort field value and ID of the last product in previous page (keyset pagination)
+    private Object cursorValue;
+
+    private Long cursorId;
+}
@@ -0,0 +1,33 @@
+package com.jseric.simple_product_rest.model.product;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Fields by which product search results can be sorted. Ties are always broken by ID.
+ */
+public enum ProductSortField {
+    ID("id"),
+    NAME("name"),
+    PRICE_HRK("priceHrk"),
+    PRICE_EUR("priceEur");
+
+    private final String fieldName;
+
+    ProductSortField(final String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Find sort field by its name in API
+     * @param fieldName Field name (e.g. priceHrk)
+     * @return Sort field, or {@link java.util.Optional#empty()} if products cannot be sorted by the field
+     */
+    public static Optional<ProductSortField> fromFieldName(final String fieldName) {
+        return Arrays.stream(values()).filter(f -> f.fieldName.equals(fieldName)).findFirst();
+    }
+}
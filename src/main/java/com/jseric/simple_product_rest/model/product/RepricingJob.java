@@ -0,0 +1,28 @@
+package com.jseric.simple_product_rest.model.product;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/**
+ * Row of the repricing_job table
+ */
+@NoArgsConstructor @AllArgsConstructor @Getter @Setter @ToString @Accessors(chain = true)
+public class RepricingJob {
+    // Date of application of the HRK to EUR rate
+    private LocalDate rateDate;
+
+    private BigDecimal rate;
+
+    private RepricingJobStatus status;
+
+    // Products with IDs up to this one are re-priced
+    private Long lastProductId;
+
+    private Long updatedCount;
+}
@@ -0,0 +1,6 @@
+package com.jseric.simple_product_rest.model.product;
+
+public enum RepricingJobStatus {
+    RUNNING,
+    COMPLETED
+}
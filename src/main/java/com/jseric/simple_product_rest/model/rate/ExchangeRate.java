@@ -0,0 +1,30 @@
+package com.jseric.simple_product_rest.model.rate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * HNB middle exchange rate of a currency (HRK for given units of the currency), applicable on a date
+ */
+@AllArgsConstructor @Getter @ToString @EqualsAndHashCode
+public class ExchangeRate {
+    private final String currencyCode;
+
+    private final LocalDate date;
+
+    private final int unit;
+
+    private final BigDecimal middleRate;
+
+    /**
+     * @return HRK for a single unit of the currency
+     */
+    public BigDecimal getRatePerUnit() {
+        return unit == 1 ? middleRate : middleRate.divide(BigDecimal.valueOf(unit), MathContext.DECIMAL64);
+    }
+}
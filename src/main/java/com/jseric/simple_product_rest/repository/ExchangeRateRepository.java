@@ -0,0 +1,56 @@
+package com.jseric.simple_product_rest.repository;
+
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@Profile("!reactive")
+public class ExchangeRateRepository {
+    private static final RowMapper<ExchangeRate> EXCHANGE_RATE_ROW_MAPPER = (rs, rowNum) -> new ExchangeRate(
+            rs.getString("currency_code"),
+            rs.getDate("rate_date").toLocalDate(),
+            rs.getInt("unit"),
+            rs.getBigDecimal("middle_rate"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ExchangeRateRepository(final NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Find exchange rates of all currencies from the given date on
+     */
+    public List<ExchangeRate> findAllFrom(final LocalDate from) {
+        return jdbcTemplate.query("SELECT currency_code, rate_date, unit, middle_rate FROM exchange_rate WHERE rate_date >= :from",
+                                  new MapSqlParameterSource("from", from), EXCHANGE_RATE_ROW_MAPPER);
+    }
+
+    /**
+     * Insert exchange rates (with a single batch), replacing existing rates of the same currency and date
+     */
+    public void saveAll(final Collection<ExchangeRate> exchangeRates) {
+        final SqlParameterSource[] params = exchangeRates.stream()
+                .map(rate -> new MapSqlParameterSource()
+                        .addValue("currencyCode", rate.getCurrencyCode())
+                        .addValue("rateDate", rate.getDate())
+                        .addValue("unit", rate.getUnit())
+                        .addValue("middleRate", rate.getMiddleRate()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO exchange_rate (currency_code, rate_date, unit, middle_rate) " +
+                "VALUES (:currencyCode, :rateDate, :unit, :middleRate) " +
+                "ON CONFLICT (currency_code, rate_date) DO UPDATE SET unit = EXCLUDED.unit, middle_rate = EXCLUDED.middle_rate",
+                params);
+    }
+}
@@ -0,0 +1,112 @@
+package com.jseric.simple_product_rest.repository;
+
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.ProductChange;
+import com.jseric.simple_product_rest.model.product.ProductChangeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Outbox of Product changes (product_change table).
+ * Changes must be recorded in the same transaction as the change itself, so that they are committed (or rolled back) together.
+ */
+@Repository
+@Profile("!reactive")
+public class ProductChangeRepository {
+    // Changes of transactions which are still running (or started after them) are not visible yet,
+    // because such transactions can still commit changes with lower (tx_id, id)
+    private static final String VISIBLE_CHANGES =
+            "c.tx_id < pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+
+    private static final RowMapper<ProductChange> PRODUCT_CHANGE_ROW_MAPPER = (rs, rowNum) -> new ProductChange(
+            rs.getLong("id"),
+            rs.getLong("tx_id"),
+            rs.getLong("product_id"),
+            ProductChangeType.valueOf(rs.getString("change_type")),
+            rs.getTimestamp("created_timestamp").toLocalDateTime(),
+            rs.getObject("code") == null ? null : new ProductWrapper(
+                    rs.getLong("product_id"),
+                    rs.getString("code"),
+                    rs.getString("name"),
+                    rs.getBigDecimal("price_hrk"),
+                    rs.getBigDecimal("price_eur"),
+                    rs.getString("description"),
+                    rs.getBoolean("is_available"),
+                    rs.getLong("version")));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductChangeRepository(final NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Record change of Products (with a single batch of inserts)
+     * @param changeType Type of change
+     * @param productIds IDs of changed Products
+     */
+    public void record(final ProductChangeType changeType, final Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        final SqlParameterSource[] params = productIds.stream()
+                .map(productId -> new MapSqlParameterSource()
+                        .addValue("productId", productId)
+                        .addValue("changeType", changeType.name()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("INSERT INTO product_change (product_id, change_type) VALUES (:productId, :changeType)", params);
+    }
+
+    /**
+     * Find visible changes after the given position, together with current state of changed Products
+     * @param txId Transaction ID of the last consumed change
+     * @param id ID of the last consumed change
+     * @param limit Max number of changes
+     * @return Changes ordered by transaction ID and ID
+     */
+    public List<ProductChange> findAllAfter(final long txId, final long id, final int limit) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("txId", txId)
+                .addValue("id", id)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(
+                "SELECT c.id, c.tx_id, c.product_id, c.change_type, c.created_timestamp, " +
+                "p.code, p.name, p.price_hrk, p.price_eur, p.description, p.is_available, p.version " +
+                "FROM product_change c " +
+                "LEFT JOIN product p ON p.id = c.product_id AND p.deleted IS NULL " +
+                "WHERE (c.tx_id, c.id) > (:txId, :id) AND " + VISIBLE_CHANGES + " " +
+                "ORDER BY c.tx_id, c.id LIMIT :limit",
+                params, PRODUCT_CHANGE_ROW_MAPPER);
+    }
+
+    /**
+     * Count committed changes which are not visible yet, because a transaction older than them is still running
+     * @return Number of changes
+     */
+    public long countPending() {
+        final Long count = jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT count(*) FROM product_change c WHERE NOT (" + VISIBLE_CHANGES + ")", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Find the last visible change (without Product state)
+     * @return Last change, or {@link java.util.Optional#empty()} if there are no visible changes
+     */
+    public Optional<ProductChange> findLast() {
+        return jdbcTemplate.query(
+                "SELECT c.id, c.tx_id, c.product_id, c.change_type, c.created_timestamp, NULL AS code " +
+                "FROM product_change c WHERE " + VISIBLE_CHANGES + " ORDER BY c.tx_id DESC, c.id DESC LIMIT 1",
+                PRODUCT_CHANGE_ROW_MAPPER).stream().findFirst();
+    }
+}
@@ -0,0 +1,114 @@
+package com.jseric.simple_product_rest.repository;
+
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.ProductField;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads only selected columns of non-deleted Products (sparse fieldsets).
+ * Fields which are not selected are left null in {@link com.jseric.simple_product_rest.model.fe.ProductWrapper},
+ * so they are not serialized. ID is always selected, since it is needed for keyset pagination.
+ */
+@Repository
+@Profile("!reactive")
+public class ProductProjectionRepository {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductProjectionRepository(final NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<ProductWrapper> findAll(final Set<ProductField> fields) {
+        return jdbcTemplate.query(selectColumns(fields) + " ORDER BY id", rowMapper(fields));
+    }
+
+    public List<ProductWrapper> findAllOrderedById(final Set<ProductField> fields, final int page, final int limit) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("offset", (long) page * limit);
+        return jdbcTemplate.query(selectColumns(fields) + " ORDER BY id LIMIT :limit OFFSET :offset", params, rowMapper(fields));
+    }
+
+    public List<ProductWrapper> findAllAfterId(final Set<ProductField> fields, final Long id, final int limit) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(selectColumns(fields) + " AND id > :id ORDER BY id LIMIT :limit", params, rowMapper(fields));
+    }
+
+    /**
+     * Create SELECT statement for the given fields. Column names come from a fixed whitelist, never from the request.
+     */
+    private static String selectColumns(final Set<ProductField> fields) {
+        final String columns = fields.stream()
+                .filter(field -> field != ProductField.ID)
+                .map(ProductProjectionRepository::column)
+                .collect(Collectors.joining(", "));
+        return "SELECT id" + (columns.isEmpty() ? "" : ", " + columns) + " FROM product WHERE deleted IS NULL";
+    }
+
+    private static RowMapper<ProductWrapper> rowMapper(final Set<ProductField> fields) {
+        return (rs, rowNum) -> {
+            final ProductWrapper product = new ProductWrapper();
+            product.setId(rs.getLong("id"));
+            for (final ProductField field : fields) {
+                switch (field) {
+                    case CODE:
+                        product.setCode(rs.getString("code"));
+                        break;
+                    case NAME:
+                        product.setName(rs.getString("name"));
+                        break;
+                    case PRICE_HRK:
+                        product.setPriceHrk(rs.getBigDecimal("price_hrk"));
+                        break;
+                    case PRICE_EUR:
+                        product.setPriceEur(rs.getBigDecimal("price_eur"));
+                        break;
+                    case DESCRIPTION:
+                        product.setDescription(rs.getString("description"));
+                        break;
+                    case IS_AVAILABLE:
+                        product.setIsAvailable(rs.getBoolean("is_available"));
+                        break;
+                    case VERSION:
+                        product.setVersion(rs.getLong("version"));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return product;
+        };
+    }
+
+    private static String column(final ProductField field) {
+        switch (field) {
+            case CODE:
+                return "code";
+            case NAME:
+                return "name";
+            case PRICE_HRK:
+                return "price_hrk";
+            case PRICE_EUR:
+                return "price_eur";
+            case DESCRIPTION:
+                return "description";
+            case IS_AVAILABLE:
+                return "is_available";
+            case VERSION:
+                return "version";
+            default:
+                return "id";
+        }
+    }
+}
@@ -1,23 +1,102 @@
 package com.jseric.simple_product_rest.repository;
 
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.CatalogState;
 import com.jseric.simple_product_rest.model.product.Product;
 import com.jseric.simple_product_rest.repository.base.SoftDeleteRepository;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.QueryHint;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface ProductRepository extends SoftDeleteRepository<Product, Long> {
-    @Query("SELECT COUNT(p.id) FROM Product p WHERE p.code = ?1 AND p.deleted IS NULL")
-    long countByCode(final String code);
+    // Constructor projection: rows are read straight into ProductWrapper, without managed entities
+    // (no persistence context entries and no dirty checking snapshots)
+    String SELECT_WRAPPER = "SELECT new com.jseric.simple_product_rest.model.fe.ProductWrapper(" +
+            "p.id, p.code, p.name, p.priceHrk, p.priceEur, p.description, p.isAvailable, p.version) FROM Product p ";
 
-    @Query("SELECT COUNT(p.id) FROM Product p WHERE p.code = ?1 AND p.id <> ?2 AND p.deleted IS NULL")
-    long countByCode(final String code, final Long excludeId);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_WRAPPER + "WHERE p.deleted IS NULL ORDER BY p.id")
+    List<ProductWrapper> findAllWrappers();
 
-    default boolean doesExistByCode(final String code) {
-        return countByCode(code) > 0;
-    }
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_WRAPPER + "WHERE p.deleted IS NULL ORDER BY p.id")
+    List<ProductWrapper> findWrappersOrderedById(final Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_WRAPPER + "WHERE p.id > ?1 AND p.deleted IS NULL ORDER BY p.id")
+    List<ProductWrapper> findWrappersAfterId(final Long id, final Pageable pageable);
+
+    @Query(SELECT_WRAPPER + "WHERE p.id = ?1 AND p.deleted IS NULL")
+    Optional<ProductWrapper> findWrapperById(final Long id);
+
+    @Query("SELECT p FROM Product p WHERE p.code IN ?1 AND p.deleted IS NULL")
+    List<Product> findAllByCodeIn(final Collection<String> codes);
+
+    /**
+     * Get state of the whole catalog without loading any Products.
+     * Every change is recorded in the product_change outbox, which gives a marker that changes whenever a change
+     * is committed: position of the last change of transactions older than the oldest running one (which only
+     * grows, see {@link com.jseric.simple_product_rest.repository.ProductChangeRepository}) and number of changes
+     * of newer transactions (which grows until they become older than the oldest running one).
+     * Modification timestamps can't be used for that, since a transaction which commits late can write an older one.
+     * @return Position of the last committed change
+     */
+    @Query(value = "SELECT c.tx_id AS \"lastChangeTxId\", c.id AS \"lastChangeId\", " +
+            "(SELECT count(*) FROM product_change WHERE tx_id >= s.xmin) AS \"pendingChangeCount\" " +
+            "FROM (SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint) AS xmin) s " +
+            "LEFT JOIN LATERAL (SELECT tx_id, id FROM product_change WHERE tx_id < s.xmin " +
+            "ORDER BY tx_id DESC, id DESC LIMIT 1) c ON true", nativeQuery = true)
+    CatalogState fetchCatalogState();
+
+    /**
+     * Soft delete non-deleted Products with a single statement
+     * @return IDs of deleted Products (without IDs which don't exist or were already deleted)
+     */
+    @Transactional
+    @Query(value = "UPDATE product SET deleted = now(), updated_timestamp = now(), version = version + 1 " +
+            "WHERE id IN ?1 AND deleted IS NULL " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> softDeleteAllActiveById(final Collection<Long> ids);
+
+    @Transactional
+    @Query(value = "UPDATE product SET code = ?2, name = ?3, price_hrk = ?4, price_eur = ?5, description = ?6, is_available = ?7, " +
+            "updated_timestamp = now(), version = version + 1 " +
+            "WHERE id = ?1 AND deleted IS NULL " +
+            "RETURNING *", nativeQuery = true)
+    Optional<Product> updateIfActive(final Long id, final String code, final String name, final BigDecimal priceHrk,
+                                     final BigDecimal priceEur, final String description, final Boolean isAvailable);
+
+    @Transactional
+    @Query(value = "UPDATE product SET code = ?2, name = ?3, price_hrk = ?4, price_eur = ?5, description = ?6, is_available = ?7, " +
+            "updated_timestamp = now(), version = version + 1 " +
+            "WHERE id = ?1 AND deleted IS NULL AND version = ?8 " +
+            "RETURNING *", nativeQuery = true)
+    Optional<Product> updateIfActiveAndVersion(final Long id, final String code, final String name, final BigDecimal priceHrk,
+                                               final BigDecimal priceEur, final String description, final Boolean isAvailable,
+                                               final Long version);
 
-    default boolean doesExistByCode(final String code, final Long excludeId) {
-        return countByCode(code, excludeId) > 0;
+    /**
+     * Update non-deleted Product with a single statement.
+     * If Product version is set, Product is updated only if its version in database is the same.
+     * @param product Product with new data
+     * @return Updated Product, or {@link java.util.Optional#empty()} if Product was not found or its version differs
+     */
+    default Optional<Product> updateIfActive(final Product product) {
+        if (product.getVersion() == null) {
+            return updateIfActive(product.getId(), product.getCode(), product.getName(), product.getPriceHrk(),
+                                  product.getPriceEur(), product.getDescription(), product.getIsAvailable());
+        }
+        return updateIfActiveAndVersion(product.getId(), product.getCode(), product.getName(), product.getPriceHrk(),
+                                        product.getPriceEur(), product.getDescription(), product.getIsAvailable(),
+                                        product.getVersion());
     }
 }
@@ -0,0 +1,126 @@
+package com.jseric.simple_product_rest.repository;
+
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.ProductSearchCriteria;
+import com.jseric.simple_product_rest.model.product.ProductSortField;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Product search with dynamic filters and keyset pagination.
+ * Every filter and sort matches one of the partial indexes from migration 006_createSearchIndexes.sql,
+ * so expressions in this class must be kept identical to the indexed ones.
+ */
+@Repository
+@Profile("!reactive")
+public class ProductSearchRepository {
+    private static final String SELECT_PRODUCTS =
+            "SELECT id, code, name, price_hrk, price_eur, description, is_available, version FROM product " +
+            "WHERE deleted IS NULL";
+
+    // Same expression as in product_search_text_idx
+    private static final String SEARCH_TEXT = "to_tsvector('simple', name || ' ' || coalesce(description, ''))";
+
+    private static final RowMapper<ProductWrapper> PRODUCT_ROW_MAPPER = (rs, rowNum) -> new ProductWrapper(
+            rs.getLong("id"),
+            rs.getString("code"),
+            rs.getString("name"),
+            rs.getBigDecimal("price_hrk"),
+            rs.getBigDecimal("price_eur"),
+            rs.getString("description"),
+            rs.getBoolean("is_available"),
+            rs.getLong("version"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductSearchRepository(final NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Find a page of non-deleted Products which match all given filters
+     * @param criteria {@link com.jseric.simple_product_rest.model.product.ProductSearchCriteria}
+     * @return Products sorted by sort field and ID, at most {@code criteria.getLimit()} of them
+     */
+    public List<ProductWrapper> search(final ProductSearchCriteria criteria) {
+        final StringBuilder sql = new StringBuilder(SELECT_PRODUCTS);
+        final MapSqlParameterSource params = new MapSqlParameterSource();
+
+        if (criteria.getText() != null) {
+            sql.append(" AND ").append(SEARCH_TEXT).append(" @@ plainto_tsquery('simple', :text)");
+            params.addValue("text", criteria.getText());
+        }
+        if (criteria.getName() != null) {
+            // Uses trigram index
+            sql.append(" AND name ILIKE :name");
+            params.addValue("name", "%" + escapeLikePattern(criteria.getName()) + "%");
+        }
+        if (criteria.getCodePrefix() != null) {
+            sql.append(" AND code LIKE :codePrefix");
+            params.addValue("codePrefix", escapeLikePattern(criteria.getCodePrefix()) + "%");
+        }
+
+        final String priceColumn = criteria.isPriceInEur() ? "price_eur" : "price_hrk";
+        if (criteria.getMinPrice() != null) {
+            sql.append(" AND ").append(priceColumn).append(" >= :minPrice");
+            params.addValue("minPrice", criteria.getMinPrice());
+        }
+        if (criteria.getMaxPrice() != null) {
+            sql.append(" AND ").append(priceColumn).append(" <= :maxPrice");
+            params.addValue("maxPrice", criteria.getMaxPrice());
+        }
+        if (criteria.getIsAvailable() != null) {
+            sql.append(" AND is_available = :isAvailable");
+            params.addValue("isAvailable", criteria.getIsAvailable());
+        }
+
+        // Keyset pagination: continue after the last Product of previous page
+        final String sortColumn = sortColumn(criteria.getSortField());
+        final String comparison = criteria.isDescending() ? " < " : " > ";
+        if (criteria.getCursorId() != null) {
+            if (criteria.getSortField() == ProductSortField.ID) {
+                sql.append(" AND id").append(comparison).append(":cursorId");
+            } else {
+                sql.append(" AND (").append(sortColumn).append(", id)").append(comparison).append("(:cursorValue, :cursorId)");
+                params.addValue("cursorValue", criteria.getCursorValue());
+            }
+            params.addValue("cursorId", criteria.getCursorId());
+        }
+
+        final String direction = criteria.isDescending() ? " DESC" : "";
+        sql.append(" ORDER BY ");
+        if (criteria.getSortField() != ProductSortField.ID) {
+            sql.append(sortColumn).append(direction).append(", ");
+        }
+        sql.append("id").append(direction).append(" LIMIT :limit");
+        params.addValue("limit", criteria.getLimit());
+
+        return jdbcTemplate.query(sql.toString(), params, PRODUCT_ROW_MAPPER);
+    }
+
+    private static String sortColumn(final ProductSortField sortField) {
+        switch (sortField) {
+            case NAME:
+                return "name";
+            case PRICE_HRK:
+                return "price_hrk";
+            case PRICE_EUR:
+                return "price_eur";
+            default:
+                return "id";
+        }
+    }
+
+    /**
+     * Escape LIKE wildcards, so that user input is matched literally (backslash is the default escape character)
+     */
+    private static String escapeLikePattern(final String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
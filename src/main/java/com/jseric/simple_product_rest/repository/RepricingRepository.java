@@ -0,0 +1,147 @@
+package com.jseric.simple_product_rest.repository;
+
+import com.jseric.simple_product_rest.model.product.ProductChangeType;
+import com.jseric.simple_product_rest.model.product.RepricingJob;
+import com.jseric.simple_product_rest.model.product.RepricingJobStatus;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based EUR re-pricing of Products and progress of re-pricing jobs (repricing_job table)
+ */
+@Repository
+@Profile("!reactive")
+public class RepricingRepository {
+    /**
+     * price_hrk converted with :rate and rounded to cents half to even, the same as
+     * {@link com.jseric.simple_product_rest.service.hnb.CurrencyConversionService#convertHrkToEur(BigDecimal, BigDecimal)}
+     * (round() rounds half away from zero, so prices of ties written by the API would be rewritten by re-pricing).
+     * Rounding is done on exact integer quotient and remainder, since a rounded quotient can't tell a tie from a near tie.
+     */
+    public static final String PRICE_EUR =
+            "((div(price_hrk * 100, :rate) + sign(price_hrk) * CASE sign(2 * abs(mod(price_hrk * 100, :rate)) - :rate) " +
+            "WHEN 1 THEN 1 WHEN 0 THEN abs(mod(div(price_hrk * 100, :rate), 2)) ELSE 0 END) * 0.01)";
+
+    private static final RowMapper<RepricingJob> REPRICING_JOB_ROW_MAPPER = (rs, rowNum) -> new RepricingJob(
+            rs.getDate("rate_date").toLocalDate(),
+            rs.getBigDecimal("rate"),
+            RepricingJobStatus.valueOf(rs.getString("status")),
+            rs.getLong("last_product_id"),
+            rs.getLong("updated_count"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public RepricingRepository(final NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<RepricingJob> findJob(final LocalDate rateDate) {
+        return jdbcTemplate.query(
+                "SELECT rate_date, rate, status, last_product_id, updated_count FROM repricing_job WHERE rate_date = :rateDate",
+                new MapSqlParameterSource("rateDate", rateDate), REPRICING_JOB_ROW_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * Lock the job of the rate date until the end of the transaction, so that only one instance re-prices at a time.
+     * Must be called in the same transaction as {@link #repriceChunk(long, long, BigDecimal)}.
+     * @return Job, or {@link java.util.Optional#empty()} if it doesn't exist or is locked by another transaction
+     */
+    public Optional<RepricingJob> lockJob(final LocalDate rateDate) {
+        return jdbcTemplate.query(
+                "SELECT rate_date, rate, status, last_product_id, updated_count FROM repricing_job WHERE rate_date = :rateDate " +
+                "FOR UPDATE SKIP LOCKED",
+                new MapSqlParameterSource("rateDate", rateDate), REPRICING_JOB_ROW_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * Start a job for the rate date from the first Product. Existing job of the same date is restarted if it was
+     * started with a different rate (a job with the same rate may have been started by another instance meanwhile).
+     */
+    public void startJob(final LocalDate rateDate, final BigDecimal rate) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("rateDate", rateDate)
+                .addValue("rate", rate)
+                .addValue("status", RepricingJobStatus.RUNNING.name());
+        jdbcTemplate.update(
+                "INSERT INTO repricing_job (rate_date, rate, status) VALUES (:rateDate, :rate, :status) " +
+                "ON CONFLICT (rate_date) DO UPDATE SET rate = EXCLUDED.rate, status = EXCLUDED.status, " +
+                "last_product_id = 0, updated_count = 0, started_timestamp = now(), finished_timestamp = NULL " +
+                "WHERE repricing_job.rate <> EXCLUDED.rate",
+                params);
+    }
+
+    /**
+     * Save progress of the job. Must be called in the same transaction as {@link #repriceChunk(long, long, BigDecimal)}.
+     */
+    public void saveProgress(final LocalDate rateDate, final long lastProductId, final int updatedCount) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("rateDate", rateDate)
+                .addValue("lastProductId", lastProductId)
+                .addValue("updatedCount", updatedCount);
+        jdbcTemplate.update(
+                "UPDATE repricing_job SET last_product_id = :lastProductId, updated_count = updated_count + :updatedCount " +
+                "WHERE rate_date = :rateDate",
+                params);
+    }
+
+    public void completeJob(final LocalDate rateDate) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("rateDate", rateDate)
+                .addValue("status", RepricingJobStatus.COMPLETED.name());
+        jdbcTemplate.update(
+                "UPDATE repricing_job SET status = :status, finished_timestamp = now() WHERE rate_date = :rateDate",
+                params);
+    }
+
+    /**
+     * Find the end of the next chunk of Products (with an index-only scan of the primary key)
+     * @param afterId Chunk starts after this ID
+     * @param chunkSize Max number of Products in chunk
+     * @return Last ID of the chunk, or {@link java.util.Optional#empty()} if there are no Products after afterId
+     */
+    public Optional<Long> findChunkEnd(final long afterId, final int chunkSize) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("chunkSize", chunkSize);
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+                "SELECT max(id) FROM (SELECT id FROM product WHERE id > :afterId ORDER BY id LIMIT :chunkSize) chunk",
+                params, Long.class));
+    }
+
+    /**
+     * Recompute EUR prices of non-deleted Products in the ID range with a single statement.
+     * Only Products whose EUR price changes are updated; their version is incremented and the change is recorded
+     * in the product_change outbox.
+     * @param afterId Range starts after this ID
+     * @param lastId Last ID of the range
+     * @param rate HRK to EUR conversion rate
+     * @return IDs of updated Products
+     */
+    public List<Long> repriceChunk(final long afterId, final long lastId, final BigDecimal rate) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("lastId", lastId)
+                .addValue("rate", rate)
+                .addValue("changeType", ProductChangeType.UPDATED.name());
+        return jdbcTemplate.queryForList(
+                "WITH updated AS (" +
+                "  UPDATE product SET price_eur = " + PRICE_EUR + ", version = version + 1, updated_timestamp = now() " +
+                "  WHERE id > :afterId AND id <= :lastId AND deleted IS NULL " +
+                "  AND price_eur <> " + PRICE_EUR + " " +
+                "  RETURNING id" +
+                "), changes AS (" +
+                "  INSERT INTO product_change (product_id, change_type) SELECT id, :changeType FROM updated" +
+                ") " +
+                "SELECT id FROM updated",
+                params, Long.class);
+    }
+}
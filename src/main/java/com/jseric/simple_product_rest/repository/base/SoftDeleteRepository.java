@@ -2,10 +2,16 @@ package com.jseric.simple_product_rest.repository.base;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.transaction.annotation.Transactional;
 
 @NoRepositoryBean
 public interface SoftDeleteRepository<T, ID> extends CrudRepository<T, ID> {
@@ -14,16 +20,41 @@ public interface SoftDeleteRepository<T, ID> extends CrudRepository<T, ID> {
     @Query("SELECT e FROM #{#entityName} e WHERE e.deleted IS NULL")
     List<T> findAll();
 
+    /**
+     * Stream all entities, ordered by ID.
+     * Rows are fetched from the database in chunks, so the stream must be consumed (and closed) inside a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT e FROM #{#entityName} e WHERE e.deleted IS NULL ORDER BY e.id")
+    Stream<T> streamAll();
+
     @Override
     @Query("SELECT e FROM #{#entityName} e WHERE e.id = ?1 AND e.deleted IS NULL")
     Optional<T> findById(ID id);
 
+    @Override
+    @Query("SELECT e FROM #{#entityName} e WHERE e.id IN ?1 AND e.deleted IS NULL")
+    List<T> findAllById(Iterable<ID> ids);
+
+    @Override
+    @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM #{#entityName} e WHERE e.id = ?1 AND e.deleted IS NULL")
+    boolean existsById(ID id);
+
     @Override
     @Query("SELECT count(e) FROM #{#entityName} e WHERE e.deleted IS NULL")
     long count();
 
     @Override
     @Modifying(flushAutomatically = true, clearAutomatically = true)
-    @Query("UPDATE #{#entityName} e SET e.deleted = CURRENT_TIMESTAMP WHERE e.id = ?1")
+    @Query("UPDATE #{#entityName} e SET e.deleted = CURRENT_TIMESTAMP, e.updatedTimestamp = CURRENT_TIMESTAMP, e.version = e.version + 1 WHERE e.id = ?1")
     void deleteById(ID id);
+
+    /**
+     * Soft delete entity with a single statement, without flushing or clearing the persistence context
+     * @return Number of deleted entities (0 if entity doesn't exist or is already deleted)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE #{#entityName} e SET e.deleted = CURRENT_TIMESTAMP, e.updatedTimestamp = CURRENT_TIMESTAMP, e.version = e.version + 1 WHERE e.id = ?1 AND e.deleted IS NULL")
+    int softDeleteById(ID id);
 }
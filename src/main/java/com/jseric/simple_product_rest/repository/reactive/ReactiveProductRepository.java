@@ -0,0 +1,106 @@
+package com.jseric.simple_product_rest.repository.reactive;
+
+import com.jseric.simple_product_rest.model.product.ProductRecord;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive Product repository. Like {@link com.jseric.simple_product_rest.repository.base.SoftDeleteRepository},
+ * deleted Products are never returned and Products are deleted by setting their deleted timestamp.
+ * Writes record the change in the product_change outbox within the same statement (like
+ * {@link com.jseric.simple_product_rest.repository.ProductChangeRepository} does in the servlet profile), so the change
+ * feed sees changes made by reactive instances as well.
+ */
+@Repository
+public interface ReactiveProductRepository extends R2dbcRepository<ProductRecord, Long> {
+    @Query("SELECT * FROM product WHERE id = :id AND deleted IS NULL")
+    Mono<ProductRecord> findActiveById(final Long id);
+
+    @Query("SELECT EXISTS(SELECT 1 FROM product WHERE id = :id AND deleted IS NULL)")
+    Mono<Boolean> existsActiveById(final Long id);
+
+    @Query("WITH inserted AS (" +
+            "  INSERT INTO product (code, name, price_hrk, price_eur, description, is_available, " +
+            "  created_timestamp, updated_timestamp, version) " +
+            "  VALUES (:code, :name, :priceHrk, :priceEur, :description, :isAvailable, :createdTimestamp, :createdTimestamp, 0) " +
+            "  RETURNING *" +
+            "), changes AS (" +
+            "  INSERT INTO product_change (product_id, change_type) SELECT id, 'CREATED' FROM inserted" +
+            ") " +
+            "SELECT * FROM inserted")
+    Mono<ProductRecord> insert(final String code, final String name, final BigDecimal priceHrk,
+                               final BigDecimal priceEur, final String description, final Boolean isAvailable,
+                               final LocalDateTime createdTimestamp);
+
+    /**
+     * Insert new Product with a single statement
+     * @param product Product data (ID and version are assigned by the database)
+     * @return Inserted Product
+     */
+    default Mono<ProductRecord> insert(final ProductRecord product) {
+        return insert(product.getCode(), product.getName(), product.getPriceHrk(), product.getPriceEur(),
+                      product.getDescription(), product.getIsAvailable(), product.getCreatedTimestamp());
+    }
+
+    @Query("WITH updated AS (" +
+            "  UPDATE product SET code = :code, name = :name, price_hrk = :priceHrk, price_eur = :priceEur, " +
+            "  description = :description, is_available = :isAvailable, " +
+            "  updated_timestamp = now(), version = version + 1 " +
+            "  WHERE id = :id AND deleted IS NULL " +
+            "  RETURNING *" +
+            "), changes AS (" +
+            "  INSERT INTO product_change (product_id, change_type) SELECT id, 'UPDATED' FROM updated" +
+            ") " +
+            "SELECT * FROM updated")
+    Mono<ProductRecord> updateIfActive(final Long id, final String code, final String name, final BigDecimal priceHrk,
+                                       final BigDecimal priceEur, final String description, final Boolean isAvailable);
+
+    @Query("WITH updated AS (" +
+            "  UPDATE product SET code = :code, name = :name, price_hrk = :priceHrk, price_eur = :priceEur, " +
+            "  description = :description, is_available = :isAvailable, " +
+            "  updated_timestamp = now(), version = version + 1 " +
+            "  WHERE id = :id AND deleted IS NULL AND version = :version " +
+            "  RETURNING *" +
+            "), changes AS (" +
+            "  INSERT INTO product_change (product_id, change_type) SELECT id, 'UPDATED' FROM updated" +
+            ") " +
+            "SELECT * FROM updated")
+    Mono<ProductRecord> updateIfActiveAndVersion(final Long id, final String code, final String name,
+                                                 final BigDecimal priceHrk, final BigDecimal priceEur,
+                                                 final String description, final Boolean isAvailable,
+                                                 final Long version);
+
+    /**
+     * Update non-deleted Product with a single statement.
+     * If Product version is set, Product is updated only if its version in database is the same.
+     * @param product Product with new data
+     * @return Updated Product, or empty {@link reactor.core.publisher.Mono} if Product was not found or its version differs
+     */
+    default Mono<ProductRecord> updateIfActive(final ProductRecord product) {
+        if (product.getVersion() == null) {
+            return updateIfActive(product.getId(), product.getCode(), product.getName(), product.getPriceHrk(),
+                                  product.getPriceEur(), product.getDescription(), product.getIsAvailable());
+        }
+        return updateIfActiveAndVersion(product.getId(), product.getCode(), product.getName(), product.getPriceHrk(),
+                                        product.getPriceEur(), product.getDescription(), product.getIsAvailable(),
+                                        product.getVersion());
+    }
+
+    /**
+     * Soft delete Product with a single statement
+     * @return Number of deleted Products (0 if Product doesn't exist or is already deleted)
+     */
+    @Query("WITH deleted AS (" +
+            "  UPDATE product SET deleted = now(), updated_timestamp = now(), version = version + 1 " +
+            "  WHERE id = :id AND deleted IS NULL " +
+            "  RETURNING id" +
+            "), changes AS (" +
+            "  INSERT INTO product_change (product_id, change_type) SELECT id, 'DELETED' FROM deleted" +
+            ") " +
+            "SELECT CAST(count(*) AS integer) FROM deleted")
+    Mono<Integer> softDeleteById(final Long id);
+}
@@ -1,40 +1,88 @@
 package com.jseric.simple_product_rest.service;
 
+import com.jseric.simple_product_rest.model.fe.BatchProductRequest;
+import com.jseric.simple_product_rest.model.fe.BatchProductResponse;
+import com.jseric.simple_product_rest.model.fe.BatchProductResult;
 import com.jseric.simple_product_rest.model.fe.CreateProductRequest;
 import com.jseric.simple_product_rest.model.fe.CreateProductResponse;
+import com.jseric.simple_product_rest.model.fe.DeleteProductsResponse;
 import com.jseric.simple_product_rest.model.fe.FetchProductResponse;
 import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.CatalogState;
 import com.jseric.simple_product_rest.model.product.Product;
+import com.jseric.simple_product_rest.model.product.ProductChangeType;
+import com.jseric.simple_product_rest.model.product.ProductField;
+import com.jseric.simple_product_rest.repository.ProductChangeRepository;
+import com.jseric.simple_product_rest.repository.ProductProjectionRepository;
 import com.jseric.simple_product_rest.repository.ProductRepository;
+import com.jseric.simple_product_rest.service.cache.ProductCache;
 import com.jseric.simple_product_rest.service.hnb.CurrencyConversionService;
 import com.jseric.simple_product_rest.service.validation.ProductValidationService;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 @Slf4j
 @Service
+@Profile("!reactive")
 public class ProductService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // Partial unique index on code of non-deleted products
+    private static final String CODE_UNIQUE_CONSTRAINT = "product_code_uq";
+
+    private static final String ERR_CONVERSION_RATE_UNAVAILABLE = "conversion rate is not available, try again later;";
+
     private final ProductRepository productRepository;
+    private final ProductProjectionRepository productProjectionRepository;
+    private final ProductChangeRepository productChangeRepository;
     private final ProductValidationService productValidationService;
     private final CurrencyConversionService currencyConversionService;
+    private final TransactionOperations transactionOperations;
+    private final ProductCache productCache;
 
     @Autowired
     public ProductService(
             final ProductRepository productRepository,
+            final ProductProjectionRepository productProjectionRepository,
+            final ProductChangeRepository productChangeRepository,
             final ProductValidationService productValidationService,
-            final CurrencyConversionService currencyConversionService) {
+            final CurrencyConversionService currencyConversionService,
+            final TransactionOperations transactionOperations,
+            final ProductCache productCache) {
         this.productRepository = productRepository;
+        this.productProjectionRepository = productProjectionRepository;
+        this.productChangeRepository = productChangeRepository;
         this.productValidationService = productValidationService;
         this.currencyConversionService = currencyConversionService;
+        this.transactionOperations = transactionOperations;
+        this.productCache = productCache;
     }
 
     /**
@@ -63,17 +111,15 @@ public class ProductService {
             return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
         }
 
-        // Check that code is unique (i.e. it doesn't already exist in system)
-        log.info("Validating code uniqueness");
-        if (productRepository.doesExistByCode(requestData.getCode())) {
-            log.info("Code is not unique. Another object with same code field was found");
-            rspBody.setErrorMessage("another object with same code field already exists in system;");
-            return new ResponseEntity<>(rspBody, HttpStatus.CONFLICT);
-        }
-
-        // Fetch price in EUR currency
+        // Fetch price in EUR currency. Product is not saved with an invalid EUR price if conversion rate is not available.
         log.info("Converting price in HRK to EUR");
-        final BigDecimal priceEur = currencyConversionService.convertHrkToEur(requestData.getPriceHrk());
+        final BigDecimal conversionRate = fetchConversionRate(requestData.getPriceHrk());
+        if (conversionRate == null && needsConversionRate(requestData.getPriceHrk())) {
+            log.warn("Conversion rate is not available");
+            rspBody.setErrorMessage(ERR_CONVERSION_RATE_UNAVAILABLE);
+            return new ResponseEntity<>(rspBody, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        final BigDecimal priceEur = currencyConversionService.convertHrkToEur(requestData.getPriceHrk(), conversionRate);
 
         // Create new Product
         Product product = new Product(
@@ -84,17 +130,201 @@ public class ProductService {
                 requestData.getDescription(),
                 requestData.getIsAvailable());
 
-        // Save product
+        // Save product and record the change in a single transaction (code uniqueness is enforced by the database)
         log.info("Saving new product");
         log.debug(product.toString());
-        product = productRepository.save(product);
+        try {
+            final Product newProduct = product;
+            product = transactionOperations.execute(status -> {
+                final Product savedProduct = productRepository.save(newProduct);
+                productChangeRepository.record(ProductChangeType.CREATED, Collections.singletonList(savedProduct.getId()));
+                return savedProduct;
+            });
+        } catch (final DataIntegrityViolationException e) {
+            if (!isCodeConflict(e)) {
+                throw e;
+            }
+            log.info("Code is not unique. Another object with same code field was found");
+            rspBody.setErrorMessage("another object with same code field already exists in system;");
+            return new ResponseEntity<>(rspBody, HttpStatus.CONFLICT);
+        }
 
         rspBody.setProduct(new ProductWrapper(product));
         return new ResponseEntity<>(rspBody, HttpStatus.CREATED);
     }
 
     /**
-     * Update existing Product
+     * Create new and update existing Products in a single batch.
+     * Products without ID are created and Products with ID are updated.
+     * If version is set for an updated Product, it is updated only if it wasn't changed in the meantime.
+     * Every Product is validated separately and only valid Products are saved.
+     * Code uniqueness is checked with a single query for the whole batch and all Products are saved in a single transaction.
+     * @param reqBody {@link com.jseric.simple_product_rest.model.fe.BatchProductRequest}
+     * @return {@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.BatchProductResponse}&gt;
+     */
+    public ResponseEntity<BatchProductResponse> createOrUpdateBatch(final BatchProductRequest reqBody) {
+        final BatchProductResponse rspBody = new BatchProductResponse();
+
+        if (reqBody == null || reqBody.getProducts() == null || reqBody.getProducts().isEmpty()) {
+            log.error("Request body is empty!");
+            rspBody.setErrorMessage("request body is empty;");
+            return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
+        }
+
+        final List<ProductWrapper> requestData = reqBody.getProducts();
+        if (requestData.size() > MAX_BATCH_SIZE) {
+            log.info("Batch is too large");
+            rspBody.setErrorMessage("batch must not contain more than " + MAX_BATCH_SIZE + " products;");
+            return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
+        }
+
+        final BatchProductResult[] results = new BatchProductResult[requestData.size()];
+
+        // Validate data
+        log.info("Validating batch of " + requestData.size() + " products");
+        final Set<String> batchCodes = new HashSet<>();
+        for (int i = 0; i < requestData.size(); i++) {
+            final ProductWrapper product = requestData.get(i);
+            if (product == null) {
+                results[i] = new BatchProductResult(i, HttpStatus.BAD_REQUEST.value(), "product is empty;", null);
+                continue;
+            }
+
+            final String errorMessage = productValidationService.validateCreateUpdateRequest(product);
+            if (!errorMessage.isEmpty()) {
+                results[i] = new BatchProductResult(i, HttpStatus.BAD_REQUEST.value(), errorMessage, null);
+            } else if (!batchCodes.add(product.getCode())) {
+                results[i] = new BatchProductResult(i, HttpStatus.CONFLICT.value(), "another product in batch has same code field;", null);
+            }
+        }
+
+        // Fetch conversion rate once for the whole batch (before the transaction, so that no DB connection waits for HNB)
+        log.info("Fetching HRK to EUR conversion rate");
+        final BigDecimal conversionRate = currencyConversionService.fetchTodaysEuroConversionRate();
+        if (conversionRate == null) {
+            log.warn("Conversion rate is not available");
+            for (int i = 0; i < requestData.size(); i++) {
+                if (results[i] == null && needsConversionRate(requestData.get(i).getPriceHrk())) {
+                    results[i] = new BatchProductResult(i, HttpStatus.SERVICE_UNAVAILABLE.value(), ERR_CONVERSION_RATE_UNAVAILABLE, null);
+                }
+            }
+        }
+
+        try {
+            transactionOperations.executeWithoutResult(status -> saveBatch(requestData, results, conversionRate));
+        } catch (final DataIntegrityViolationException e) {
+            if (!isCodeConflict(e)) {
+                throw e;
+            }
+            log.warn("Saving batch failed: " + e.getMessage());
+            rspBody.setErrorMessage("another object with same code field already exists in system;");
+            return new ResponseEntity<>(rspBody, HttpStatus.CONFLICT);
+        } catch (final OptimisticLockingFailureException e) {
+            // Product was changed after it was read for the version check
+            log.warn("Saving batch failed: " + e.getMessage());
+            rspBody.setErrorMessage("product was modified by another request;");
+            return new ResponseEntity<>(rspBody, HttpStatus.CONFLICT);
+        }
+
+        // Saved products are evicted (not replaced) after the transaction is committed, since concurrent writes
+        // of the same product could otherwise leave an older version (or a deleted product) cached
+        Arrays.stream(results)
+                .filter(result -> result.getProduct() != null)
+                .forEach(result -> productCache.invalidate(result.getProduct().getId()));
+
+        rspBody.setResults(Arrays.asList(results));
+
+        final boolean allSaved = Arrays.stream(results).allMatch(result -> result.getErrorMessage() == null);
+        return new ResponseEntity<>(rspBody, allSaved ? HttpStatus.OK : HttpStatus.MULTI_STATUS);
+    }
+
+    /**
+     * Check and save Products of a batch which passed validation.
+     * Results of the other Products are already set.
+     */
+    private void saveBatch(
+            final List<ProductWrapper> requestData,
+            final BatchProductResult[] results,
+            final BigDecimal conversionRate) {
+        final Set<Long> ids = new HashSet<>();
+        final Set<String> codes = new HashSet<>();
+        for (int i = 0; i < requestData.size(); i++) {
+            if (results[i] == null) {
+                if (requestData.get(i).getId() != null) {
+                    ids.add(requestData.get(i).getId());
+                }
+                codes.add(requestData.get(i).getCode());
+            }
+        }
+
+        // Fetch products which are updated
+        log.info("Fetching " + ids.size() + " products for update");
+        final Map<Long, Product> existingProducts = ids.isEmpty() ? new HashMap<>() : productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        // Check that codes are unique (i.e. they don't already exist in system for other products)
+        log.info("Validating code uniqueness");
+        final Map<String, Long> existingCodes = codes.isEmpty() ? new HashMap<>() : productRepository.findAllByCodeIn(codes).stream()
+                .collect(Collectors.toMap(Product::getCode, Product::getId, (a, b) -> a));
+
+        final List<Integer> indices = new ArrayList<>();
+        final List<Product> products = new ArrayList<>();
+        for (int i = 0; i < requestData.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+
+            final ProductWrapper data = requestData.get(i);
+            final Product product = data.getId() == null ? new Product() : existingProducts.get(data.getId());
+            if (product == null) {
+                results[i] = new BatchProductResult(i, HttpStatus.NOT_FOUND.value(), "product was not found;", null);
+                continue;
+            }
+
+            // If version is set, Product is updated only if it wasn't changed since the client read it
+            if (data.getId() != null && data.getVersion() != null && !data.getVersion().equals(product.getVersion())) {
+                results[i] = new BatchProductResult(i, HttpStatus.CONFLICT.value(), "product was modified by another request;", null);
+                continue;
+            }
+
+            final Long codeOwnerId = existingCodes.get(data.getCode());
+            if (codeOwnerId != null && !codeOwnerId.equals(data.getId())) {
+                results[i] = new BatchProductResult(i, HttpStatus.CONFLICT.value(),
+                                                    "another object with same code field already exists in system;", null);
+                continue;
+            }
+
+            product.setCode(data.getCode())
+                    .setName(data.getName())
+                    .setPriceHrk(data.getPriceHrk())
+                    .setPriceEur(currencyConversionService.convertHrkToEur(data.getPriceHrk(), conversionRate))
+                    .setDescription(data.getDescription())
+                    .setIsAvailable(data.getIsAvailable());
+
+            indices.add(i);
+            products.add(product);
+        }
+
+        // Save products
+        log.info("Saving " + products.size() + " products");
+        final Iterator<Product> savedProducts = productRepository.saveAll(products).iterator();
+        final List<Long> createdIds = new ArrayList<>();
+        final List<Long> updatedIds = new ArrayList<>();
+        for (final Integer i : indices) {
+            final Product savedProduct = savedProducts.next();
+            final boolean created = requestData.get(i).getId() == null;
+            (created ? createdIds : updatedIds).add(savedProduct.getId());
+            final HttpStatus status = created ? HttpStatus.CREATED : HttpStatus.OK;
+            results[i] = new BatchProductResult(i, status.value(), null, new ProductWrapper(savedProduct));
+        }
+
+        productChangeRepository.record(ProductChangeType.CREATED, createdIds);
+        productChangeRepository.record(ProductChangeType.UPDATED, updatedIds);
+    }
+
+    /**
+     * Update existing Product.
+     * If version is set in request body, Product is updated only if it wasn't changed in the meantime.
      * @param productId Product ID (in {@link java.lang.String} format)
      * @param reqBody {@link com.jseric.simple_product_rest.model.fe.CreateProductRequest}
      * @return {@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.CreateProductResponse}&gt;
@@ -134,41 +364,62 @@ public class ProductService {
             return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
         }
 
-        // Check that code is unique (i.e. it doesn't already exist in system)
-        log.info("Validating code uniqueness");
-        if (productRepository.doesExistByCode(requestData.getCode(), id)) {
+        // Fetch price in EUR currency. Product is not saved with an invalid EUR price if conversion rate is not available.
+        log.info("Converting price in HRK to EUR");
+        final BigDecimal conversionRate = fetchConversionRate(requestData.getPriceHrk());
+        if (conversionRate == null && needsConversionRate(requestData.getPriceHrk())) {
+            log.warn("Conversion rate is not available");
+            rspBody.setErrorMessage(ERR_CONVERSION_RATE_UNAVAILABLE);
+            return new ResponseEntity<>(rspBody, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        final BigDecimal priceEur = currencyConversionService.convertHrkToEur(requestData.getPriceHrk(), conversionRate);
+
+        // Update product with a single statement (code uniqueness is enforced by the database)
+        final Product product = new Product(
+                requestData.getCode(),
+                requestData.getName(),
+                requestData.getPriceHrk(),
+                priceEur,
+                requestData.getDescription(),
+                requestData.getIsAvailable());
+        product.setId(id);
+        product.setVersion(requestData.getVersion());
+
+        log.info("Saving updated product");
+        log.debug(product.toString());
+        final Optional<Product> productOptional;
+        try {
+            productOptional = transactionOperations.execute(status -> {
+                final Optional<Product> updatedProduct = productRepository.updateIfActive(product);
+                updatedProduct.ifPresent(p -> productChangeRepository.record(ProductChangeType.UPDATED, Collections.singletonList(p.getId())));
+                return updatedProduct;
+            });
+        } catch (final DataIntegrityViolationException e) {
+            if (!isCodeConflict(e)) {
+                throw e;
+            }
             log.info("Code is not unique. Another object with same code field was found");
             rspBody.setErrorMessage("another object with same code field already exists in system;");
             return new ResponseEntity<>(rspBody, HttpStatus.CONFLICT);
         }
 
-        // Fetch price in EUR currency
-        log.info("Converting price in HRK to EUR");
-        final BigDecimal priceEur = currencyConversionService.convertHrkToEur(requestData.getPriceHrk());
-
-        // Fetch product
-        final Optional<Product> productOptional = productRepository.findById(id);
         if (!productOptional.isPresent()) {
+            if (requestData.getVersion() != null && productRepository.existsById(id)) {
+                log.info("Product with ID = " + id + " has version different than " + requestData.getVersion());
+                rspBody.setErrorMessage("product was modified by another request;");
+                return new ResponseEntity<>(rspBody, HttpStatus.CONFLICT);
+            }
+
             log.warn("Product with ID = " + id + " not found");
             rspBody.setErrorMessage("product was not found;");
             return new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND);
         }
 
-        // Update product data
-        Product product = productOptional.get();
-        product.setCode(requestData.getCode())
-                .setName(requestData.getName())
-                .setPriceHrk(requestData.getPriceHrk())
-                .setPriceEur(priceEur)
-                .setDescription(requestData.getDescription())
-                .setIsAvailable(requestData.getIsAvailable());
-
-        // Save product
-        log.info("Saving updated product");
-        log.debug(product.toString());
-        product = productRepository.save(product);
+        final ProductWrapper productWrapper = new ProductWrapper(productOptional.get());
+        // Next read loads the product, see createOrUpdateBatch
+        productCache.invalidate(id);
 
-        rspBody.setProduct(new ProductWrapper(product));
+        rspBody.setProduct(productWrapper);
         return new ResponseEntity<>(rspBody, HttpStatus.OK);
     }
 
@@ -191,37 +442,241 @@ public class ProductService {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
-        // Fetch product
-        final Optional<Product> productOptional = productRepository.findById(id);
-        if (!productOptional.isPresent()) {
+        // Delete product and record the change in a single transaction
+        log.info("Deleting product");
+        final Long deletedId = id;
+        final int deletedCount = transactionOperations.execute(status -> {
+            final int count = productRepository.softDeleteById(deletedId);
+            if (count > 0) {
+                productChangeRepository.record(ProductChangeType.DELETED, Collections.singletonList(deletedId));
+            }
+            return count;
+        });
+        productCache.invalidate(id);
+
+        if (deletedCount == 0) {
             log.info("Product with ID not found");
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
-        // Delete product
-        log.info("Deleting product");
-        productRepository.deleteById(id);
-
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
     /**
-     * Fetch all Products
+     * Delete multiple Products
+     * @param productIds Comma separated Product IDs
+     * @return {@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.DeleteProductsResponse}&gt;
+     */
+    public ResponseEntity<DeleteProductsResponse> deleteAll(final String productIds) {
+        final DeleteProductsResponse rspBody = new DeleteProductsResponse();
+
+        if (StringUtils.isBlank(productIds)) {
+            log.debug("productIds is empty");
+            rspBody.setErrorMessage("ids is empty;");
+            return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
+        }
+
+        final Set<Long> ids = new HashSet<>();
+        for (final String productId : productIds.split(",")) {
+            try {
+                ids.add(Long.parseLong(productId.trim()));
+            } catch (final NumberFormatException e) {
+                log.error("productId is not a number!");
+                rspBody.setErrorMessage("invalid productId " + productId.trim() + ";");
+                return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        if (ids.size() > MAX_BATCH_SIZE) {
+            log.info("Too many IDs");
+            rspBody.setErrorMessage("ids must not contain more than " + MAX_BATCH_SIZE + " IDs;");
+            return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
+        }
+
+        // Delete products
+        log.info("Deleting " + ids.size() + " products");
+        final List<Long> deletedIds = transactionOperations.execute(status -> {
+            final List<Long> softDeletedIds = productRepository.softDeleteAllActiveById(ids);
+            productChangeRepository.record(ProductChangeType.DELETED, softDeletedIds);
+            return softDeletedIds;
+        });
+        rspBody.setDeletedCount(deletedIds.size());
+        ids.forEach(productCache::invalidate);
+
+        return new ResponseEntity<>(rspBody, HttpStatus.OK);
+    }
+
+    /**
+     * Fetch all Products.
+     * Products are read as DTOs in a read-only transaction, so Hibernate does not track them and never flushes.
      * @return {@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.FetchProductResponse}&gt;
      */
+    @Transactional(readOnly = true)
     public ResponseEntity<FetchProductResponse> fetchAll() {
         final FetchProductResponse rspBody = new FetchProductResponse();
 
         // Fetch products
         log.info("Fetching all products");
-        final List<Product> products = productRepository.findAll();
+        rspBody.setProducts(productRepository.findAllWrappers());
+
+        return new ResponseEntity<>(rspBody, HttpStatus.OK);
+    }
+
+    /**
+     * Fetch a page of Products, ordered by ID.
+     * If cursor is set, Products with ID greater than cursor are returned (keyset pagination).
+     * If page is set, Products are skipped by page number (offset pagination).
+     * If none of the parameters are set, all Products are returned.
+     * If fields are set, only the selected columns are read from the database and serialized (ID is always included).
+     * @param limit Max number of Products in page (in {@link java.lang.String} format)
+     * @param cursor ID of the last Product in previous page (in {@link java.lang.String} format)
+     * @param page Page number, starting from 0 (in {@link java.lang.String} format)
+     * @param fields Comma separated list of fields to return (e.g. id,code,priceEur), or null for all fields
+     * @return {@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.FetchProductResponse}&gt;
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<FetchProductResponse> fetchPage(final String limit, final String cursor, final String page,
+                                                          final String fields) {
+        final ResponseEntity<FetchProductResponse> errorRsp = validatePage(limit, cursor, page, fields);
+        if (errorRsp != null) {
+            return errorRsp;
+        }
 
-        // Convert Product list to ProductWrapper list
-        rspBody.setProducts(products.stream().map(ProductWrapper::new).collect(Collectors.toList()));
+        final FetchProductResponse rspBody = new FetchProductResponse();
+        final Set<ProductField> selectedFields = fields == null ? null : parseFields(fields);
+
+        if (limit == null && cursor == null && page == null) {
+            if (selectedFields == null) {
+                return fetchAll();
+            }
+            log.info("Fetching fields " + selectedFields + " of all products");
+            rspBody.setProducts(productProjectionRepository.findAll(selectedFields));
+            return new ResponseEntity<>(rspBody, HttpStatus.OK);
+        }
+
+        final int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(limit);
+
+        // Fetch products
+        final List<ProductWrapper> products;
+        if (cursor != null) {
+            final Long lastId = Long.parseLong(cursor);
+            log.info("Fetching products after ID = " + lastId);
+            products = selectedFields == null
+                    ? productRepository.findWrappersAfterId(lastId, PageRequest.of(0, pageSize))
+                    : productProjectionRepository.findAllAfterId(selectedFields, lastId, pageSize);
+        } else {
+            final int pageNumber = page == null ? 0 : Integer.parseInt(page);
+            log.info("Fetching products page " + pageNumber);
+            products = selectedFields == null
+                    ? productRepository.findWrappersOrderedById(PageRequest.of(pageNumber, pageSize))
+                    : productProjectionRepository.findAllOrderedById(selectedFields, pageNumber, pageSize);
+        }
+
+        rspBody.setProducts(products);
+
+        // Full page means that there might be more products
+        if (products.size() == pageSize) {
+            rspBody.setNextCursor(products.get(products.size() - 1).getId());
+        }
 
         return new ResponseEntity<>(rspBody, HttpStatus.OK);
     }
 
+    /**
+     * Validate parameters of {@link #fetchPage(String, String, String, String)}, without accessing the database
+     * @param limit Max number of Products in page (in {@link java.lang.String} format)
+     * @param cursor ID of the last Product in previous page (in {@link java.lang.String} format)
+     * @param page Page number, starting from 0 (in {@link java.lang.String} format)
+     * @param fields Comma separated list of fields to return, or null for all fields
+     * @return Response with HTTP 400 and error message if parameters are invalid, or null if they are valid
+     */
+    public ResponseEntity<FetchProductResponse> validatePage(final String limit, final String cursor, final String page,
+                                                             final String fields) {
+        final String errorMessage = pageErrorMessage(limit, cursor, page, fields);
+        if (errorMessage == null) {
+            return null;
+        }
+
+        final FetchProductResponse rspBody = new FetchProductResponse();
+        rspBody.setErrorMessage(errorMessage);
+        return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
+    }
+
+    private String pageErrorMessage(final String limit, final String cursor, final String page, final String fields) {
+        if (fields != null && parseFields(fields) == null) {
+            log.info("fields are invalid");
+            return "fields must be a comma separated list of " +
+                    Arrays.stream(ProductField.values()).map(ProductField::getFieldName).collect(Collectors.joining(", ")) + ";";
+        }
+
+        if (limit != null) {
+            int pageSize;
+            try {
+                pageSize = Integer.parseInt(limit);
+            } catch (final NumberFormatException e) {
+                pageSize = -1;
+            }
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                log.info("limit is invalid");
+                return "limit must be a number between 1 and " + MAX_PAGE_SIZE + ";";
+            }
+        }
+
+        if (cursor != null && page != null) {
+            log.info("Both cursor and page are set");
+            return "cursor and page cannot be combined;";
+        }
+
+        if (cursor != null) {
+            try {
+                Long.parseLong(cursor);
+            } catch (final NumberFormatException e) {
+                log.info("cursor is not a number");
+                return "invalid cursor;";
+            }
+        }
+
+        if (page != null) {
+            int pageNumber;
+            try {
+                pageNumber = Integer.parseInt(page);
+            } catch (final NumberFormatException e) {
+                pageNumber = -1;
+            }
+            if (pageNumber < 0) {
+                log.info("page is invalid");
+                return "invalid page;";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse sparse fieldset
+     * @param fields Comma separated list of field names
+     * @return Selected fields, or null if any of the fields is unknown or empty
+     */
+    private static Set<ProductField> parseFields(final String fields) {
+        final Set<ProductField> selectedFields = EnumSet.noneOf(ProductField.class);
+        for (final String fieldName : fields.split(",", -1)) {
+            final Optional<ProductField> field = ProductField.fromFieldName(fieldName.trim());
+            if (!field.isPresent()) {
+                return null;
+            }
+            selectedFields.add(field.get());
+        }
+        return selectedFields;
+    }
+
+    /**
+     * Fetch state of the whole catalog (position of the last committed change), without loading any Products
+     * @return {@link com.jseric.simple_product_rest.model.product.CatalogState}
+     */
+    @Transactional(readOnly = true)
+    public CatalogState fetchCatalogState() {
+        return productRepository.fetchCatalogState();
+    }
+
     /**
      * Fetch Product by ID
      * @param productId Product ID (in {@link java.lang.String} format)
@@ -244,15 +699,40 @@ public class ProductService {
             return new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND);
         }
 
-        // Fetch product
-        final Optional<Product> productOptional = productRepository.findById(id);
+        // Fetch product (from cache, if it is cached). Cache misses are read in a read-write transaction, so they are
+        // never routed to a read replica: a row loaded from a lagging replica would stay cached for the whole TTL.
+        final Optional<ProductWrapper> productOptional = productCache.get(
+                id, key -> transactionOperations.execute(status -> productRepository.findWrapperById(key).orElse(null)));
         if (!productOptional.isPresent()) {
             log.debug("Product with ID not found");
             return new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND);
         }
 
-        rspBody.setProducts(Arrays.asList(new ProductWrapper(productOptional.get())));
+        rspBody.setProducts(Arrays.asList(productOptional.get()));
 
         return new ResponseEntity<>(rspBody, HttpStatus.OK);
     }
+
+    /**
+     * Fetch today's HRK to EUR conversion rate, if it is needed for the price
+     * @return Conversion rate, or null if price is 0 or rate is not available
+     */
+    private BigDecimal fetchConversionRate(final BigDecimal priceHrk) {
+        return needsConversionRate(priceHrk) ? currencyConversionService.fetchTodaysEuroConversionRate() : null;
+    }
+
+    private static boolean needsConversionRate(final BigDecimal priceHrk) {
+        return priceHrk.compareTo(BigDecimal.ZERO) != 0;
+    }
+
+    /**
+     * Check if data integrity violation was caused by a duplicate code
+     * @param e {@link org.springframework.dao.DataIntegrityViolationException}
+     * @return true if unique constraint on code was violated
+     */
+    private static boolean isCodeConflict(final DataIntegrityViolationException e) {
+        final Throwable cause = e.getCause();
+        return cause instanceof ConstraintViolationException
+                && CODE_UNIQUE_CONSTRAINT.equals(((ConstraintViolationException) cause).getConstraintName());
+    }
 }
@@ -0,0 +1,77 @@
+package com.jseric.simple_product_rest.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class ProductCache {
+    private static final String CACHE_NAME = "products";
+
+    private final Cache<Long, ProductWrapper> cache;
+
+    /**
+     * Bounded in-process cache of Products, by Product ID.
+     * Entries are evicted when the cache is full (least recently used first) and after TTL expires,
+     * which also bounds staleness of entries changed by other application instances.
+     * Hit, miss and eviction counters are published as cache.* meters with tag cache=products.
+     * @param maxSize Max number of cached Products
+     * @param ttlSeconds Time (in seconds) after which a cached Product is evicted
+     * @param meterRegistry {@link io.micrometer.core.instrument.MeterRegistry}
+     */
+    @Autowired
+    public ProductCache(
+            @Value("${com.jseric.simple_product_rest.product-cache.max-size:10000}") final long maxSize,
+            @Value("${com.jseric.simple_product_rest.product-cache.ttl-seconds:300}") final long ttlSeconds,
+            final MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Get cached Product or load it if it is not cached.
+     * Concurrent callers missing the same Product wait for a single load.
+     * @param id Product ID
+     * @param loader Function which loads the Product (returns null if Product doesn't exist)
+     * @return Product, or {@link java.util.Optional#empty()} if it doesn't exist
+     */
+    public Optional<ProductWrapper> get(final Long id, final Function<Long, ProductWrapper> loader) {
+        return Optional.ofNullable(cache.get(id, loader));
+    }
+
+    /**
+     * Get cached Product without loading it
+     * @param id Product ID
+     * @return Product, or {@link java.util.Optional#empty()} if it is not cached
+     */
+    public Optional<ProductWrapper> getIfPresent(final Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    public void invalidate(final Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
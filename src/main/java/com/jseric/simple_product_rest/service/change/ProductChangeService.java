@@ -0,0 +1,284 @@
+package com.jseric.simple_product_rest.service.change;
+
+import com.jseric.simple_product_rest.model.fe.FetchProductChangesResponse;
+import com.jseric.simple_product_rest.model.fe.ProductChangeWrapper;
+import com.jseric.simple_product_rest.model.product.ProductChange;
+import com.jseric.simple_product_rest.repository.ProductChangeRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@Profile("!reactive")
+public class ProductChangeService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String TOKEN_SEPARATOR = "|";
+
+    // Position before the first change
+    private static final Position START = new Position(0L, 0L);
+
+    private static final String WAITING_GAUGE = "product.changes.waiting";
+    private static final String PENDING_GAUGE = "product.changes.pending";
+
+    private final ProductChangeRepository productChangeRepository;
+    private final long maxWaitSeconds;
+    private final int maxWaiters;
+    private final long pendingRefreshNanos;
+
+    // Long-polling requests which are waiting for new changes
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+
+    // Number of pending changes, counted by the poll (not on every metrics scrape)
+    private final AtomicLong pendingCount = new AtomicLong();
+    private long nextPendingRefresh = System.nanoTime();
+
+    /**
+     * Change feed over the product_change outbox.
+     * Long-polling requests don't hold a request thread or a DB connection while they wait. A scheduled poll checks
+     * for new changes (with one query, regardless of the number of waiting requests) and completes waiting requests.
+     * The poll also counts pending changes for the product.changes.pending metric, every pendingRefreshMs.
+     * @param productChangeRepository {@link com.jseric.simple_product_rest.repository.ProductChangeRepository}
+     * @param meterRegistry {@link io.micrometer.core.instrument.MeterRegistry}
+     * @param maxWaitSeconds Max time (in seconds) a request can wait for new changes
+     * @param maxWaiters Max number of requests waiting for new changes at the same time
+     * @param pendingRefreshMs Interval (in milliseconds) in which pending changes are counted
+     */
+    @Autowired
+    public ProductChangeService(
+            final ProductChangeRepository productChangeRepository,
+            final MeterRegistry meterRegistry,
+            @Value("${com.jseric.simple_product_rest.changes.max-wait-seconds:30}") final long maxWaitSeconds,
+            @Value("${com.jseric.simple_product_rest.changes.max-waiters:1000}") final int maxWaiters,
+            @Value("${com.jseric.simple_product_rest.changes.pending-refresh-ms:15000}") final long pendingRefreshMs) {
+        this.productChangeRepository = productChangeRepository;
+        this.maxWaitSeconds = maxWaitSeconds;
+        this.maxWaiters = maxWaiters;
+        this.pendingRefreshNanos = TimeUnit.MILLISECONDS.toNanos(pendingRefreshMs);
+
+        Gauge.builder(WAITING_GAUGE, waiterCount, AtomicInteger::get)
+                .description("Long-polling requests waiting for product changes")
+                .register(meterRegistry);
+        Gauge.builder(PENDING_GAUGE, pendingCount, AtomicLong::get)
+                .description("Committed product changes not yet returned by the change feed, because an older transaction is still running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fetch Product changes after the given token, in the order they were made.
+     * If there are no changes and wait is set, response is sent when the first change is made or when wait expires.
+     * If too many requests are already waiting, HTTP 503 is returned instead of waiting.
+     * A change is returned only after all transactions older than it have finished, so that a change committed late
+     * is never skipped. A long-running transaction (on any table) therefore holds back all changes made after it started,
+     * until it finishes; the number of held back changes is exposed as product.changes.pending metric.
+     * @param since Token from the previous response (nextToken), or null to read changes from the beginning
+     * @param limit Max number of changes (in {@link java.lang.String} format)
+     * @param wait Max time (in seconds) to wait for changes if there are none (in {@link java.lang.String} format)
+     * @return {@link java.util.concurrent.CompletableFuture}&lt;{@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.FetchProductChangesResponse}&gt;&gt;
+     */
+    public CompletableFuture<ResponseEntity<FetchProductChangesResponse>> fetchChanges(
+            final String since, final String limit, final String wait) {
+        final FetchProductChangesResponse rspBody = new FetchProductChangesResponse();
+
+        final Position position = since == null ? START : decodeToken(since);
+        if (position == null) {
+            log.info("since is invalid");
+            rspBody.setErrorMessage("invalid since token;");
+            return CompletableFuture.completedFuture(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+        }
+
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if (limit != null) {
+            try {
+                pageSize = Integer.parseInt(limit);
+            } catch (final NumberFormatException e) {
+                pageSize = -1;
+            }
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                log.info("limit is invalid");
+                rspBody.setErrorMessage("limit must be a number between 1 and " + MAX_PAGE_SIZE + ";");
+                return CompletableFuture.completedFuture(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+            }
+        }
+
+        long waitSeconds = 0;
+        if (wait != null) {
+            try {
+                waitSeconds = Long.parseLong(wait);
+            } catch (final NumberFormatException e) {
+                waitSeconds = -1;
+            }
+            if (waitSeconds < 0 || waitSeconds > maxWaitSeconds) {
+                log.info("wait is invalid");
+                rspBody.setErrorMessage("wait must be a number between 0 and " + maxWaitSeconds + ";");
+                return CompletableFuture.completedFuture(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+            }
+        }
+
+        final ResponseEntity<FetchProductChangesResponse> rsp = fetchChanges(position, pageSize);
+        if (waitSeconds == 0 || !rsp.getBody().getChanges().isEmpty()) {
+            return CompletableFuture.completedFuture(rsp);
+        }
+
+        if (waiterCount.incrementAndGet() > maxWaiters) {
+            waiterCount.decrementAndGet();
+            log.warn("Too many requests are waiting for changes, rejecting request");
+            final FetchProductChangesResponse errorRspBody = new FetchProductChangesResponse();
+            errorRspBody.setErrorMessage("too many requests are waiting for changes;");
+            return CompletableFuture.completedFuture(new ResponseEntity<>(errorRspBody, HttpStatus.SERVICE_UNAVAILABLE));
+        }
+
+        log.info("No changes after " + position + ", waiting up to " + waitSeconds + " s");
+        final Waiter waiter = new Waiter(position, pageSize, System.nanoTime() + TimeUnit.SECONDS.toNanos(waitSeconds));
+        waiters.add(waiter);
+        return waiter.future;
+    }
+
+    private ResponseEntity<FetchProductChangesResponse> fetchChanges(final Position position, final int pageSize) {
+        log.info("Fetching product changes after " + position);
+        final List<ProductChange> changes = productChangeRepository.findAllAfter(position.txId, position.id, pageSize);
+
+        final FetchProductChangesResponse rspBody = new FetchProductChangesResponse();
+        rspBody.setChanges(changes.stream().map(ProductChangeWrapper::new).collect(Collectors.toList()));
+        rspBody.setNextToken(encodeToken(changes.isEmpty() ? position : Position.of(changes.get(changes.size() - 1))));
+        return new ResponseEntity<>(rspBody, HttpStatus.OK);
+    }
+
+    /**
+     * Complete waiting requests for which there are new changes or whose wait has expired
+     */
+    @Scheduled(fixedDelayString = "${com.jseric.simple_product_rest.changes.poll-interval-ms:1000}")
+    public void completeWaiters() {
+        refreshPendingCount();
+        if (waiters.isEmpty()) {
+            return;
+        }
+
+        try {
+            final Optional<Position> last = productChangeRepository.findLast().map(Position::of);
+            final long now = System.nanoTime();
+            for (final Iterator<Waiter> iterator = waiters.iterator(); iterator.hasNext(); ) {
+                final Waiter waiter = iterator.next();
+                if (last.isPresent() && last.get().isAfter(waiter.position)) {
+                    iterator.remove();
+                    waiterCount.decrementAndGet();
+                    waiter.future.complete(fetchChanges(waiter.position, waiter.pageSize));
+                } else if (now - waiter.deadline >= 0) {
+                    iterator.remove();
+                    waiterCount.decrementAndGet();
+                    final FetchProductChangesResponse rspBody = new FetchProductChangesResponse();
+                    rspBody.setNextToken(encodeToken(waiter.position));
+                    waiter.future.complete(new ResponseEntity<>(rspBody, HttpStatus.OK));
+                }
+            }
+        } catch (final RuntimeException e) {
+            // Waiting requests are retried on next poll (or expire)
+            log.error("Checking for product changes failed", e);
+        }
+    }
+
+    /**
+     * Count pending changes, if pendingRefreshMs passed since they were last counted.
+     * Called only by the poll, so the time of the next refresh is not shared between threads.
+     */
+    private void refreshPendingCount() {
+        final long now = System.nanoTime();
+        if (now - nextPendingRefresh < 0) {
+            return;
+        }
+
+        nextPendingRefresh = now + pendingRefreshNanos;
+        try {
+            pendingCount.set(productChangeRepository.countPending());
+        } catch (final RuntimeException e) {
+            log.error("Counting pending product changes failed", e);
+        }
+    }
+
+    /**
+     * Create token which points to the given position. Token is opaque to clients.
+     */
+    static String encodeToken(final Position position) {
+        final String token = position.txId + TOKEN_SEPARATOR + position.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode token
+     * @return Position, or null if token is invalid
+     */
+    static Position decodeToken(final String token) {
+        try {
+            final String[] parts = StringUtils.split(
+                    new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8), TOKEN_SEPARATOR);
+            if (parts == null || parts.length != 2) {
+                return null;
+            }
+            return new Position(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Position in the change feed (transaction ID and ID of a change)
+     */
+    static class Position {
+        private final long txId;
+        private final long id;
+
+        Position(final long txId, final long id) {
+            this.txId = txId;
+            this.id = id;
+        }
+
+        static Position of(final ProductChange change) {
+            return new Position(change.getTxId(), change.getId());
+        }
+
+        boolean isAfter(final Position other) {
+            return txId > other.txId || (txId == other.txId && id > other.id);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + txId + ", " + id + ")";
+        }
+    }
+
+    private static class Waiter {
+        private final Position position;
+        private final int pageSize;
+        private final long deadline;
+        private final CompletableFuture<ResponseEntity<FetchProductChangesResponse>> future = new CompletableFuture<>();
+
+        private Waiter(final Position position, final int pageSize, final long deadline) {
+            this.position = position;
+            this.pageSize = pageSize;
+            this.deadline = deadline;
+        }
+    }
+}
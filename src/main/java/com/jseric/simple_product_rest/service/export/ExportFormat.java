@@ -0,0 +1,18 @@
+package com.jseric.simple_product_rest.service.export;
+
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType mediaType;
+
+    ExportFormat(final MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+}
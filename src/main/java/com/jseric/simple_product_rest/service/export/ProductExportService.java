@@ -0,0 +1,86 @@
+package com.jseric.simple_product_rest.service.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.Product;
+import com.jseric.simple_product_rest.repository.ProductRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@Profile("!reactive")
+public class ProductExportService {
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ProductExportService(
+            final ProductRepository productRepository,
+            final EntityManager entityManager,
+            final ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write all Products to output stream, one by one, as they are read from the database.
+     * Every Product is detached after it is written, so memory usage does not depend on the number of Products.
+     * @param outputStream {@link java.io.OutputStream} to write to
+     * @param format {@link com.jseric.simple_product_rest.service.export.ExportFormat} (JSON array or NDJSON)
+     * @return Number of exported Products
+     * @throws IOException if writing to output stream fails
+     */
+    @Transactional(readOnly = true)
+    public long exportAll(final OutputStream outputStream, final ExportFormat format) throws IOException {
+        log.info("Exporting all products as " + format);
+
+        long count = 0;
+        try (final Stream<Product> products = productRepository.streamAll();
+             final JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            // Output stream is owned by the caller
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            if (format == ExportFormat.JSON) {
+                generator.writeStartArray();
+            } else {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+            }
+
+            final Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                final Product product = iterator.next();
+                generator.writeObject(new ProductWrapper(product));
+                entityManager.detach(product);
+
+                // Flush the first Product immediately, so that the client starts receiving data right away
+                if (count++ % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+
+            if (format == ExportFormat.JSON) {
+                generator.writeEndArray();
+            } else if (count > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+
+        log.info("Exported " + count + " products");
+        return count;
+    }
+}
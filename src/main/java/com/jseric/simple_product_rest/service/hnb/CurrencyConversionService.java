@@ -1,9 +1,26 @@
 package com.jseric.simple_product_rest.service.hnb;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -11,20 +28,40 @@ import org.springframework.stereotype.Service;
 public class CurrencyConversionService {
     private static final BigDecimal INVALID_VALUE = BigDecimal.ZERO;
 
+    private static final String EUR_CC = "EUR";
+    private static final ZoneId HNB_ZONE = ZoneId.of("Europe/Zagreb");
+
+    private static final String FALLBACK_COUNTER = "hnb.rate.fallback";
+    private static final String RESULT_TAG = "result";
+
     private final HnbCommunicator hnbCommunicator;
+    private final RateFallbackPolicy fallbackPolicy;
+
+    // Fetches which failed and were answered with the latest known rate, with no rate at all, or rejected by policy
+    private final Counter staleRateFallbackCounter;
+    private final Counter noRateFallbackCounter;
+    private final Counter rejectedFallbackCounter;
+
+    // Successfully fetched conversion rates, by currency code and date of application
+    private final ConcurrentMap<ConversionRateKey, BigDecimal> conversionRates = new ConcurrentHashMap<>();
+
+    // Fetches which are currently in progress, shared between all callers waiting for the same rate
+    private final ConcurrentMap<ConversionRateKey, CompletableFuture<BigDecimal>> pendingFetches = new ConcurrentHashMap<>();
 
     @Autowired
-    public CurrencyConversionService(HnbCommunicator hnbCommunicator) {
+    public CurrencyConversionService(HnbCommunicator hnbCommunicator, MeterRegistry meterRegistry,
+                                     @Value("${com.jseric.simple_product_rest.hnb.fallback-policy:STALE_RATE}") RateFallbackPolicy fallbackPolicy) {
         this.hnbCommunicator = hnbCommunicator;
-    }
+        this.fallbackPolicy = fallbackPolicy;
 
-    public CurrencyConversionService() {
-        hnbCommunicator = new HnbCommunicator();
+        staleRateFallbackCounter = fallbackCounter("stale_rate", meterRegistry);
+        noRateFallbackCounter = fallbackCounter("no_rate", meterRegistry);
+        rejectedFallbackCounter = fallbackCounter("rejected", meterRegistry);
     }
 
     /**
      * Convert value in HRK currency to price in EUR currency.
-     * Conversion rate is retrieved from HNB API.
+     * Conversion rate is retrieved from HNB API and cached for the rest of the day.
      * @param hrk Value in HRK currency
      * @return Converted rate.
      *         If HRK value is null, {@link com.jseric.simple_product_rest.service.hnb.CurrencyConversionService#INVALID_VALUE} is returned.
@@ -40,11 +77,214 @@ public class CurrencyConversionService {
             return BigDecimal.ZERO;
         }
 
-        final BigDecimal conversionRate = hnbCommunicator.fetchTodaysEuroConversionRate();
+        return convertHrkToEur(hrk, fetchTodaysEuroConversionRate());
+    }
+
+    /**
+     * Convert value in HRK currency to price in EUR currency, using already fetched conversion rate.
+     * @param hrk Value in HRK currency
+     * @param conversionRate HRK to EUR conversion rate (may be null)
+     * @return Converted rate.
+     *         If HRK value is null, {@link com.jseric.simple_product_rest.service.hnb.CurrencyConversionService#INVALID_VALUE} is returned.
+     *         If conversion rate is null, {@link com.jseric.simple_product_rest.service.hnb.CurrencyConversionService#INVALID_VALUE} is returned.
+     */
+    public BigDecimal convertHrkToEur(final BigDecimal hrk, final BigDecimal conversionRate) {
+        if (hrk == null) {
+            return INVALID_VALUE;
+        }
+
+        if (hrk.compareTo(BigDecimal.ZERO) == 0) {
+            return BigDecimal.ZERO;
+        }
+
         if (conversionRate == null) {
             // Conversion rate could not be fetched, return invalid value
             return INVALID_VALUE;
         }
         return hrk.divide(conversionRate, 2, RoundingMode.HALF_EVEN);
     }
+
+    /**
+     * Get today's HRK to EUR conversion rate.
+     * @return Conversion rate. null is returned if no rate is known.
+     */
+    public BigDecimal fetchTodaysEuroConversionRate() {
+        return fetchConversionRate(EUR_CC, today());
+    }
+
+    /**
+     * Get today's HRK to EUR conversion rate, without falling back to a previous rate.
+     * @return Conversion rate. null is returned if today's rate cannot be fetched.
+     */
+    public BigDecimal fetchTodaysEuroConversionRateWithoutFallback() {
+        final LocalDate today = today();
+        fetchConversionRate(EUR_CC, today);
+        // Only fetched rates are cached, fallback rates are not
+        return conversionRates.get(new ConversionRateKey(EUR_CC, today));
+    }
+
+    /**
+     * Get conversion rate for desired currency and date.
+     * Cached rate is returned if it exists. Otherwise, the rate is fetched from HNB API, with concurrent callers
+     * waiting on the same fetch instead of sending their own requests.
+     * @param currencyCode Currency code
+     * @param date Date of application
+     * @return Conversion rate. If it cannot be fetched, the latest known rate for the currency is returned.
+     *         null is returned if no rate is known.
+     */
+    public BigDecimal fetchConversionRate(final String currencyCode, final LocalDate date) {
+        final ConversionRateKey key = new ConversionRateKey(currencyCode, date);
+
+        final BigDecimal cachedRate = conversionRates.get(key);
+        if (cachedRate != null) {
+            return cachedRate;
+        }
+
+        final CompletableFuture<BigDecimal> fetch = new CompletableFuture<>();
+        final CompletableFuture<BigDecimal> pendingFetch = pendingFetches.putIfAbsent(key, fetch);
+        if (pendingFetch != null) {
+            log.debug("Waiting for pending fetch of " + key);
+            return pendingFetch.join();
+        }
+
+        try {
+            final BigDecimal rate = loadConversionRate(key);
+            fetch.complete(rate);
+            return rate;
+        } catch (final RuntimeException e) {
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingFetches.remove(key, fetch);
+        }
+    }
+
+    /**
+     * Refresh cached conversion rates in the background.
+     * Tomorrow's rates are fetched as soon as HNB publishes them, so that the first conversion of the day does not have
+     * to wait for HNB API. Rates which are no longer needed are evicted.
+     */
+    @Scheduled(cron = "${com.jseric.simple_product_rest.hnb.rate-refresh-cron:0 0 18,22 * * *}", zone = "Europe/Zagreb")
+    public void refreshConversionRates() {
+        final LocalDate today = today();
+        final LocalDate tomorrow = today.plusDays(1);
+
+        final Set<String> currencyCodes = conversionRates.keySet().stream()
+                .map(ConversionRateKey::getCurrencyCode)
+                .collect(Collectors.toSet());
+        currencyCodes.add(EUR_CC);
+
+        log.info("Refreshing conversion rates for " + currencyCodes);
+        for (final String currencyCode : currencyCodes) {
+            final ConversionRateKey key = new ConversionRateKey(currencyCode, tomorrow);
+            if (!conversionRates.containsKey(key)) {
+                fetchConversionRate(currencyCode, tomorrow);
+            }
+        }
+
+        evictOutdatedConversionRates(today);
+    }
+
+    /**
+     * Remove all cached conversion rates
+     */
+    public void clearConversionRates() {
+        conversionRates.clear();
+    }
+
+    private BigDecimal loadConversionRate(final ConversionRateKey key) {
+        final BigDecimal rate = hnbCommunicator.fetchConversionRate(key.getCurrencyCode(), hnbRequestDate(key));
+        if (rate != null) {
+            conversionRates.put(key, rate);
+            return rate;
+        }
+
+        return fallbackConversionRate(key);
+    }
+
+    /**
+     * Get cached conversion rate without fetching it
+     * @return Conversion rate, or null if it is not cached
+     */
+    BigDecimal getCachedConversionRate(final ConversionRateKey key) {
+        return conversionRates.get(key);
+    }
+
+    /**
+     * Cache successfully fetched conversion rate
+     */
+    void putConversionRate(final ConversionRateKey key, final BigDecimal rate) {
+        conversionRates.put(key, rate);
+    }
+
+    /**
+     * Get rate to use when conversion rate cannot be fetched, according to fallback policy:
+     * the latest known rate for the currency ({@link RateFallbackPolicy#STALE_RATE}) or no rate ({@link RateFallbackPolicy#REJECT})
+     * @return Conversion rate, or null if no rate is known or policy is {@link RateFallbackPolicy#REJECT}
+     */
+    BigDecimal fallbackConversionRate(final ConversionRateKey key) {
+        if (fallbackPolicy == RateFallbackPolicy.REJECT) {
+            rejectedFallbackCounter.increment();
+            log.warn("Conversion rate for " + key + " could not be fetched, no rate is used (fallback policy is REJECT)");
+            return null;
+        }
+
+        final Optional<Map.Entry<ConversionRateKey, BigDecimal>> latestRate = findLatestConversionRate(key);
+        if (!latestRate.isPresent()) {
+            noRateFallbackCounter.increment();
+            log.warn("Conversion rate for " + key + " could not be fetched and no previous rate is known");
+            return null;
+        }
+
+        staleRateFallbackCounter.increment();
+        log.warn("Conversion rate for " + key + " could not be fetched, using rate for " + latestRate.get().getKey());
+        return latestRate.get().getValue();
+    }
+
+    private static Counter fallbackCounter(final String result, final MeterRegistry meterRegistry) {
+        return Counter.builder(FALLBACK_COUNTER)
+                .description("Conversion rate fetches which fell back to a previous rate or to no rate")
+                .tag(RESULT_TAG, result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find the latest cached rate for the currency which was applicable on the date of the key
+     */
+    private Optional<Map.Entry<ConversionRateKey, BigDecimal>> findLatestConversionRate(final ConversionRateKey key) {
+        return conversionRates.entrySet().stream()
+                .filter(e -> e.getKey().getCurrencyCode().equals(key.getCurrencyCode()))
+                .filter(e -> !e.getKey().getDate().isAfter(key.getDate()))
+                .max(Map.Entry.comparingByKey((a, b) -> a.getDate().compareTo(b.getDate())));
+    }
+
+    /**
+     * Evict rates which were superseded by a newer rate applicable today.
+     * The latest rate of each currency is kept, so that it can be used if HNB API is unavailable.
+     */
+    private void evictOutdatedConversionRates(final LocalDate today) {
+        conversionRates.keySet().removeIf(key -> findLatestConversionRate(new ConversionRateKey(key.getCurrencyCode(), today))
+                .map(latest -> key.getDate().isBefore(latest.getKey().getDate()))
+                .orElse(false));
+    }
+
+    /**
+     * @return Today's date in HNB time zone (date of application of today's rates)
+     */
+    public static LocalDate today() {
+        return LocalDate.now(HNB_ZONE);
+    }
+
+    /**
+     * Date parameter of HNB API request. HNB API returns today's rates when date is not set.
+     */
+    static LocalDate hnbRequestDate(final ConversionRateKey key) {
+        return key.getDate().equals(today()) ? null : key.getDate();
+    }
+
+    @AllArgsConstructor @Getter @ToString @EqualsAndHashCode
+    static final class ConversionRateKey {
+        private final String currencyCode;
+        private final LocalDate date;
+    }
 }
@@ -0,0 +1,74 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Immutable index of exchange rates, by currency code and date.
+ * Index is never modified after it is built, so it can be read by any number of threads without locking.
+ * New rates are added by building a new index.
+ */
+public final class ExchangeRateIndex {
+    // HNB does not publish rate lists for every day (e.g. holidays), so the latest list within this period is used
+    static final int MAX_RATE_AGE_DAYS = 7;
+
+    public static final ExchangeRateIndex EMPTY = new ExchangeRateIndex(Collections.emptyMap());
+
+    private final Map<String, NavigableMap<LocalDate, ExchangeRate>> rates;
+
+    private ExchangeRateIndex(final Map<String, NavigableMap<LocalDate, ExchangeRate>> rates) {
+        this.rates = rates;
+    }
+
+    /**
+     * Build a new index with rates of this index and the given rates (given rates replace existing rates of the same
+     * currency and date)
+     * @param exchangeRates Rates to add
+     * @return New index
+     */
+    public ExchangeRateIndex with(final Collection<ExchangeRate> exchangeRates) {
+        final Map<String, NavigableMap<LocalDate, ExchangeRate>> newRates = new HashMap<>();
+        rates.forEach((currencyCode, currencyRates) -> newRates.put(currencyCode, new TreeMap<>(currencyRates)));
+        for (final ExchangeRate rate : exchangeRates) {
+            newRates.computeIfAbsent(rate.getCurrencyCode(), c -> new TreeMap<>()).put(rate.getDate(), rate);
+        }
+
+        newRates.replaceAll((currencyCode, currencyRates) -> Collections.unmodifiableNavigableMap(currencyRates));
+        return new ExchangeRateIndex(Collections.unmodifiableMap(newRates));
+    }
+
+    /**
+     * Find exchange rate applicable on the date
+     * @param currencyCode Currency code
+     * @param date Date
+     * @return The latest rate of the currency published on or before the date (at most a week before),
+     *         or {@link java.util.Optional#empty()} if there is no such rate
+     */
+    public Optional<ExchangeRate> find(final String currencyCode, final LocalDate date) {
+        final NavigableMap<LocalDate, ExchangeRate> currencyRates = rates.get(currencyCode);
+        if (currencyRates == null) {
+            return Optional.empty();
+        }
+
+        final Map.Entry<LocalDate, ExchangeRate> entry = currencyRates.floorEntry(date);
+        if (entry == null || entry.getKey().isBefore(date.minusDays(MAX_RATE_AGE_DAYS))) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.getValue());
+    }
+
+    /**
+     * @return Date of the latest rate of the currency, or {@link java.util.Optional#empty()} if there are no rates
+     */
+    public Optional<LocalDate> latestDate(final String currencyCode) {
+        final NavigableMap<LocalDate, ExchangeRate> currencyRates = rates.get(currencyCode);
+        return currencyRates == null || currencyRates.isEmpty() ? Optional.empty() : Optional.of(currencyRates.lastKey());
+    }
+}
@@ -0,0 +1,186 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import com.jseric.simple_product_rest.repository.ExchangeRateRepository;
+import com.jseric.simple_product_rest.service.hnb.CurrencyConversionService.ConversionRateKey;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@Profile("!reactive")
+public class ExchangeRateService {
+    private static final String EUR_CC = "EUR";
+    private static final Pattern CURRENCY_CODE_PATTERN = Pattern.compile("[A-Z]{3}");
+
+    private final HnbCommunicator hnbCommunicator;
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final CurrencyConversionService currencyConversionService;
+    private final int historyDays;
+    private final boolean loadOnStartup;
+
+    // Replaced (never modified) when new rates are downloaded
+    private volatile ExchangeRateIndex index = ExchangeRateIndex.EMPTY;
+
+    /**
+     * Local store of HNB exchange rates of all currencies.
+     * Rate lists are downloaded in bulk and saved to the database, and conversions are served from an in-memory index,
+     * so converting a price never sends a request to HNB API.
+     * @param hnbCommunicator {@link com.jseric.simple_product_rest.service.hnb.HnbCommunicator}
+     * @param exchangeRateRepository {@link com.jseric.simple_product_rest.repository.ExchangeRateRepository}
+     * @param currencyConversionService {@link com.jseric.simple_product_rest.service.hnb.CurrencyConversionService}, which gets downloaded EUR rates
+     * @param historyDays Number of past days for which rates are downloaded on startup (if they are missing)
+     * @param loadOnStartup Load rates from the database and download missing rates on startup
+     */
+    @Autowired
+    public ExchangeRateService(
+            final HnbCommunicator hnbCommunicator,
+            final ExchangeRateRepository exchangeRateRepository,
+            final CurrencyConversionService currencyConversionService,
+            @Value("${com.jseric.simple_product_rest.exchange-rates.history-days:30}") final int historyDays,
+            @Value("${com.jseric.simple_product_rest.exchange-rates.load-on-startup:true}") final boolean loadOnStartup) {
+        this.hnbCommunicator = hnbCommunicator;
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.currencyConversionService = currencyConversionService;
+        this.historyDays = historyDays;
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    /**
+     * Load saved rates of the last historyDays days and download rates of the days since the latest saved rate list.
+     * Older saved rates are not loaded, so conversions are served for the last historyDays days only.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadExchangeRates() {
+        if (!loadOnStartup) {
+            return;
+        }
+
+        final LocalDate today = CurrencyConversionService.today();
+        try {
+            // Lists published up to a week before the oldest date are needed as well, for days without a list of their own
+            final List<ExchangeRate> savedRates = exchangeRateRepository.findAllFrom(
+                    today.minusDays(historyDays + ExchangeRateIndex.MAX_RATE_AGE_DAYS));
+            log.info("Loaded " + savedRates.size() + " saved exchange rates");
+            updateIndex(savedRates);
+        } catch (final DataAccessException e) {
+            log.error("Loading saved exchange rates failed: " + e.getMessage());
+        }
+
+        final LocalDate oldestDate = today.minusDays(historyDays);
+        final LocalDate from = index.latestDate(EUR_CC)
+                .map(date -> date.plusDays(1))
+                .filter(date -> date.isAfter(oldestDate))
+                .orElse(oldestDate);
+        if (!from.isAfter(today)) {
+            downloadExchangeRates(from, today);
+        }
+    }
+
+    /**
+     * Download today's and tomorrow's rate lists (tomorrow's list is published in the afternoon)
+     */
+    @Scheduled(cron = "${com.jseric.simple_product_rest.exchange-rates.download-cron:0 5 18,22 * * *}", zone = "Europe/Zagreb")
+    public void downloadLatestExchangeRates() {
+        final LocalDate today = CurrencyConversionService.today();
+        downloadExchangeRates(today, today.plusDays(1));
+    }
+
+    /**
+     * Download rate lists of all currencies for the date range (with a single HNB API request), save them and add them to the index
+     */
+    void downloadExchangeRates(final LocalDate from, final LocalDate to) {
+        log.info("Downloading exchange rates from " + from + " to " + to);
+        final List<ExchangeRate> rates = hnbCommunicator.fetchExchangeRates(from, to);
+        if (rates == null || rates.isEmpty()) {
+            log.warn("No exchange rates were downloaded");
+            return;
+        }
+
+        try {
+            exchangeRateRepository.saveAll(rates);
+        } catch (final DataAccessException e) {
+            // Rates are still used until restart
+            log.error("Saving exchange rates failed: " + e.getMessage());
+        }
+        updateIndex(rates);
+    }
+
+    private synchronized void updateIndex(final List<ExchangeRate> rates) {
+        index = index.with(rates);
+
+        // Prices of saved Products are converted with today's (or, after it is published, tomorrow's) EUR rate,
+        // so they don't have to be fetched from HNB API either
+        final LocalDate today = CurrencyConversionService.today();
+        rates.stream()
+                .filter(rate -> rate.getCurrencyCode().equals(EUR_CC))
+                .filter(rate -> rate.getDate().equals(today) || rate.getDate().equals(today.plusDays(1)))
+                .forEach(rate -> currencyConversionService.putConversionRate(
+                        new ConversionRateKey(EUR_CC, rate.getDate()), rate.getRatePerUnit()));
+    }
+
+    /**
+     * Validate price conversion parameters
+     * @param currency Currency code (EUR if not set)
+     * @param date Date of exchange rate in yyyy-MM-dd format (today if not set)
+     * @return Empty string if parameters are valid and exchange rate is known, otherwise error message
+     */
+    public String validateConversion(final String currency, final String date) {
+        if (currency == null && date == null) {
+            return "";
+        }
+
+        final String currencyCode = currencyCode(currency);
+        if (!CURRENCY_CODE_PATTERN.matcher(currencyCode).matches()) {
+            return "currency must be a 3 letter currency code;";
+        }
+
+        final LocalDate rateDate;
+        try {
+            rateDate = rateDate(date);
+        } catch (final DateTimeParseException e) {
+            return "date must be in yyyy-MM-dd format;";
+        }
+        if (rateDate.isAfter(CurrencyConversionService.today())) {
+            return "date must not be in the future;";
+        }
+
+        if (!index.find(currencyCode, rateDate).isPresent()) {
+            return "no exchange rate for " + currencyCode + " on " + rateDate + ";";
+        }
+        return "";
+    }
+
+    /**
+     * Find price conversion for valid parameters (see {@link #validateConversion(String, String)})
+     * @param currency Currency code (EUR if not set)
+     * @param date Date of exchange rate in yyyy-MM-dd format (today if not set)
+     * @return Price conversion, or {@link java.util.Optional#empty()} if neither currency nor date is set
+     */
+    public Optional<PriceConversion> findConversion(final String currency, final String date) {
+        if (currency == null && date == null) {
+            return Optional.empty();
+        }
+        return index.find(currencyCode(currency), rateDate(date)).map(PriceConversion::new);
+    }
+
+    private static String currencyCode(final String currency) {
+        return currency == null ? EUR_CC : currency.trim().toUpperCase();
+    }
+
+    private static LocalDate rateDate(final String date) {
+        return date == null ? CurrencyConversionService.today() : LocalDate.parse(date.trim());
+    }
+}
@@ -1,15 +1,28 @@
 package com.jseric.simple_product_rest.service.hnb;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONArray;
-import org.json.JSONException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -21,14 +34,46 @@ public class HnbCommunicator {
 
     private static final String CURRENCY_CODE_PARAM = "valuta";
     private static final String DATE_PARAM = "datum";
+    private static final String DATE_FROM_PARAM = "datum-od";
+    private static final String DATE_TO_PARAM = "datum-do";
     private static final String EUR_CC = "EUR";
 
-    private static final String AVG_CONVERSION_RATE_NODE = "Srednji za devize";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
 
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    private static final String FETCH_TIMER = "hnb.fetch";
+    private static final String OUTCOME_TAG = "outcome";
+
+    private final RestTemplate restTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    // Every request goes through retry, circuit breaker and bulkhead (in that order, from the outside)
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Retry retry;
+
+    // Fetch latency by outcome. Timer counts are the success/failure counters.
+    private final Timer successTimer;
+    private final Timer errorTimer;
+    private final Timer invalidResponseTimer;
+    private final Timer rejectedTimer;
 
     @Autowired
-    public HnbCommunicator() {
+    public HnbCommunicator(@Qualifier("hnbRestTemplate") final RestTemplate restTemplate,
+                           final MeterRegistry meterRegistry,
+                           @Qualifier("hnbCircuitBreaker") final CircuitBreaker circuitBreaker,
+                           @Qualifier("hnbBulkhead") final Bulkhead bulkhead,
+                           @Qualifier("hnbRetry") final Retry retry) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.retry = retry;
+
+        successTimer = fetchTimer("success", meterRegistry);
+        errorTimer = fetchTimer("error", meterRegistry);
+        invalidResponseTimer = fetchTimer("invalid_response", meterRegistry);
+        rejectedTimer = fetchTimer("rejected", meterRegistry);
     }
 
     /**
@@ -45,61 +90,107 @@ public class HnbCommunicator {
      * @param date Date (null for today)
      * @return Average conversion rate. null will be returned in case of any error.
      */
-    private BigDecimal fetchConversionRate(final String currencyCode, final Date date) {
-        final StringBuilder uri = new StringBuilder();
-        uri.append(HNB_API_URI).append(CURRENCY_CODE_PARAM).append('=').append(currencyCode);
-        if (date != null) {
-            uri.append('&').append(DATE_PARAM).append('=').append(DATE_FORMAT.format(date));
-        }
+    public BigDecimal fetchConversionRate(final String currencyCode, final LocalDate date) {
+        return get(conversionRateUri(currencyCode, date), HnbResponseParser::parseConversionRate);
+    }
 
+    /**
+     * Send a single GET request to HNB API to get exchange rate lists (all currencies) for every date in the range
+     * @param from First date
+     * @param to Last date
+     * @return Exchange rates. null will be returned in case of any error.
+     */
+    public List<ExchangeRate> fetchExchangeRates(final LocalDate from, final LocalDate to) {
+        final String uri = HNB_API_URI + DATE_FROM_PARAM + '=' + from.format(DATE_FORMAT) +
+                '&' + DATE_TO_PARAM + '=' + to.format(DATE_FORMAT);
+        return get(uri, HnbResponseParser::parseExchangeRates);
+    }
+
+    /**
+     * Send GET request through retry, circuit breaker and bulkhead, and parse response body while it is read.
+     * If the circuit is open or the bulkhead is full, request is not sent at all and the call fails fast.
+     * @param uri Request URI
+     * @param parser Response body parser
+     * @return Parsed response, or null if request failed, was rejected or response is invalid
+     */
+    private <T> T get(final String uri, final ResponseParser<T> parser) {
         log.info("Sending a GET request to " + uri);
-        final RestTemplate restTemplate = new RestTemplate();
 
-        ResponseEntity<String> response;
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        final T result;
         try {
-             response = restTemplate.getForEntity(uri.toString(), String.class);
+            result = Retry.decorateSupplier(retry, CircuitBreaker.decorateSupplier(circuitBreaker, Bulkhead.decorateSupplier(
+                    bulkhead, () -> restTemplate.execute(uri, HttpMethod.GET, null, response -> parse(response, parser))))).get();
+        } catch (final CallNotPermittedException | BulkheadFullException e) {
+            sample.stop(rejectedTimer);
+            log.warn("GET request to " + uri + " was not sent: " + e.getMessage());
+            return null;
         } catch (final Exception e) {
+            sample.stop(errorTimer);
             log.error("Exception thrown when sending a GET request to " + uri + ": " + e.getMessage());
             return null;
         }
 
-        return parseReponseObject(response);
+        sample.stop(result != null ? successTimer : invalidResponseTimer);
+        return result;
     }
 
     /**
-     * Extract average conversion rate from response object.
-     *
-     * @param response {@link org.springframework.http.ResponseEntity<String>} object
-     * @return Average conversion rate from response body.
-     *          If response status is not HTTP OK or if response body is not JSON or
-     *          if average conversion rate field is not in decimal format, null will be returned.
+     * Build HNB API URI for conversion rate of desired currencyCode and date
+     * @param currencyCode Currency code
+     * @param date Date (null for today)
+     * @return URI
      */
-    private BigDecimal parseReponseObject(ResponseEntity<String> response) {
-        log.trace("Response :: " + response);
+    String conversionRateUri(final String currencyCode, final LocalDate date) {
+        final StringBuilder uri = new StringBuilder();
+        uri.append(HNB_API_URI).append(CURRENCY_CODE_PARAM).append('=').append(currencyCode);
+        if (date != null) {
+            uri.append('&').append(DATE_PARAM).append('=').append(date.format(DATE_FORMAT));
+        }
+        return uri.toString();
+    }
 
-        // Check status code
+    /**
+     * Parse response body, if response status is HTTP OK
+     * @param response {@link org.springframework.http.client.ClientHttpResponse} object
+     * @param parser Response body parser
+     * @return Parsed response body. If response status is not HTTP OK or if response body is invalid, null will be returned.
+     * @throws IOException If response body cannot be read
+     */
+    private <T> T parse(final ClientHttpResponse response, final ResponseParser<T> parser) throws IOException {
         if (!response.getStatusCode().equals(HttpStatus.OK)) {
-            // Something went wrong
             log.info("Response code is " + response.getStatusCode());
             return null;
         }
 
-        String avgConversionRate = null;
-        try {
-            // Parse response body as JSON
-            final JSONArray jsonArray = new JSONArray(response.getBody());
-            avgConversionRate = jsonArray.getJSONObject(0).getString(AVG_CONVERSION_RATE_NODE);
-        } catch (final JSONException e) {
-            log.warn("There was a problem parsing response JSON: " + e.getMessage());
-            return null;
-        }
+        return parse(response.getBody(), parser);
+    }
 
+    /**
+     * Parse response body
+     * @param body Response body
+     * @param parser Response body parser
+     * @return Parsed response body. If response body is not valid, null will be returned.
+     * @throws IOException If response body cannot be read
+     */
+    <T> T parse(final InputStream body, final ResponseParser<T> parser) throws IOException {
         try {
-            return new BigDecimal(avgConversionRate.replaceAll(",", "."));
-        } catch (final NumberFormatException e) {
-            log.warn("Response body field for avg conversion rate does not contain a decimal number");
+            return parser.parse(body);
+        } catch (final JsonProcessingException | NumberFormatException | DateTimeParseException e) {
+            log.warn("There was a problem parsing response: " + e.getMessage());
             return null;
         }
     }
 
+    @FunctionalInterface
+    interface ResponseParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    private static Timer fetchTimer(final String outcome, final MeterRegistry meterRegistry) {
+        return Timer.builder(FETCH_TIMER)
+                .description("HNB API requests (conversion rate and rate list fetches)")
+                .tag(OUTCOME_TAG, outcome)
+                .register(meterRegistry);
+    }
 }
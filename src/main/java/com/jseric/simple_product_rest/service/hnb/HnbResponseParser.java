@@ -0,0 +1,148 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser of HNB API responses (JSON array of exchange rate objects).
+ * Response body is read token by token, without buffering it or building a JSON tree, and only the needed fields
+ * are converted to values.
+ */
+final class HnbResponseParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String AVG_CONVERSION_RATE_FIELD = "Srednji za devize";
+    private static final String CURRENCY_CODE_FIELD = "Valuta";
+    private static final String UNIT_FIELD = "Jedinica";
+    private static final String DATE_FIELD = "Datum primjene";
+
+    // HNB API formats numbers and dates in Croatian locale
+    private static final char DECIMAL_SEPARATOR = ',';
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private HnbResponseParser() {
+    }
+
+    /**
+     * Read average conversion rate of the first exchange rate in the response
+     * @param body Response body
+     * @return Average conversion rate, or null if response contains no exchange rates
+     * @throws JsonParseException If body is not a JSON array of objects, or the first object has no average conversion rate
+     * @throws NumberFormatException If average conversion rate is not a decimal number
+     */
+    static BigDecimal parseConversionRate(final InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expect(parser, JsonToken.START_ARRAY);
+            if (parser.nextToken() == JsonToken.END_ARRAY) {
+                return null;
+            }
+            expectCurrent(parser, JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (AVG_CONVERSION_RATE_FIELD.equals(fieldName)) {
+                    // Rest of the response is not needed
+                    return parseDecimal(parser);
+                }
+                parser.skipChildren();
+            }
+            throw new JsonParseException(parser, "Field " + AVG_CONVERSION_RATE_FIELD + " is missing");
+        }
+    }
+
+    /**
+     * Read all exchange rates in the response
+     * @param body Response body
+     * @return Exchange rates
+     * @throws JsonParseException If body is not a JSON array of objects, or a required field is missing
+     * @throws NumberFormatException If average conversion rate is not a decimal number
+     * @throws java.time.format.DateTimeParseException If date of application is not a valid date
+     */
+    static List<ExchangeRate> parseExchangeRates(final InputStream body) throws IOException {
+        final List<ExchangeRate> exchangeRates = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expect(parser, JsonToken.START_ARRAY);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                expectCurrent(parser, JsonToken.START_OBJECT);
+                exchangeRates.add(parseExchangeRate(parser));
+            }
+        }
+        return exchangeRates;
+    }
+
+    private static ExchangeRate parseExchangeRate(final JsonParser parser) throws IOException {
+        String currencyCode = null;
+        LocalDate date = null;
+        Integer unit = null;
+        BigDecimal middleRate = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case CURRENCY_CODE_FIELD:
+                    currencyCode = parser.getText();
+                    break;
+                case DATE_FIELD:
+                    date = LocalDate.parse(parser.getText(), DATE_FORMAT);
+                    break;
+                case UNIT_FIELD:
+                    unit = parser.getValueAsInt();
+                    break;
+                case AVG_CONVERSION_RATE_FIELD:
+                    middleRate = parseDecimal(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (currencyCode == null || date == null || unit == null || middleRate == null) {
+            throw new JsonParseException(parser, "Exchange rate is missing a required field");
+        }
+        return new ExchangeRate(currencyCode, date, unit, middleRate);
+    }
+
+    /**
+     * Parse decimal number with decimal comma (e.g. "7,534500") from the parser's text buffer.
+     * Characters are copied once, with the decimal separator replaced, so no intermediate String or regex is created.
+     */
+    private static BigDecimal parseDecimal(final JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            throw new NumberFormatException("Decimal number must be a string");
+        }
+
+        final char[] text = parser.getTextCharacters();
+        final int offset = parser.getTextOffset();
+        final int length = parser.getTextLength();
+
+        final char[] number = new char[length];
+        for (int i = 0; i < length; i++) {
+            final char c = text[offset + i];
+            number[i] = c == DECIMAL_SEPARATOR ? '.' : c;
+        }
+        return new BigDecimal(number);
+    }
+
+    private static void expect(final JsonParser parser, final JsonToken token) throws IOException {
+        parser.nextToken();
+        expectCurrent(parser, token);
+    }
+
+    private static void expectCurrent(final JsonParser parser, final JsonToken token) throws IOException {
+        if (parser.currentToken() != token) {
+            throw new JsonParseException(parser, "Expected " + token + " but found " + parser.currentToken());
+        }
+    }
+}
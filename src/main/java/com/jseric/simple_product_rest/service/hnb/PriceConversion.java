@@ -0,0 +1,40 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import com.jseric.simple_product_rest.model.fe.ConvertedPrice;
+import com.jseric.simple_product_rest.model.fe.ConvertedProductWrapper;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Conversion of HRK prices to another currency, with a single exchange rate
+ */
+@AllArgsConstructor @Getter @ToString
+public class PriceConversion {
+    private final ExchangeRate exchangeRate;
+
+    /**
+     * Convert HRK prices of Products. Products are copied, the given Products are not modified.
+     * @param products Products (Products without HRK price are returned as they are)
+     * @return Products with converted prices
+     */
+    public List<ProductWrapper> apply(final List<ProductWrapper> products) {
+        return products.stream().map(this::apply).collect(Collectors.toList());
+    }
+
+    private ProductWrapper apply(final ProductWrapper product) {
+        if (product.getPriceHrk() == null) {
+            return product;
+        }
+
+        return new ConvertedProductWrapper(product, new ConvertedPrice(
+                exchangeRate.getCurrencyCode(),
+                exchangeRate.getDate(),
+                product.getPriceHrk().divide(exchangeRate.getRatePerUnit(), 2, RoundingMode.HALF_EVEN)));
+    }
+}
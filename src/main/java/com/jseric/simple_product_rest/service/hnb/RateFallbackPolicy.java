@@ -0,0 +1,11 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+/**
+ * What to do when conversion rate cannot be fetched from HNB API (HNB API is failing, or the circuit breaker is open)
+ */
+public enum RateFallbackPolicy {
+    // Use the latest known rate of the currency
+    STALE_RATE,
+    // Use no rate, so that requests which need the rate are rejected
+    REJECT
+}
@@ -0,0 +1,83 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import com.jseric.simple_product_rest.service.hnb.CurrencyConversionService.ConversionRateKey;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of {@link com.jseric.simple_product_rest.service.hnb.CurrencyConversionService}, used by the
+ * reactive profile. Conversion rates are cached in (and shared with) CurrencyConversionService, so scheduled rate
+ * refreshes and fallback to the latest known rate work the same way.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveCurrencyConversionService {
+    private static final String EUR_CC = "EUR";
+
+    private final CurrencyConversionService currencyConversionService;
+    private final ReactiveHnbCommunicator reactiveHnbCommunicator;
+
+    // Fetches which are currently in progress, shared between all subscribers waiting for the same rate
+    private final ConcurrentMap<ConversionRateKey, Mono<BigDecimal>> pendingFetches = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReactiveCurrencyConversionService(final CurrencyConversionService currencyConversionService,
+                                             final ReactiveHnbCommunicator reactiveHnbCommunicator) {
+        this.currencyConversionService = currencyConversionService;
+        this.reactiveHnbCommunicator = reactiveHnbCommunicator;
+    }
+
+    /**
+     * Convert value in HRK currency to price in EUR currency.
+     * @param hrk Value in HRK currency
+     * @return Converted rate. Invalid value is returned if HRK value is null
+     *         (see {@link CurrencyConversionService#convertHrkToEur(java.math.BigDecimal, java.math.BigDecimal)}).
+     *         Empty {@link reactor.core.publisher.Mono} is returned if conversion rate cannot be fetched, so that
+     *         a product is never saved with an invalid EUR price.
+     */
+    public Mono<BigDecimal> convertHrkToEur(final BigDecimal hrk) {
+        if (hrk == null || hrk.compareTo(BigDecimal.ZERO) == 0) {
+            // Conversion rate is not needed
+            return Mono.just(currencyConversionService.convertHrkToEur(hrk, null));
+        }
+
+        return fetchConversionRate(EUR_CC, CurrencyConversionService.today())
+                .map(rate -> currencyConversionService.convertHrkToEur(hrk, rate));
+    }
+
+    /**
+     * Get conversion rate for desired currency and date.
+     * Cached rate is returned if it exists. Otherwise, the rate is fetched from HNB API, with concurrent subscribers
+     * waiting on the same fetch instead of sending their own requests.
+     * @param currencyCode Currency code
+     * @param date Date of application
+     * @return Conversion rate. If it cannot be fetched, the latest known rate for the currency is returned.
+     *         Empty {@link reactor.core.publisher.Mono} is returned if no rate is known.
+     */
+    public Mono<BigDecimal> fetchConversionRate(final String currencyCode, final LocalDate date) {
+        final ConversionRateKey key = new ConversionRateKey(currencyCode, date);
+
+        final BigDecimal cachedRate = currencyConversionService.getCachedConversionRate(key);
+        if (cachedRate != null) {
+            return Mono.just(cachedRate);
+        }
+
+        return pendingFetches.computeIfAbsent(key, this::loadConversionRate);
+    }
+
+    private Mono<BigDecimal> loadConversionRate(final ConversionRateKey key) {
+        return reactiveHnbCommunicator.fetchConversionRate(key.getCurrencyCode(), CurrencyConversionService.hnbRequestDate(key))
+                .doOnNext(rate -> currencyConversionService.putConversionRate(key, rate))
+                .switchIfEmpty(Mono.fromSupplier(() -> currencyConversionService.fallbackConversionRate(key)))
+                .doFinally(signal -> pendingFetches.remove(key))
+                .cache();
+    }
+}
@@ -0,0 +1,72 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveHnbCommunicator {
+    private final WebClient webClient;
+
+    // Used for building request URIs and parsing responses, same as for blocking requests
+    private final HnbCommunicator hnbCommunicator;
+
+    // Shared with blocking requests, so that both see the same state of HNB API
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Retry retry;
+
+    @Autowired
+    public ReactiveHnbCommunicator(@Qualifier("hnbWebClient") final WebClient webClient,
+                                   final HnbCommunicator hnbCommunicator,
+                                   @Qualifier("hnbCircuitBreaker") final CircuitBreaker circuitBreaker,
+                                   @Qualifier("hnbBulkhead") final Bulkhead bulkhead,
+                                   @Qualifier("hnbRetry") final Retry retry) {
+        this.webClient = webClient;
+        this.hnbCommunicator = hnbCommunicator;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.retry = retry;
+    }
+
+    /**
+     * Send non-blocking GET request to HNB API to get average conversion rate for desired currencyCode and date
+     * @param currencyCode Currency code
+     * @param date Date (null for today)
+     * @return Average conversion rate. Empty {@link reactor.core.publisher.Mono} will be returned in case of any error.
+     */
+    public Mono<BigDecimal> fetchConversionRate(final String currencyCode, final LocalDate date) {
+        final String uri = hnbCommunicator.conversionRateUri(currencyCode, date);
+
+        log.info("Sending a GET request to " + uri);
+
+        return webClient.get()
+                .uri(uri)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry))
+                .flatMap(body -> Mono.fromCallable(() -> hnbCommunicator.parse(
+                        new ByteArrayInputStream(body), HnbResponseParser::parseConversionRate)))
+                .onErrorResume(e -> {
+                    log.error("Exception thrown when sending a GET request to " + uri + ": " + e.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
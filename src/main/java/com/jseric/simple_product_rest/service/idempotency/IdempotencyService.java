@@ -0,0 +1,281 @@
+package com.jseric.simple_product_rest.service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.security.MessageDigest;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@Profile("!reactive")
+public class IdempotencyService {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String CACHE_NAME = "idempotency-keys";
+
+    private static final String REQUEST_COUNTER = "idempotency.requests";
+    private static final String OUTCOME_TAG = "outcome";
+
+    private static final String ERR_INVALID_KEY = IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters long;";
+    private static final String ERR_KEY_REUSED = IDEMPOTENCY_KEY_HEADER + " was already used for a different request;";
+    private static final String ERR_IN_PROGRESS = "request with this " + IDEMPOTENCY_KEY_HEADER + " is still in progress;";
+    private static final String ERR_NOT_REPLAYABLE = "request with this " + IDEMPOTENCY_KEY_HEADER
+            + " was already run, but its response is too large to be replayed;";
+
+    // Approximate size (in bytes) of a stored request without its key and response body
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final ObjectMapper objectMapper;
+    private final int maxResponseBytes;
+
+    // Requests by client, operation and idempotency key
+    private final Cache<String, IdempotentRequest> requests;
+
+    private final Counter executedCounter;
+    private final Counter replayedCounter;
+    private final Counter inProgressCounter;
+    private final Counter keyReusedCounter;
+    private final Counter notReplayableCounter;
+
+    /**
+     * Store of write requests sent with an Idempotency-Key header, and of their responses.
+     * A repeated request (same client, operation, key and request body) gets the stored response, without being run again.
+     * Response bodies are stored serialized to JSON, and the store is bounded by their total size. Entries are evicted
+     * when the store is full (least recently used first) and after TTL expires. Responses larger than maxResponseBytes
+     * are not stored; only the key is kept, so that the request is not run again.
+     * @param maxWeightBytes Max total size (in bytes, approximately) of stored requests and their responses
+     * @param maxResponseBytes Max size (in bytes) of a stored response body
+     * @param ttlSeconds Time (in seconds) for which a request is stored
+     * @param objectMapper {@link com.fasterxml.jackson.databind.ObjectMapper} used to hash request bodies
+     * @param meterRegistry {@link io.micrometer.core.instrument.MeterRegistry}
+     */
+    @Autowired
+    public IdempotencyService(
+            @Value("${com.jseric.simple_product_rest.idempotency.max-weight-bytes:67108864}") final long maxWeightBytes,
+            @Value("${com.jseric.simple_product_rest.idempotency.max-response-bytes:1048576}") final int maxResponseBytes,
+            @Value("${com.jseric.simple_product_rest.idempotency.ttl-seconds:86400}") final long ttlSeconds,
+            final ObjectMapper objectMapper,
+            final MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.maxResponseBytes = maxResponseBytes;
+        requests = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, IdempotentRequest idempotentRequest) -> idempotentRequest.weight(key))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, requests, CACHE_NAME);
+
+        executedCounter = requestCounter("executed", meterRegistry);
+        replayedCounter = requestCounter("replayed", meterRegistry);
+        inProgressCounter = requestCounter("in_progress", meterRegistry);
+        keyReusedCounter = requestCounter("key_reused", meterRegistry);
+        notReplayableCounter = requestCounter("not_replayable", meterRegistry);
+    }
+
+    /**
+     * Run request at most once per idempotency key.
+     * If the key is new, request is run and its response is stored (unless it is a server error, so that it can be
+     * retried). If the same request was already run with the key, its stored response is returned, with the
+     * Idempotent-Replayed header. If the key was used for a different request, HTTP 422 is returned, and if the first
+     * request with the key has not finished yet (or its response was too large to be stored), HTTP 409 is returned.
+     * @param client Identity of the client (see {@link com.jseric.simple_product_rest.filter.RateLimitFilter#clientKey});
+     *               keys are unique per client, so a client never gets a response stored for another client
+     * @param idempotencyKey Value of Idempotency-Key header. If null, request is always run.
+     * @param operation Method and path of the request; keys are unique per operation
+     * @param reqBody Request body
+     * @param request Request
+     * @param errorBody Function which creates response body with the given error message
+     * @return Response
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> execute(final String client, final String idempotencyKey,
+                                                            final String operation, final Object reqBody,
+                                                            final Supplier<CompletableFuture<ResponseEntity<T>>> request,
+                                                            final Function<String, T> errorBody) {
+        if (idempotencyKey == null) {
+            return request.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return error(errorBody, ERR_INVALID_KEY, HttpStatus.BAD_REQUEST);
+        }
+
+        final String key = client + ' ' + operation + ' ' + idempotencyKey;
+        final IdempotentRequest idempotentRequest = new IdempotentRequest(fingerprint(reqBody));
+        final IdempotentRequest storedRequest = requests.asMap().putIfAbsent(key, idempotentRequest);
+        if (storedRequest != null) {
+            return replay(storedRequest, idempotentRequest, errorBody);
+        }
+
+        log.debug("Running request with idempotency key " + key);
+        executedCounter.increment();
+        final CompletableFuture<ResponseEntity<T>> rspFuture;
+        try {
+            rspFuture = request.get();
+        } catch (final RuntimeException e) {
+            requests.asMap().remove(key, idempotentRequest);
+            throw e;
+        }
+
+        return rspFuture.whenComplete((rsp, e) -> {
+            if (e != null || rsp.getStatusCode().is5xxServerError()) {
+                // Nothing was changed (or it is unknown whether it was), so the request may be retried with the same key
+                requests.asMap().remove(key, idempotentRequest);
+                idempotentRequest.response.complete(null);
+            } else {
+                final StoredResponse storedRsp = store(rsp);
+                idempotentRequest.response.complete(storedRsp);
+                // Entry is replaced, so that it is weighed again with its response
+                requests.asMap().replace(key, idempotentRequest,
+                        new IdempotentRequest(idempotentRequest.fingerprint, storedRsp));
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        requests.invalidateAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<ResponseEntity<T>> replay(final IdempotentRequest storedRequest,
+                                                            final IdempotentRequest idempotentRequest,
+                                                            final Function<String, T> errorBody) {
+        if (!Arrays.equals(storedRequest.fingerprint, idempotentRequest.fingerprint)) {
+            keyReusedCounter.increment();
+            return error(errorBody, ERR_KEY_REUSED, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        final StoredResponse storedRsp = storedRequest.response.getNow(null);
+        if (storedRsp == null) {
+            inProgressCounter.increment();
+            return error(errorBody, ERR_IN_PROGRESS, HttpStatus.CONFLICT);
+        }
+
+        final T body;
+        try {
+            body = storedRsp.body == null ? null : (T) objectMapper.readValue(storedRsp.body, storedRsp.bodyType);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Stored response cannot be read", e);
+        }
+        if (storedRsp.bodyType != null && body == null) {
+            notReplayableCounter.increment();
+            return error(errorBody, ERR_NOT_REPLAYABLE, HttpStatus.CONFLICT);
+        }
+
+        log.debug("Replaying stored response");
+        replayedCounter.increment();
+        final HttpHeaders headers = new HttpHeaders();
+        headers.addAll(storedRsp.headers);
+        headers.set(REPLAYED_HEADER, "true");
+        return CompletableFuture.completedFuture(new ResponseEntity<>(body, headers, storedRsp.status));
+    }
+
+    /**
+     * Response with its body serialized to JSON. Body is not stored if it is larger than maxResponseBytes
+     * (or cannot be serialized), and only its type is kept.
+     */
+    private StoredResponse store(final ResponseEntity<?> rsp) {
+        final Object rspBody = rsp.getBody();
+        if (rspBody == null) {
+            return new StoredResponse(rsp.getStatusCode(), rsp.getHeaders(), null, null);
+        }
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(rspBody);
+        } catch (final JsonProcessingException e) {
+            log.warn("Response body cannot be stored", e);
+            body = null;
+        }
+        if (body != null && body.length > maxResponseBytes) {
+            log.info("Response body of " + body.length + " bytes is too large to be stored");
+            body = null;
+        }
+        return new StoredResponse(rsp.getStatusCode(), rsp.getHeaders(), rspBody.getClass(), body);
+    }
+
+    private static <T> CompletableFuture<ResponseEntity<T>> error(final Function<String, T> errorBody,
+                                                                  final String errorMessage, final HttpStatus status) {
+        log.info("Idempotency check failed: " + errorMessage);
+        return CompletableFuture.completedFuture(new ResponseEntity<>(errorBody.apply(errorMessage), status));
+    }
+
+    /**
+     * SHA-256 hash of the request body serialized to JSON, so that only a small digest is stored per key
+     */
+    private byte[] fingerprint(final Object reqBody) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(reqBody));
+        } catch (final JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request body cannot be hashed", e);
+        }
+    }
+
+    private static Counter requestCounter(final String outcome, final MeterRegistry meterRegistry) {
+        return Counter.builder(REQUEST_COUNTER)
+                .description("Write requests with an idempotency key, by outcome")
+                .tag(OUTCOME_TAG, outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stored request: hash of its body and its response (completed with null if the response was not stored)
+     */
+    private static final class IdempotentRequest {
+        private final byte[] fingerprint;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        private IdempotentRequest(final byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private IdempotentRequest(final byte[] fingerprint, final StoredResponse response) {
+            this.fingerprint = fingerprint;
+            this.response.complete(response);
+        }
+
+        private int weight(final String key) {
+            final StoredResponse storedRsp = response.getNow(null);
+            final int bodyLength = storedRsp == null || storedRsp.body == null ? 0 : storedRsp.body.length;
+            return ENTRY_OVERHEAD_BYTES + 2 * key.length() + fingerprint.length + bodyLength;
+        }
+    }
+
+    /**
+     * Stored response: body is null if the response had no body, or if it was not stored (then bodyType is not null)
+     */
+    private static final class StoredResponse {
+        private final HttpStatus status;
+        private final HttpHeaders headers;
+        private final Class<?> bodyType;
+        private final byte[] body;
+
+        private StoredResponse(final HttpStatus status, final HttpHeaders headers, final Class<?> bodyType,
+                               final byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.bodyType = bodyType;
+            this.body = body;
+        }
+    }
+}
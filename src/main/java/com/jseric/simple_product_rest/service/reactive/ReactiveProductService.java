@@ -0,0 +1,319 @@
+package com.jseric.simple_product_rest.service.reactive;
+
+import com.jseric.simple_product_rest.model.fe.CreateProductRequest;
+import com.jseric.simple_product_rest.model.fe.CreateProductResponse;
+import com.jseric.simple_product_rest.model.fe.FetchProductResponse;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.ProductRecord;
+import com.jseric.simple_product_rest.repository.reactive.ReactiveProductRepository;
+import com.jseric.simple_product_rest.service.hnb.ReactiveCurrencyConversionService;
+import com.jseric.simple_product_rest.service.validation.ProductValidationService;
+import io.r2dbc.postgresql.api.PostgresqlException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of {@link com.jseric.simple_product_rest.service.ProductService}, used by the reactive profile
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveProductService {
+    // Number of rows fetched from the database at once when streaming Products
+    private static final int FETCH_SIZE = 500;
+
+    // Partial unique index on code of non-deleted products
+    private static final String CODE_UNIQUE_CONSTRAINT = "product_code_uq";
+
+    private static final String ERR_CONVERSION_RATE_UNAVAILABLE = "conversion rate is not available, try again later;";
+
+    private final ReactiveProductRepository reactiveProductRepository;
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final ProductValidationService productValidationService;
+    private final ReactiveCurrencyConversionService reactiveCurrencyConversionService;
+
+    @Autowired
+    public ReactiveProductService(
+            final ReactiveProductRepository reactiveProductRepository,
+            final R2dbcEntityTemplate r2dbcEntityTemplate,
+            final ProductValidationService productValidationService,
+            final ReactiveCurrencyConversionService reactiveCurrencyConversionService) {
+        this.reactiveProductRepository = reactiveProductRepository;
+        this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+        this.productValidationService = productValidationService;
+        this.reactiveCurrencyConversionService = reactiveCurrencyConversionService;
+    }
+
+    /**
+     * Create and save new Product
+     * @param reqBody {@link com.jseric.simple_product_rest.model.fe.CreateProductRequest}
+     * @return {@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.CreateProductResponse}&gt;
+     */
+    public Mono<ResponseEntity<CreateProductResponse>> createAndSave(final CreateProductRequest reqBody) {
+        final CreateProductResponse rspBody = new CreateProductResponse();
+
+        if (reqBody == null || reqBody.getProduct() == null) {
+            log.error("Request body is empty!");
+            rspBody.setErrorMessage("request body is empty;");
+            return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+        }
+
+        final ProductWrapper requestData = reqBody.getProduct();
+
+        // Validate data
+        log.info("Validating new Product data");
+        final String errorMessage = productValidationService.validateCreateUpdateRequest(requestData);
+        if (!errorMessage.isEmpty()) {
+            log.info("Data validation failed. Errors exist.");
+            log.trace("errorMessage :: " + errorMessage);
+            rspBody.setErrorMessage(errorMessage);
+            return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+        }
+
+        // Fetch price in EUR currency and save product (code uniqueness is enforced by the database).
+        // Product is not saved with an invalid EUR price if conversion rate is not available.
+        log.info("Converting price in HRK to EUR");
+        return convertHrkToEur(requestData.getPriceHrk())
+                .flatMap(priceEur -> {
+                    if (priceEur.isEmpty()) {
+                        return conversionRateUnavailable(rspBody);
+                    }
+
+                    final LocalDateTime now = LocalDateTime.now();
+                    final ProductRecord product = new ProductRecord()
+                            .setCode(requestData.getCode())
+                            .setName(requestData.getName())
+                            .setPriceHrk(requestData.getPriceHrk())
+                            .setPriceEur(priceEur.get())
+                            .setDescription(requestData.getDescription())
+                            .setIsAvailable(requestData.getIsAvailable())
+                            .setCreatedTimestamp(now)
+                            .setUpdatedTimestamp(now);
+
+                    log.info("Saving new product");
+                    log.debug(product.toString());
+                    return reactiveProductRepository.insert(product)
+                            .map(savedProduct -> {
+                                rspBody.setProduct(new ProductWrapper(savedProduct));
+                                return new ResponseEntity<>(rspBody, HttpStatus.CREATED);
+                            });
+                })
+                .onErrorResume(ReactiveProductService::isCodeConflict, e -> codeConflict(rspBody));
+    }
+
+    /**
+     * Update existing Product.
+     * If version is set in request body, Product is updated only if it wasn't changed in the meantime.
+     * @param productId Product ID (in {@link java.lang.String} format)
+     * @param reqBody {@link com.jseric.simple_product_rest.model.fe.CreateProductRequest}
+     * @return {@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.CreateProductResponse}&gt;
+     */
+    public Mono<ResponseEntity<CreateProductResponse>> update(final String productId, final CreateProductRequest reqBody) {
+        final CreateProductResponse rspBody = new CreateProductResponse();
+
+        if (reqBody == null || reqBody.getProduct() == null) {
+            log.error("Request body is empty!");
+            rspBody.setErrorMessage("request body is empty;");
+            return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+        }
+        final ProductWrapper requestData = reqBody.getProduct();
+
+        if (StringUtils.isEmpty(productId)) {
+            log.debug("productId is empty");
+            rspBody.setErrorMessage("productId is empty;");
+            return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND));
+        }
+
+        final Long id;
+        try {
+            id = Long.parseLong(productId);
+        } catch (final NumberFormatException e) {
+            log.error("productId is not a number!");
+            rspBody.setErrorMessage("invalid productId;");
+            return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND));
+        }
+
+        // Validate data
+        log.info("Validating Product data");
+        final String errorMessage = productValidationService.validateCreateUpdateRequest(requestData);
+        if (!errorMessage.isEmpty()) {
+            log.info("Data validation failed. Errors exist.");
+            log.trace("errorMessage :: " + errorMessage);
+            rspBody.setErrorMessage(errorMessage);
+            return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+        }
+
+        // Fetch price in EUR currency and update product with a single statement.
+        // Product is not saved with an invalid EUR price if conversion rate is not available.
+        log.info("Converting price in HRK to EUR");
+        return convertHrkToEur(requestData.getPriceHrk())
+                .flatMap(priceEur -> {
+                    if (priceEur.isEmpty()) {
+                        return conversionRateUnavailable(rspBody);
+                    }
+
+                    final ProductRecord product = new ProductRecord()
+                            .setId(id)
+                            .setCode(requestData.getCode())
+                            .setName(requestData.getName())
+                            .setPriceHrk(requestData.getPriceHrk())
+                            .setPriceEur(priceEur.get())
+                            .setDescription(requestData.getDescription())
+                            .setIsAvailable(requestData.getIsAvailable())
+                            .setVersion(requestData.getVersion());
+
+                    log.info("Saving updated product");
+                    log.debug(product.toString());
+                    return reactiveProductRepository.updateIfActive(product)
+                            .map(updatedProduct -> {
+                                rspBody.setProduct(new ProductWrapper(updatedProduct));
+                                return new ResponseEntity<>(rspBody, HttpStatus.OK);
+                            })
+                            .switchIfEmpty(Mono.defer(() -> updateFailed(id, requestData, rspBody)));
+                })
+                .onErrorResume(ReactiveProductService::isCodeConflict, e -> codeConflict(rspBody));
+    }
+
+    /**
+     * Delete Product
+     * @param productId Product ID (in {@link java.lang.String} format)
+     * @return {@link org.springframework.http.ResponseEntity}&lt;&gt;
+     */
+    public Mono<ResponseEntity<Object>> delete(final String productId) {
+        if (StringUtils.isEmpty(productId)) {
+            log.debug("productId is empty");
+            return Mono.just(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
+
+        final Long id;
+        try {
+            id = Long.parseLong(productId);
+        } catch (final NumberFormatException e) {
+            log.error("productId is not a number!");
+            return Mono.just(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
+
+        // Delete product
+        log.info("Deleting product");
+        return reactiveProductRepository.softDeleteById(id)
+                .map(deletedCount -> {
+                    if (deletedCount == 0) {
+                        log.info("Product with ID not found");
+                        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                    }
+                    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+                });
+    }
+
+    /**
+     * Stream all Products, ordered by ID.
+     * Rows are fetched from the database in chunks as the client consumes them, so a slow client doesn't cause
+     * the whole catalog to be buffered in memory.
+     * @return {@link reactor.core.publisher.Flux}&lt;{@link com.jseric.simple_product_rest.model.fe.ProductWrapper}&gt;
+     */
+    public Flux<ProductWrapper> fetchAll() {
+        return r2dbcEntityTemplate.getDatabaseClient()
+                .sql("SELECT * FROM product WHERE deleted IS NULL ORDER BY id")
+                .filter((statement, next) -> next.execute(statement.fetchSize(FETCH_SIZE)))
+                .map((row, metadata) -> r2dbcEntityTemplate.getConverter().read(ProductRecord.class, row, metadata))
+                .all()
+                .map(ProductWrapper::new);
+    }
+
+    /**
+     * Fetch Product by ID
+     * @param productId Product ID (in {@link java.lang.String} format)
+     * @return {@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.FetchProductResponse}&gt;
+     */
+    public Mono<ResponseEntity<FetchProductResponse>> fetchById(final String productId) {
+        final FetchProductResponse rspBody = new FetchProductResponse();
+
+        if (StringUtils.isEmpty(productId)) {
+            log.debug("productId is empty");
+            rspBody.setErrorMessage("productId is empty;");
+            return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND));
+        }
+
+        final Long id;
+        try {
+            id = Long.parseLong(productId);
+        } catch (final NumberFormatException e) {
+            log.error("productId is not a number!");
+            return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND));
+        }
+
+        return reactiveProductRepository.findActiveById(id)
+                .map(product -> {
+                    rspBody.setProducts(Arrays.asList(new ProductWrapper(product)));
+                    return new ResponseEntity<>(rspBody, HttpStatus.OK);
+                })
+                .defaultIfEmpty(new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Build response for update which didn't change any Product: Product doesn't exist or its version differs
+     */
+    private Mono<ResponseEntity<CreateProductResponse>> updateFailed(final Long id, final ProductWrapper requestData,
+                                                                     final CreateProductResponse rspBody) {
+        final Mono<Boolean> versionMismatch = requestData.getVersion() == null
+                ? Mono.just(false)
+                : reactiveProductRepository.existsActiveById(id);
+
+        return versionMismatch.map(productExists -> {
+            if (productExists) {
+                log.info("Product with ID = " + id + " has version different than " + requestData.getVersion());
+                rspBody.setErrorMessage("product was modified by another request;");
+                return new ResponseEntity<>(rspBody, HttpStatus.CONFLICT);
+            }
+
+            log.warn("Product with ID = " + id + " not found");
+            rspBody.setErrorMessage("product was not found;");
+            return new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND);
+        });
+    }
+
+    /**
+     * Convert price in HRK to EUR. Empty {@link java.util.Optional} is emitted if conversion rate is not available.
+     */
+    private Mono<Optional<BigDecimal>> convertHrkToEur(final BigDecimal priceHrk) {
+        return reactiveCurrencyConversionService.convertHrkToEur(priceHrk)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private static Mono<ResponseEntity<CreateProductResponse>> conversionRateUnavailable(final CreateProductResponse rspBody) {
+        log.warn("Conversion rate is not available");
+        rspBody.setErrorMessage(ERR_CONVERSION_RATE_UNAVAILABLE);
+        return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    private static Mono<ResponseEntity<CreateProductResponse>> codeConflict(final CreateProductResponse rspBody) {
+        log.info("Code is not unique. Another object with same code field was found");
+        rspBody.setErrorMessage("another object with same code field already exists in system;");
+        return Mono.just(new ResponseEntity<>(rspBody, HttpStatus.CONFLICT));
+    }
+
+    /**
+     * Check if exception was caused by violation of the unique index on Product code
+     */
+    private static boolean isCodeConflict(final Throwable e) {
+        return e instanceof DataIntegrityViolationException
+                && e.getCause() instanceof PostgresqlException
+                && ((PostgresqlException) e.getCause()).getErrorDetails().getConstraintName()
+                        .map(CODE_UNIQUE_CONSTRAINT::equals)
+                        .orElse(false);
+    }
+}
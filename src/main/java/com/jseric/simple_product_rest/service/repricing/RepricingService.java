@@ -0,0 +1,299 @@
+package com.jseric.simple_product_rest.service.repricing;
+
+import com.jseric.simple_product_rest.model.product.RepricingJob;
+import com.jseric.simple_product_rest.model.product.RepricingJobStatus;
+import com.jseric.simple_product_rest.repository.RepricingRepository;
+import com.jseric.simple_product_rest.service.cache.ProductCache;
+import com.jseric.simple_product_rest.service.hnb.CurrencyConversionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+@Slf4j
+@Service
+@Profile("!reactive")
+public class RepricingService {
+    private static final String UPDATED_COUNTER = "product.repricing.updated";
+    private static final String CHUNK_TIMER = "product.repricing.chunk";
+
+    private final RepricingRepository repricingRepository;
+    private final CurrencyConversionService currencyConversionService;
+    private final ProductCache productCache;
+    private final TransactionOperations transactionOperations;
+    private final int chunkSize;
+    private final long throttleMs;
+    private final long retryDelayMs;
+    private final boolean enabled;
+
+    private final Counter updatedCounter;
+    private final Timer chunkTimer;
+
+    // Jobs (and their retries) run on their own thread, so that they don't hold up other scheduled tasks
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+
+    /**
+     * Background job which recomputes EUR prices of all Products with today's HRK to EUR rate.
+     * Products are re-priced set-based, in chunks of IDs: each chunk is a single short transaction, so rows are locked
+     * only briefly, and the job pauses between chunks so that it does not saturate the database.
+     * Progress is saved with every chunk, and an interrupted job is resumed from the last re-priced chunk.
+     * Each chunk transaction locks the job row, so that instances sharing the database never re-price at the same time.
+     * If today's rate is not published yet (or HNB API is down), or another instance is re-pricing, the job is retried
+     * after retryDelayMs.
+     * @param repricingRepository {@link com.jseric.simple_product_rest.repository.RepricingRepository}
+     * @param currencyConversionService {@link com.jseric.simple_product_rest.service.hnb.CurrencyConversionService}
+     * @param productCache {@link com.jseric.simple_product_rest.service.cache.ProductCache}, re-priced Products are evicted from it
+     * @param transactionOperations Transaction template for chunk transactions
+     * @param meterRegistry Registry of re-pricing metrics
+     * @param chunkSize Number of Product IDs in a chunk
+     * @param throttleMs Pause (in milliseconds) between chunks
+     * @param retryDelayMs Delay (in milliseconds) before a job which could not run is retried
+     * @param enabled Run scheduled job and resume interrupted job on startup
+     */
+    @Autowired
+    public RepricingService(
+            final RepricingRepository repricingRepository,
+            final CurrencyConversionService currencyConversionService,
+            final ProductCache productCache,
+            final TransactionOperations transactionOperations,
+            final MeterRegistry meterRegistry,
+            @Value("${com.jseric.simple_product_rest.repricing.chunk-size:2000}") final int chunkSize,
+            @Value("${com.jseric.simple_product_rest.repricing.throttle-ms:50}") final long throttleMs,
+            @Value("${com.jseric.simple_product_rest.repricing.retry-delay-ms:600000}") final long retryDelayMs,
+            @Value("${com.jseric.simple_product_rest.repricing.enabled:true}") final boolean enabled) {
+        this.repricingRepository = repricingRepository;
+        this.currencyConversionService = currencyConversionService;
+        this.productCache = productCache;
+        this.transactionOperations = transactionOperations;
+        this.chunkSize = chunkSize;
+        this.throttleMs = throttleMs;
+        this.retryDelayMs = retryDelayMs;
+        this.enabled = enabled;
+
+        updatedCounter = Counter.builder(UPDATED_COUNTER)
+                .description("Products whose EUR price was changed by re-pricing")
+                .register(meterRegistry);
+        chunkTimer = Timer.builder(CHUNK_TIMER)
+                .description("Re-pricing chunk transactions")
+                .register(meterRegistry);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "product-repricing");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resume today's job, if it was interrupted (or start it, if it did not run yet)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        if (enabled) {
+            startRepricing();
+        }
+    }
+
+    /**
+     * Re-price Products after the new day's rate takes effect
+     */
+    @Scheduled(cron = "${com.jseric.simple_product_rest.repricing.cron:0 15 0 * * *}", zone = "Europe/Zagreb")
+    public void scheduledRepricing() {
+        if (enabled) {
+            startRepricing();
+        }
+    }
+
+    /**
+     * Start re-pricing in the background, unless it is already running
+     */
+    public void startRepricing() {
+        try {
+            executor.execute(this::reprice);
+        } catch (final RejectedExecutionException e) {
+            log.warn("Re-pricing was not started, executor is shut down");
+        }
+    }
+
+    /**
+     * Re-price all Products with today's rate.
+     * Only a rate published for today is used, never a previous one; if it can't be fetched, the job is retried later.
+     * Completed job is not run again for the same rate. If the rate changed since the job was started, the job is
+     * restarted.
+     */
+    void reprice() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Re-pricing is already running");
+            return;
+        }
+
+        boolean retry = false;
+        try {
+            final LocalDate rateDate = CurrencyConversionService.today();
+            final BigDecimal rate = currencyConversionService.fetchTodaysEuroConversionRateWithoutFallback();
+            if (rate == null) {
+                log.warn("Re-pricing postponed, HRK to EUR rate for " + rateDate + " could not be fetched");
+                retry = true;
+                return;
+            }
+
+            final Optional<RepricingJob> existingJob = repricingRepository.findJob(rateDate);
+            if (existingJob.isPresent() && existingJob.get().getRate().compareTo(rate) == 0) {
+                if (existingJob.get().getStatus() == RepricingJobStatus.COMPLETED) {
+                    log.debug("Re-pricing for " + rateDate + " is already completed");
+                    return;
+                }
+                log.info("Resuming re-pricing for " + rateDate + " after Product ID " + existingJob.get().getLastProductId());
+            } else {
+                repricingRepository.startJob(rateDate, rate);
+                log.info("Starting re-pricing for " + rateDate + " with rate " + rate);
+            }
+
+            retry = !repriceChunks(rateDate, rate);
+        } catch (final RuntimeException e) {
+            // Job is resumed from the last re-priced chunk
+            log.error("Re-pricing failed: " + e.getMessage());
+            retry = true;
+        } finally {
+            running.set(false);
+            // Scheduled only after the job is no longer running, so that the retry is not skipped
+            if (retry) {
+                scheduleRetry();
+            }
+        }
+    }
+
+    /**
+     * Re-price Products chunk by chunk, starting after the last re-priced chunk of the job
+     * @return true if the job is finished (completed, or superseded by a job with another rate), false if it was
+     *         interrupted or another instance is re-pricing
+     */
+    private boolean repriceChunks(final LocalDate rateDate, final BigDecimal rate) {
+        while (true) {
+            // Chunk and job progress are committed together, while the job is locked
+            final ChunkResult result = chunkTimer.record(() -> transactionOperations.execute(status -> repriceNextChunk(rateDate, rate)));
+
+            switch (result.outcome) {
+                case LOCKED:
+                    log.info("Re-pricing for " + rateDate + " is running on another instance");
+                    return false;
+                case SUPERSEDED:
+                    log.info("Re-pricing for " + rateDate + " was restarted with another rate");
+                    return true;
+                case COMPLETED:
+                    log.info("Re-pricing for " + rateDate + " completed, " + result.job.getUpdatedCount() + " Products updated");
+                    return true;
+                default:
+                    break;
+            }
+
+            result.updatedIds.forEach(productCache::invalidate);
+            updatedCounter.increment(result.updatedIds.size());
+            log.debug("Re-priced Products up to ID " + result.lastProductId + ", " + result.updatedIds.size() + " updated");
+
+            if (throttleMs > 0) {
+                try {
+                    Thread.sleep(throttleMs);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.info("Re-pricing interrupted after Product ID " + result.lastProductId);
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lock the job and re-price the chunk after its last re-priced Product. Must be called in a transaction.
+     */
+    private ChunkResult repriceNextChunk(final LocalDate rateDate, final BigDecimal rate) {
+        final Optional<RepricingJob> job = repricingRepository.lockJob(rateDate);
+        if (job.isEmpty()) {
+            return new ChunkResult(ChunkOutcome.LOCKED, null, 0, null);
+        }
+        if (job.get().getRate().compareTo(rate) != 0) {
+            return new ChunkResult(ChunkOutcome.SUPERSEDED, job.get(), 0, null);
+        }
+        if (job.get().getStatus() == RepricingJobStatus.COMPLETED) {
+            return new ChunkResult(ChunkOutcome.COMPLETED, job.get(), 0, null);
+        }
+
+        final long chunkStart = job.get().getLastProductId();
+        final Optional<Long> chunkEnd = repricingRepository.findChunkEnd(chunkStart, chunkSize);
+        if (chunkEnd.isEmpty()) {
+            repricingRepository.completeJob(rateDate);
+            return new ChunkResult(ChunkOutcome.COMPLETED, job.get(), 0, null);
+        }
+
+        final List<Long> ids = repricingRepository.repriceChunk(chunkStart, chunkEnd.get(), rate);
+        repricingRepository.saveProgress(rateDate, chunkEnd.get(), ids.size());
+        return new ChunkResult(ChunkOutcome.REPRICED, job.get(), chunkEnd.get(), ids);
+    }
+
+    /**
+     * Run the job again after retryDelayMs, unless a retry is already scheduled
+     */
+    private void scheduleRetry() {
+        if (!retryScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        log.info("Re-pricing will be retried in " + retryDelayMs + " ms");
+        try {
+            executor.schedule(() -> {
+                retryScheduled.set(false);
+                reprice();
+            }, retryDelayMs, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            retryScheduled.set(false);
+            log.warn("Re-pricing retry was not scheduled, executor is shut down");
+        }
+    }
+
+    private enum ChunkOutcome {
+        REPRICED, COMPLETED, SUPERSEDED, LOCKED
+    }
+
+    /**
+     * Result of a chunk transaction: job as it was locked, and last ID and updated IDs of a re-priced chunk
+     */
+    private static final class ChunkResult {
+        private final ChunkOutcome outcome;
+        private final RepricingJob job;
+        private final long lastProductId;
+        private final List<Long> updatedIds;
+
+        private ChunkResult(final ChunkOutcome outcome, final RepricingJob job, final long lastProductId,
+                            final List<Long> updatedIds) {
+            this.outcome = outcome;
+            this.job = job;
+            this.lastProductId = lastProductId;
+            this.updatedIds = updatedIds;
+        }
+    }
+}
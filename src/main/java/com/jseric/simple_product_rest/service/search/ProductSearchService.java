@@ -0,0 +1,238 @@
+package com.jseric.simple_product_rest.service.search;
+
+import com.jseric.simple_product_rest.model.fe.ProductSearchRequest;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.fe.SearchProductResponse;
+import com.jseric.simple_product_rest.model.product.ProductSearchCriteria;
+import com.jseric.simple_product_rest.model.product.ProductSortField;
+import com.jseric.simple_product_rest.repository.ProductSearchRepository;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@Profile("!reactive")
+public class ProductSearchService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Trigram index cannot be used for shorter name substrings
+    private static final int MIN_NAME_LENGTH = 3;
+    private static final int MAX_FILTER_LENGTH = 64;
+
+    private static final String CURSOR_SEPARATOR = "|";
+
+    private final ProductSearchRepository productSearchRepository;
+
+    @Autowired
+    public ProductSearchService(final ProductSearchRepository productSearchRepository) {
+        this.productSearchRepository = productSearchRepository;
+    }
+
+    /**
+     * Search non-deleted Products by text, name, code prefix, price range and availability.
+     * Results are sorted by the requested field (and ID) and paginated with an opaque keyset cursor.
+     * Search runs in a read-only transaction, so it is served by a read replica, if replicas are configured.
+     * @param request {@link com.jseric.simple_product_rest.model.fe.ProductSearchRequest}
+     * @return {@link org.springframework.http.ResponseEntity}&lt;{@link com.jseric.simple_product_rest.model.fe.SearchProductResponse}&gt;
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<SearchProductResponse> search(final ProductSearchRequest request) {
+        final SearchProductResponse rspBody = new SearchProductResponse();
+        final StringBuilder errorMessage = new StringBuilder();
+        final ProductSearchCriteria criteria = new ProductSearchCriteria();
+
+        // Filters
+        if (StringUtils.isNotBlank(request.getQ())) {
+            if (request.getQ().length() > MAX_FILTER_LENGTH) {
+                errorMessage.append("q must not be longer than " + MAX_FILTER_LENGTH + " characters;");
+            }
+            criteria.setText(request.getQ().trim());
+        }
+
+        if (StringUtils.isNotBlank(request.getName())) {
+            final String name = request.getName().trim();
+            if (name.length() < MIN_NAME_LENGTH || name.length() > MAX_FILTER_LENGTH) {
+                errorMessage.append("name must have between " + MIN_NAME_LENGTH + " and " + MAX_FILTER_LENGTH + " characters;");
+            }
+            criteria.setName(name);
+        }
+
+        if (StringUtils.isNotBlank(request.getCodePrefix())) {
+            if (request.getCodePrefix().length() > MAX_FILTER_LENGTH) {
+                errorMessage.append("codePrefix must not be longer than " + MAX_FILTER_LENGTH + " characters;");
+            }
+            criteria.setCodePrefix(request.getCodePrefix().trim());
+        }
+
+        if (request.getCurrency() != null) {
+            if (request.getCurrency().equalsIgnoreCase("EUR")) {
+                criteria.setPriceInEur(true);
+            } else if (!request.getCurrency().equalsIgnoreCase("HRK")) {
+                errorMessage.append("currency must be HRK or EUR;");
+            }
+        }
+
+        final BigDecimal minPrice = parsePrice(request.getMinPrice());
+        final BigDecimal maxPrice = parsePrice(request.getMaxPrice());
+        if (request.getMinPrice() != null && minPrice == null) {
+            errorMessage.append("minPrice must be a non-negative number;");
+        }
+        if (request.getMaxPrice() != null && maxPrice == null) {
+            errorMessage.append("maxPrice must be a non-negative number;");
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            errorMessage.append("minPrice must not be greater than maxPrice;");
+        }
+        criteria.setMinPrice(minPrice);
+        criteria.setMaxPrice(maxPrice);
+
+        if (request.getIsAvailable() != null) {
+            if (request.getIsAvailable().equalsIgnoreCase("true") || request.getIsAvailable().equalsIgnoreCase("false")) {
+                criteria.setIsAvailable(Boolean.valueOf(request.getIsAvailable()));
+            } else {
+                errorMessage.append("isAvailable must be true or false;");
+            }
+        }
+
+        // Sort
+        final String sort = request.getSort() == null ? ProductSortField.ID.getFieldName() : request.getSort();
+        final Optional<ProductSortField> sortField = ProductSortField.fromFieldName(StringUtils.removeStart(sort, "-"));
+        if (sortField.isPresent()) {
+            criteria.setSortField(sortField.get());
+            criteria.setDescending(sort.startsWith("-"));
+        } else {
+            errorMessage.append("sort must be one of id, name, priceHrk or priceEur (prefixed with - for descending order);");
+        }
+
+        // Page
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if (request.getLimit() != null) {
+            try {
+                pageSize = Integer.parseInt(request.getLimit());
+            } catch (final NumberFormatException e) {
+                pageSize = -1;
+            }
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                errorMessage.append("limit must be a number between 1 and " + MAX_PAGE_SIZE + ";");
+            }
+        }
+        criteria.setLimit(pageSize);
+
+        if (request.getCursor() != null && sortField.isPresent() && !decodeCursor(request.getCursor(), sort, criteria)) {
+            errorMessage.append("invalid cursor;");
+        }
+
+        if (errorMessage.length() > 0) {
+            log.info("Search request validation failed. Errors exist.");
+            log.trace("errorMessage :: " + errorMessage);
+            rspBody.setErrorMessage(errorMessage.toString());
+            return new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST);
+        }
+
+        log.info("Searching products");
+        log.debug(criteria.toString());
+        final List<ProductWrapper> products = productSearchRepository.search(criteria);
+        rspBody.setProducts(products);
+
+        // Full page means that there might be more products
+        if (products.size() == pageSize) {
+            rspBody.setNextCursor(encodeCursor(sort, criteria.getSortField(), products.get(products.size() - 1)));
+        }
+
+        return new ResponseEntity<>(rspBody, HttpStatus.OK);
+    }
+
+    /**
+     * Parse price filter
+     * @param price Price (in {@link java.lang.String} format)
+     * @return Price, or null if it is not set or it is not a non-negative number
+     */
+    private static BigDecimal parsePrice(final String price) {
+        if (price == null) {
+            return null;
+        }
+        try {
+            final BigDecimal value = new BigDecimal(price);
+            return value.signum() < 0 ? null : value;
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create cursor which points to the given Product. Cursor contains the sort, so it cannot be used with a different sort.
+     * @param sort Sort parameter of the request
+     * @param sortField Sort field
+     * @param lastProduct Last Product of the page
+     * @return Base64 (URL safe) encoded cursor
+     */
+    static String encodeCursor(final String sort, final ProductSortField sortField, final ProductWrapper lastProduct) {
+        final String value;
+        switch (sortField) {
+            case NAME:
+                value = lastProduct.getName();
+                break;
+            case PRICE_HRK:
+                value = lastProduct.getPriceHrk().toPlainString();
+                break;
+            case PRICE_EUR:
+                value = lastProduct.getPriceEur().toPlainString();
+                break;
+            default:
+                value = "";
+        }
+
+        final String cursor = sort + CURSOR_SEPARATOR + lastProduct.getId() + CURSOR_SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode cursor and set its values to search criteria
+     * @param cursor Cursor from the request
+     * @param sort Sort parameter of the request
+     * @param criteria Search criteria with sort field already set
+     * @return true if cursor is valid for the given sort, false otherwise
+     */
+    static boolean decodeCursor(final String cursor, final String sort, final ProductSearchCriteria criteria) {
+        final String[] parts;
+        try {
+            parts = StringUtils.splitPreserveAllTokens(
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8), CURSOR_SEPARATOR, 3);
+        } catch (final IllegalArgumentException e) {
+            return false;
+        }
+        if (parts == null || parts.length != 3 || !parts[0].equals(sort)) {
+            return false;
+        }
+
+        try {
+            criteria.setCursorId(Long.parseLong(parts[1]));
+            switch (criteria.getSortField()) {
+                case NAME:
+                    criteria.setCursorValue(parts[2]);
+                    break;
+                case PRICE_HRK:
+                case PRICE_EUR:
+                    criteria.setCursorValue(new BigDecimal(parts[2]));
+                    break;
+                default:
+                    criteria.setCursorValue(null);
+            }
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -1,6 +1,8 @@
 package com.jseric.simple_product_rest.service.validation;
 
 import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.math.BigDecimal;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -12,8 +14,21 @@ import org.springframework.stereotype.Service;
 public class ProductValidationService {
     private static final int PRODUCT_CODE_LENGTH = 10;
 
+    private static final String FAILURE_COUNTER = "product.validation.failures";
+    private static final String FIELD_TAG = "field";
+
+    // Validation failures, by field
+    private final Counter codeFailureCounter;
+    private final Counter nameFailureCounter;
+    private final Counter priceHrkFailureCounter;
+    private final Counter isAvailableFailureCounter;
+
     @Autowired
-    public ProductValidationService() {
+    public ProductValidationService(final MeterRegistry meterRegistry) {
+        codeFailureCounter = failureCounter("code", meterRegistry);
+        nameFailureCounter = failureCounter("name", meterRegistry);
+        priceHrkFailureCounter = failureCounter("priceHrk", meterRegistry);
+        isAvailableFailureCounter = failureCounter("isAvailable", meterRegistry);
     }
 
     /**
@@ -34,9 +49,11 @@ public class ProductValidationService {
         final String code = requestBody.getCode();
         if (StringUtils.isEmpty(code)) {
             log.info("code field is empty");
+            codeFailureCounter.increment();
             errors.append("code field is empty; ");
         } else if (code.length() != PRODUCT_CODE_LENGTH) {
             log.info("code field has invalid length");
+            codeFailureCounter.increment();
             errors.append("code field is not of length ").append(PRODUCT_CODE_LENGTH).append("; ");
         }
 
@@ -44,6 +61,7 @@ public class ProductValidationService {
         log.debug("Validating name field");
         if (StringUtils.isEmpty(requestBody.getName())) {
             log.info("name field is empty");
+            nameFailureCounter.increment();
             errors.append("name field is empty; ");
         }
 
@@ -52,9 +70,11 @@ public class ProductValidationService {
         final BigDecimal priceHrk = requestBody.getPriceHrk();
         if (priceHrk == null) {
             log.info("priceHrk field is empty");
+            priceHrkFailureCounter.increment();
             errors.append("priceHrk field is empty; ");
         } else if (priceHrk.compareTo(BigDecimal.ZERO) < 0) {
             log.info("priceHrk field content is lower than zero");
+            priceHrkFailureCounter.increment();
             errors.append("priceHrk field must be greater or equal to 0; ");
         }
 
@@ -62,6 +82,7 @@ public class ProductValidationService {
         log.debug("Validating isAvailable field");
         if (requestBody.getIsAvailable() == null) {
             log.info("isAvailable field is empty");
+            isAvailableFailureCounter.increment();
             errors.append("isAvailable field is empty; ");
         }
 
@@ -72,4 +93,11 @@ public class ProductValidationService {
 
         return errors.toString();
     }
+
+    private static Counter failureCounter(final String field, final MeterRegistry meterRegistry) {
+        return Counter.builder(FAILURE_COUNTER)
+                .description("Product create/update requests which failed validation")
+                .tag(FIELD_TAG, field)
+                .register(meterRegistry);
+    }
 }
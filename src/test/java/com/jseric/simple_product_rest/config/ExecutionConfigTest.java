@@ -0,0 +1,117 @@
+package com.jseric.simple_product_rest.config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.coyote.ProtocolHandler;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+class ExecutionConfigTest {
+    @Test
+    void syncMode() {
+        final ExecutionConfig executionConfig = new ExecutionConfig(" Sync ", 2, 1);
+
+        assertThat(executionConfig.productRequestExecutor()).isInstanceOf(SyncTaskExecutor.class);
+        verifyTomcatExecutor(executionConfig, false);
+    }
+
+    @Test
+    void asyncMode() throws InterruptedException {
+        final ExecutionConfig executionConfig = new ExecutionConfig("async", 1, 1);
+
+        final TaskExecutor taskExecutor = executionConfig.productRequestExecutor();
+        assertThat(taskExecutor).isInstanceOf(ThreadPoolTaskExecutor.class);
+        verifyTomcatExecutor(executionConfig, false);
+
+        final ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) taskExecutor;
+        executor.initialize();
+        try {
+            assertThat(executor.getCorePoolSize()).isEqualTo(1);
+            assertThat(executor.getMaxPoolSize()).isEqualTo(1);
+
+            // One request runs, one waits in the queue, the next one is rejected
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch started = new CountDownLatch(1);
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            executor.execute(() -> await(release));
+            assertThatThrownBy(() -> executor.execute(() -> {})).isInstanceOf(RejectedExecutionException.class);
+            release.countDown();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void virtualMode() {
+        final ExecutorService virtualThreadExecutor = Executors.newSingleThreadExecutor();
+        try {
+            final ExecutionConfig executionConfig = new ExecutionConfig("virtual", 2, 1, () -> virtualThreadExecutor);
+
+            // Requests already run on virtual threads, so they are not handed over to another executor
+            assertThat(executionConfig.productRequestExecutor()).isInstanceOf(SyncTaskExecutor.class);
+            verifyTomcatExecutor(executionConfig, true);
+        } finally {
+            virtualThreadExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void virtualMode_notSupported() {
+        final ExecutionConfig executionConfig = new ExecutionConfig("virtual", 2, 1, () -> null);
+
+        // Falls back to async mode
+        assertThat(executionConfig.productRequestExecutor()).isInstanceOf(ThreadPoolTaskExecutor.class);
+        verifyTomcatExecutor(executionConfig, false);
+    }
+
+    @Test
+    void createVirtualThreadExecutor() {
+        final ExecutorService executor = ExecutionConfig.createVirtualThreadExecutor();
+
+        // Virtual threads are available only on JDK 21+
+        if (Runtime.version().feature() >= 21) {
+            assertThat(executor).isNotNull();
+            executor.shutdown();
+        } else {
+            assertThat(executor).isNull();
+        }
+    }
+
+    @Test
+    void unknownMode() {
+        assertThatThrownBy(() -> new ExecutionConfig("parallel", 2, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void verifyTomcatExecutor(final ExecutionConfig executionConfig, final boolean replaced) {
+        final ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+        executionConfig.virtualThreadProtocolHandlerCustomizer().customize(protocolHandler);
+        if (replaced) {
+            verify(protocolHandler).setExecutor(any());
+        } else {
+            verify(protocolHandler, never()).setExecutor(any());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.jseric.simple_product_rest.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+    DataSource primary;
+
+    DataSource replica0;
+
+    DataSource replica1;
+
+    ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUpBeforeEach() throws SQLException {
+        primary = dataSource();
+        replica0 = dataSource();
+        replica1 = dataSource();
+
+        final Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", replica0);
+        replicas.put("replica-1", replica1);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, 1);
+        routingDataSource.afterPropertiesSet();
+        routingDataSource.checkHealth();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingContext.end();
+    }
+
+    @Test
+    void writesGoToPrimary() {
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void readsGoToReplicasInTurn() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-1");
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+    }
+
+    @Test
+    void unhealthyReplicasSkipped() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(replica0.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routingDataSource.checkHealth();
+        assertThat(routingDataSource.isHealthy("replica-0")).isFalse();
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-1");
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-1");
+
+        // No healthy replicas, reads go to primary
+        final Connection invalidConnection = mock(Connection.class);
+        when(invalidConnection.isValid(anyInt())).thenReturn(false);
+        when(replica1.getConnection()).thenReturn(invalidConnection);
+        routingDataSource.checkHealth();
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void readsOfRequest() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // All reads of a request use the same replica
+        ReplicaRoutingContext.begin(false);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+        ReplicaRoutingContext.end();
+
+        ReplicaRoutingContext.begin(false);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-1");
+        ReplicaRoutingContext.end();
+
+        // Client has written recently
+        ReplicaRoutingContext.begin(true);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    private static DataSource dataSource() throws SQLException {
+        final Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -0,0 +1,210 @@
+package com.jseric.simple_product_rest.controller;
+
+import com.jseric.simple_product_rest.config.AsyncTimeoutInterceptor;
+import com.jseric.simple_product_rest.model.fe.FetchProductResponse;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.CatalogState;
+import com.jseric.simple_product_rest.service.ProductService;
+import com.jseric.simple_product_rest.service.change.ProductChangeService;
+import com.jseric.simple_product_rest.service.export.ProductExportService;
+import com.jseric.simple_product_rest.service.hnb.ExchangeRateService;
+import com.jseric.simple_product_rest.service.idempotency.IdempotencyService;
+import com.jseric.simple_product_rest.service.search.ProductSearchService;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+@SpringBootTest
+class ProductControllerTest {
+    @Mock
+    ProductService productService;
+
+    @Mock
+    ProductExportService productExportService;
+
+    @Mock
+    ProductSearchService productSearchService;
+
+    @Mock
+    ProductChangeService productChangeService;
+
+    @Mock
+    ExchangeRateService exchangeRateService;
+
+    @Mock
+    IdempotencyService idempotencyService;
+
+    MockMvc mockMvc;
+
+    private final static Long EXISTING_ID = 1L;
+    private final static String PRODUCT_ETAG = "\"1-3\"";
+    private final static String CATALOG_ETAG = "\"120-45-0\"";
+    private final static String PRODUCTS_PATH = "/api/v1/products";
+    private final static long ASYNC_TIMEOUT_MS = 60000L;
+    private final static long EXPORT_TIMEOUT_MS = 600000L;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(productService, productExportService,
+                productSearchService, productChangeService, exchangeRateService, idempotencyService, "X-API-Key",
+                new SyncTaskExecutor(), EXPORT_TIMEOUT_MS))
+                .setAsyncRequestTimeout(ASYNC_TIMEOUT_MS)
+                .build();
+
+        when(exchangeRateService.validateConversion(any(), any())).thenReturn("");
+        when(exchangeRateService.findConversion(any(), any())).thenReturn(Optional.empty());
+        when(productService.fetchById(EXISTING_ID.toString())).thenReturn(productResponse(3L));
+        when(productService.fetchCatalogState()).thenReturn(catalogState(120L, 45L, 0L));
+        when(productService.fetchPage(any(), any(), any(), any()))
+                .thenReturn(new ResponseEntity<>(new FetchProductResponse(), HttpStatus.OK));
+    }
+
+    @Test
+    void fetchById_conditionalRequest() throws Exception {
+        mockMvc.perform(get(PRODUCTS_PATH + "/" + EXISTING_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, PRODUCT_ETAG));
+
+        // Unchanged product
+        mockMvc.perform(get(PRODUCTS_PATH + "/" + EXISTING_ID).header(HttpHeaders.IF_NONE_MATCH, PRODUCT_ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, PRODUCT_ETAG));
+
+        // Product was updated (version changed)
+        when(productService.fetchById(EXISTING_ID.toString())).thenReturn(productResponse(4L));
+        mockMvc.perform(get(PRODUCTS_PATH + "/" + EXISTING_ID).header(HttpHeaders.IF_NONE_MATCH, PRODUCT_ETAG))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""));
+
+        // Product is validated by ETag only
+        mockMvc.perform(get(PRODUCTS_PATH + "/" + EXISTING_ID).header(HttpHeaders.IF_MODIFIED_SINCE, inOneHour()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void fetchAll_conditionalRequest() throws Exception {
+        mockMvc.perform(get(PRODUCTS_PATH))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, CATALOG_ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+
+        // Unchanged catalog, Products are not loaded
+        mockMvc.perform(get(PRODUCTS_PATH).header(HttpHeaders.IF_NONE_MATCH, CATALOG_ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, CATALOG_ETAG));
+        verify(productService).fetchPage(any(), any(), any(), any());
+
+        // Change of a transaction which is still running when the state is fetched changes the ETag as well
+        when(productService.fetchCatalogState()).thenReturn(catalogState(120L, 45L, 1L));
+        mockMvc.perform(get(PRODUCTS_PATH).header(HttpHeaders.IF_NONE_MATCH, CATALOG_ETAG))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"120-45-1\""));
+    }
+
+    @Test
+    void fetchAll_ifModifiedSinceIsIgnored() throws Exception {
+        // Modification timestamps can't tell whether a change was committed since, so the catalog is always returned
+        mockMvc.perform(get(PRODUCTS_PATH).header(HttpHeaders.IF_MODIFIED_SINCE, inOneHour()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+
+        // Empty catalog has an ETag as well
+        when(productService.fetchCatalogState()).thenReturn(catalogState(null, null, 0L));
+        mockMvc.perform(get(PRODUCTS_PATH).header(HttpHeaders.IF_NONE_MATCH, "\"0-0-0\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void fetchAll_invalidParametersWithMatchingETag() throws Exception {
+        final FetchProductResponse rspBody = new FetchProductResponse();
+        rspBody.setErrorMessage("invalid limit;");
+        when(productService.validatePage("0", null, null, null)).thenReturn(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+
+        mockMvc.perform(get(PRODUCTS_PATH).param("limit", "0").header(HttpHeaders.IF_NONE_MATCH, CATALOG_ETAG))
+                .andExpect(status().isBadRequest());
+        verify(productService, never()).fetchCatalogState();
+    }
+
+    @Test
+    void exportAll_ownTimeout() throws Exception {
+        // Export has a longer timeout than other async requests
+        final MvcResult exportResult = mockMvc.perform(get(PRODUCTS_PATH + "/export").with(asyncTimeoutInterceptor()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(exportResult.getRequest().getAsyncContext().getTimeout()).isEqualTo(EXPORT_TIMEOUT_MS);
+
+        when(productService.delete(EXISTING_ID.toString())).thenReturn(new ResponseEntity<>(HttpStatus.OK));
+        final MvcResult deleteResult = mockMvc.perform(delete(PRODUCTS_PATH + "/" + EXISTING_ID).with(asyncTimeoutInterceptor()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(deleteResult.getRequest().getAsyncContext().getTimeout()).isEqualTo(ASYNC_TIMEOUT_MS);
+    }
+
+    private static ResponseEntity<FetchProductResponse> productResponse(final Long version) {
+        final FetchProductResponse rspBody = new FetchProductResponse();
+        rspBody.setProducts(Arrays.asList(new ProductWrapper(EXISTING_ID, "1234567890", "Test name 123",
+                new BigDecimal("75.00"), new BigDecimal("10.00"), null, true, version)));
+        return new ResponseEntity<>(rspBody, HttpStatus.OK);
+    }
+
+    private static CatalogState catalogState(final Long lastChangeTxId, final Long lastChangeId,
+                                             final Long pendingChangeCount) {
+        return new CatalogState() {
+            @Override
+            public Long getLastChangeTxId() {
+                return lastChangeTxId;
+            }
+
+            @Override
+            public Long getLastChangeId() {
+                return lastChangeId;
+            }
+
+            @Override
+            public Long getPendingChangeCount() {
+                return pendingChangeCount;
+            }
+        };
+    }
+
+    /**
+     * Register {@link com.jseric.simple_product_rest.config.AsyncTimeoutInterceptor} (as ExecutionConfig does),
+     * since standalone MockMvc doesn't take callable interceptors
+     */
+    private static RequestPostProcessor asyncTimeoutInterceptor() {
+        return request -> {
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor("asyncTimeout", new AsyncTimeoutInterceptor());
+            return request;
+        };
+    }
+
+    private static String inOneHour() {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusHours(1));
+    }
+}
@@ -0,0 +1,106 @@
+package com.jseric.simple_product_rest.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class LoadSheddingFilterTest {
+    AtomicLong nanoTime;
+
+    LoadSheddingFilter loadSheddingFilter;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        nanoTime = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+        // Between 2 and 4 requests in flight, requests over 100 ms are slow
+        loadSheddingFilter = new LoadSheddingFilter(true, 2, 4, 100, 2, new SimpleMeterRegistry(), nanoTime::get);
+    }
+
+    @Test
+    void requestsOverLimitRejected() throws Exception {
+        final MockAsyncContext[] asyncContexts = new MockAsyncContext[4];
+        for (int i = 0; i < 4; i++) {
+            asyncContexts[i] = sendAsync("/api/v1/products");
+        }
+        assertThat(loadSheddingFilter.inFlight()).isEqualTo(4);
+
+        final MockHttpServletResponse rsp = send("/api/v1/products/1", 0);
+        assertThat(rsp.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(rsp.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(rsp.getContentAsString()).isEqualTo("{\"errorMessage\":\"service is overloaded, try again later;\"}");
+
+        // Long-running requests are not limited
+        assertThat(send("/api/v1/products/changes", 0).getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        // Completed async request frees its slot
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+        asyncContexts[0].complete();
+        assertThat(loadSheddingFilter.inFlight()).isEqualTo(3);
+        assertThat(send("/api/v1/products/1", 0).getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void limitAdaptsToLatency() throws Exception {
+        // Slow requests lower the limit, down to the minimum
+        for (int i = 0; i < 10; i++) {
+            send("/api/v1/products", 200);
+        }
+        assertThat(loadSheddingFilter.limit()).isEqualTo(2);
+
+        sendAsync("/api/v1/products");
+        sendAsync("/api/v1/products");
+        assertThat(send("/api/v1/products", 0).getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    @Test
+    void limitRecovers() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            send("/api/v1/products", 200);
+        }
+        assertThat(loadSheddingFilter.limit()).isEqualTo(2);
+
+        // Fast requests raise the limit again, up to the maximum
+        for (int i = 0; i < 10; i++) {
+            send("/api/v1/products", 10);
+        }
+        assertThat(loadSheddingFilter.limit()).isEqualTo(4);
+    }
+
+    /**
+     * Send request which takes latencyMs to complete on the request thread
+     */
+    private MockHttpServletResponse send(final String uri, final long latencyMs) throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final FilterChain chain = (request, rsp) -> nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+        loadSheddingFilter.doFilter(new MockHttpServletRequest("GET", uri), response, chain);
+        return response;
+    }
+
+    /**
+     * Send request which starts async processing and stays in flight until its context is completed
+     */
+    private MockAsyncContext sendAsync(final String uri) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setAsyncSupported(true);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        loadSheddingFilter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(final ServletRequest req, final ServletResponse rsp) {
+                req.startAsync();
+            }
+        });
+        return (MockAsyncContext) request.getAsyncContext();
+    }
+}
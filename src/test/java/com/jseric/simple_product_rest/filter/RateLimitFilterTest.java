@@ -0,0 +1,84 @@
+package com.jseric.simple_product_rest.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimitFilterTest {
+    AtomicLong nanoTime;
+
+    RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        nanoTime = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+        // Reads: burst of 3, 1 per second. Writes: burst of 1, 1 every 4 seconds.
+        rateLimitFilter = new RateLimitFilter(true, "X-API-Key", 3, 1.0, 1, 0.25, 100,
+                                              new SimpleMeterRegistry(), nanoTime::get);
+    }
+
+    @Test
+    void readBudget() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(send("GET", "/api/v1/products", "10.0.0.1", null).getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+        final MockHttpServletResponse rsp = send("GET", "/api/v1/products/1", "10.0.0.1", null);
+        assertThat(rsp.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rsp.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rsp.getContentAsString()).isEqualTo("{\"errorMessage\":\"rate limit exceeded, try again later;\"}");
+
+        // Other clients have their own budget
+        assertThat(send("GET", "/api/v1/products", "10.0.0.2", null).getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        // Bucket is refilled over time
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertThat(send("GET", "/api/v1/products", "10.0.0.1", null).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(send("GET", "/api/v1/products", "10.0.0.1", null).getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    void writeBudget() throws Exception {
+        assertThat(send("POST", "/api/v1/products", "10.0.0.1", null).getStatus()).isEqualTo(HttpStatus.OK.value());
+        final MockHttpServletResponse rsp = send("PUT", "/api/v1/products/1", "10.0.0.1", null);
+        assertThat(rsp.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rsp.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("4");
+
+        // Reads are not limited by the write budget
+        assertThat(send("GET", "/api/v1/products", "10.0.0.1", null).getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void clientIdentifiedByApiKey() throws Exception {
+        assertThat(send("POST", "/api/v1/products", "10.0.0.1", "importer").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(send("POST", "/api/v1/products", "10.0.0.2", "importer").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        // Same address, but a different client
+        assertThat(send("POST", "/api/v1/products", "10.0.0.1", "shop").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void otherPathsNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(send("GET", "/actuator/health", "10.0.0.1", null).getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    private MockHttpServletResponse send(final String method, final String uri, final String remoteAddr,
+                                         final String apiKey) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jseric.simple_product_rest.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ReplicaRoutingFilterTest {
+    private static final String CLIENT = "ip:10.0.0.1";
+
+    AtomicLong nanoTime;
+
+    ReplicaRoutingFilter replicaRoutingFilter;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        nanoTime = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+        replicaRoutingFilter = new ReplicaRoutingFilter("X-API-Key", 5000, 100, nanoTime::get);
+    }
+
+    @Test
+    void syncWrite() throws Exception {
+        final MockHttpServletRequest request = request("PUT");
+        replicaRoutingFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(replicaRoutingFilter.isRecentWriter(CLIENT)).isTrue();
+
+        // Reads don't restart the window
+        elapse(3000);
+        replicaRoutingFilter.doFilter(request("GET"), new MockHttpServletResponse(), new MockFilterChain());
+        elapse(3000);
+        assertThat(replicaRoutingFilter.isRecentWriter(CLIENT)).isFalse();
+    }
+
+    @Test
+    void asyncWrite() throws Exception {
+        // Write is handed over to the product request executor, request thread returns before it is done
+        final MockHttpServletRequest request = request("POST");
+        replicaRoutingFilter.doFilter(request, new MockHttpServletResponse(), (req, rsp) -> request.setAsyncStarted(true));
+        final Runnable writeDone = ReplicaRoutingFilter.writeDoneCallback(request);
+
+        // Write is still queued after the window started by the request has expired
+        elapse(6000);
+        assertThat(replicaRoutingFilter.isRecentWriter(CLIENT)).isFalse();
+
+        // Window starts when the write is done
+        writeDone.run();
+        assertThat(replicaRoutingFilter.isRecentWriter(CLIENT)).isTrue();
+        elapse(4000);
+        assertThat(replicaRoutingFilter.isRecentWriter(CLIENT)).isTrue();
+        elapse(2000);
+        assertThat(replicaRoutingFilter.isRecentWriter(CLIENT)).isFalse();
+    }
+
+    @Test
+    void writeDoneCallbackWithoutFilter() {
+        // Read replicas are not used, callback does nothing
+        ReplicaRoutingFilter.writeDoneCallback(request("DELETE")).run();
+        assertThat(replicaRoutingFilter.isRecentWriter(CLIENT)).isFalse();
+    }
+
+    private void elapse(final long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static MockHttpServletRequest request(final String method) {
+        final MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/v1/products");
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+}
@@ -2,14 +2,22 @@ package com.jseric.simple_product_rest.mock;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
 import static com.github.tomakehurst.wiremock.client.WireMock.removeStub;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import org.springframework.http.MediaType;
 
 public class WireMockManager {
     private static StubMapping hnbEurStub;
     private static StubMapping hnbInvalidStub;
+    private static StubMapping hnbSlowStub;
+    private static StubMapping hnbRangeStub;
+    private static StubMapping hnbFaultStub;
+    private static StubMapping hnbRecoveredStub;
 
     public static void startHnbEurStub() {
         hnbEurStub = stubFor(get("/tecajn/v1?valuta=EUR").willReturn(aResponse()
@@ -33,4 +41,58 @@ public class WireMockManager {
         removeStub(hnbInvalidStub);
     }
 
+    public static void startHnbSlowStub(final int delayMs) {
+        hnbSlowStub = stubFor(get("/tecajn/v1?valuta=EUR").willReturn(aResponse()
+                .withFixedDelay(delayMs)
+                .withHeader("Content-type", MediaType.APPLICATION_JSON_VALUE)
+                .withBody("[{\"Valuta\":\"EUR\",\"Jedinica\":1,\"Srednji za devize\":\"7,500000\"}]")));
+    }
+
+    public static void stopHnbSlowStub() {
+        removeStub(hnbSlowStub);
+    }
+
+    public static void startHnbRangeStub(final String body) {
+        hnbRangeStub = stubFor(get(urlPathEqualTo("/tecajn/v1"))
+                .withQueryParam("datum-od", matching("\\d{4}-\\d{2}-\\d{2}"))
+                .withQueryParam("datum-do", matching("\\d{4}-\\d{2}-\\d{2}"))
+                .willReturn(aResponse()
+                        .withHeader("Content-type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody(body)));
+    }
+
+    public static void stopHnbRangeStub() {
+        removeStub(hnbRangeStub);
+    }
+
+    public static void startHnbErrorStub(final int status) {
+        hnbFaultStub = stubFor(get("/tecajn/v1?valuta=EUR").willReturn(aResponse().withStatus(status)));
+    }
+
+    public static void startHnbFaultStub(final Fault fault) {
+        hnbFaultStub = stubFor(get("/tecajn/v1?valuta=EUR").willReturn(aResponse().withFault(fault)));
+    }
+
+    /**
+     * First request fails with the fault, following requests are successful
+     */
+    public static void startHnbFaultOnceStub(final Fault fault) {
+        hnbFaultStub = stubFor(get("/tecajn/v1?valuta=EUR").inScenario("fault once")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withFault(fault))
+                .willSetStateTo("recovered"));
+        hnbRecoveredStub = stubFor(get("/tecajn/v1?valuta=EUR").inScenario("fault once")
+                .whenScenarioStateIs("recovered")
+                .willReturn(aResponse()
+                        .withHeader("Content-type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("[{\"Valuta\":\"EUR\",\"Jedinica\":1,\"Srednji za devize\":\"7,500000\"}]")));
+    }
+
+    public static void stopHnbFaultStub() {
+        removeStub(hnbFaultStub);
+        if (hnbRecoveredStub != null) {
+            removeStub(hnbRecoveredStub);
+            hnbRecoveredStub = null;
+        }
+    }
 }
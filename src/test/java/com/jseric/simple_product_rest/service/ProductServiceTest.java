@@ -2,34 +2,53 @@ package com.jseric.simple_product_rest.service;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import com.jseric.simple_product_rest.mock.WireMockManager;
+import com.jseric.simple_product_rest.model.fe.BatchProductRequest;
+import com.jseric.simple_product_rest.model.fe.BatchProductResponse;
+import com.jseric.simple_product_rest.model.fe.BatchProductResult;
 import com.jseric.simple_product_rest.model.fe.CreateProductRequest;
 import com.jseric.simple_product_rest.model.fe.CreateProductResponse;
+import com.jseric.simple_product_rest.model.fe.DeleteProductsResponse;
 import com.jseric.simple_product_rest.model.fe.FetchProductResponse;
 import com.jseric.simple_product_rest.model.fe.ProductWrapper;
 import com.jseric.simple_product_rest.model.product.Product;
+import com.jseric.simple_product_rest.model.product.ProductChangeType;
+import com.jseric.simple_product_rest.model.product.ProductField;
+import com.jseric.simple_product_rest.repository.ProductChangeRepository;
+import com.jseric.simple_product_rest.repository.ProductProjectionRepository;
 import com.jseric.simple_product_rest.repository.ProductRepository;
+import com.jseric.simple_product_rest.service.cache.ProductCache;
 import com.jseric.simple_product_rest.service.hnb.CurrencyConversionService;
 import com.jseric.simple_product_rest.service.validation.ProductValidationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mock;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
 
 @SpringBootTest
 @WireMockTest(httpPort = 8090)
@@ -37,12 +56,20 @@ class ProductServiceTest {
     @Mock
     ProductRepository productRepository;
 
+    @Mock
+    ProductProjectionRepository productProjectionRepository;
+
+    @Mock
+    ProductChangeRepository productChangeRepository;
+
     @Autowired
     ProductValidationService productValidationService;
 
     @Autowired
     CurrencyConversionService currencyConversionService;
 
+    ProductCache productCache;
+
     ProductService productService;
 
     private final static Long EXISTING_ID1 = 1L;
@@ -83,28 +110,20 @@ class ProductServiceTest {
             " be greater or equal to 0;";
     private final static String ERR_CREATE_UPDATE_CODE_NOT_UNIQUE = "another object with same code field already exists in system;";
     private final static String ERR_PRODUCT_NOT_FOUND = "product was not found;";
+    private final static String ERR_PRODUCT_MODIFIED = "product was modified by another request;";
+    private final static String ERR_BATCH_CODE_NOT_UNIQUE = "another product in batch has same code field;";
+    private final static String ERR_CONVERSION_RATE_UNAVAILABLE = "conversion rate is not available, try again later;";
 
     @BeforeEach
     void setUpBeforeEach() {
-        productService = new ProductService(productRepository, productValidationService, currencyConversionService);
-
-        when(productRepository.findById(EXISTING_ID1)).thenReturn(Optional.of(createValidProduct(EXISTING_ID1, true)));
-        when(productRepository.findById(EXISTING_ID2)).thenReturn(Optional.of(createValidProduct(EXISTING_ID2, true)));
-        when(productRepository.findById(NONEXISTING_ID)).thenReturn(Optional.empty());
-
-        when(productRepository.doesExistByCode(VALID_CODE1, EXISTING_ID1)).thenReturn(false);
-        when(productRepository.doesExistByCode(VALID_CODE1, EXISTING_ID2)).thenReturn(true);
-        when(productRepository.doesExistByCode(VALID_CODE1, NONEXISTING_ID)).thenReturn(true);
-        when(productRepository.doesExistByCode(VALID_CODE2, EXISTING_ID1)).thenReturn(true);
-        when(productRepository.doesExistByCode(VALID_CODE2, EXISTING_ID2)).thenReturn(false);
-        when(productRepository.doesExistByCode(VALID_CODE2, NONEXISTING_ID)).thenReturn(true);
-        when(productRepository.doesExistByCode(VALID_CODE3, EXISTING_ID1)).thenReturn(false);
-        when(productRepository.doesExistByCode(VALID_CODE3, EXISTING_ID2)).thenReturn(false);
-        when(productRepository.doesExistByCode(VALID_CODE3, NONEXISTING_ID)).thenReturn(false);
-
-        when(productRepository.doesExistByCode(VALID_CODE1)).thenReturn(true);
-        when(productRepository.doesExistByCode(VALID_CODE2)).thenReturn(true);
-        when(productRepository.doesExistByCode(VALID_CODE3)).thenReturn(false);
+        productCache = new ProductCache(100, 60, new SimpleMeterRegistry());
+        productService = new ProductService(productRepository, productProjectionRepository, productChangeRepository,
+                                            productValidationService, currencyConversionService,
+                                            TransactionOperations.withoutTransaction(), productCache);
+
+        when(productRepository.findWrapperById(EXISTING_ID1)).thenReturn(Optional.of(new ProductWrapper(createValidProduct(EXISTING_ID1, true))));
+        when(productRepository.findWrapperById(EXISTING_ID2)).thenReturn(Optional.of(new ProductWrapper(createValidProduct(EXISTING_ID2, true))));
+        when(productRepository.findWrapperById(NONEXISTING_ID)).thenReturn(Optional.empty());
 
         WireMockManager.startHnbEurStub();
     }
@@ -130,6 +149,23 @@ class ProductServiceTest {
         assertThat(productService.createAndSave(reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
     }
 
+    @Test
+    void createAndSave_conversionRateUnavailable() {
+        CreateProductRequest reqBody = new CreateProductRequest();
+        CreateProductResponse rspBody = new CreateProductResponse();
+
+        // HNB API is down and no previous rate is known, so product is not saved with an invalid EUR price
+        WireMockManager.stopHnbEurStub();
+        currencyConversionService.clearConversionRates();
+
+        reqBody.setProduct(new ProductWrapper(createValidProduct(null, false)));
+        rspBody.setErrorMessage(ERR_CONVERSION_RATE_UNAVAILABLE);
+        assertThat(productService.createAndSave(reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.SERVICE_UNAVAILABLE));
+        verify(productRepository, never()).save(any());
+
+        WireMockManager.startHnbEurStub();
+    }
+
     @Test
     void createAndSave_invalidBody() {
         CreateProductRequest reqBody = new CreateProductRequest();
@@ -154,6 +190,7 @@ class ProductServiceTest {
         CreateProductResponse rspBody = new CreateProductResponse();
 
         // Code exists for another ID
+        when(productRepository.save(any(Product.class))).thenThrow(createCodeConflictException());
         reqBody.setProduct(new ProductWrapper(createValidProduct(EXISTING_ID1, false)));
         rspBody.setErrorMessage(ERR_CREATE_UPDATE_CODE_NOT_UNIQUE);
         assertThat(productService.createAndSave(reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.CONFLICT));
@@ -167,10 +204,91 @@ class ProductServiceTest {
         Product preSavedProduct = createValidProduct(null, false);
         Product postSavedProduct = createValidProduct(null, true);
 
+        postSavedProduct.setId(NONEXISTING_ID);
         when(productRepository.save(any(Product.class))).thenReturn(postSavedProduct);
         reqBody.setProduct(new ProductWrapper(preSavedProduct));
         rspBody.setProduct(new ProductWrapper(postSavedProduct));
         assertThat(productService.createAndSave(reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.CREATED));
+        verify(productChangeRepository).record(ProductChangeType.CREATED, Collections.singletonList(NONEXISTING_ID));
+    }
+
+    @Test
+    void createOrUpdateBatch() {
+        BatchProductRequest reqBody = new BatchProductRequest();
+        BatchProductResponse rspBody = new BatchProductResponse();
+
+        // body or products are empty
+        rspBody.setErrorMessage(ERR_REQUEST_BODY_EMPTY);
+        assertThat(productService.createOrUpdateBatch(null)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+        assertThat(productService.createOrUpdateBatch(reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+        reqBody.setProducts(Collections.emptyList());
+        assertThat(productService.createOrUpdateBatch(reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.BAD_REQUEST));
+
+        when(productRepository.findAllById(any())).thenReturn(Arrays.asList(createValidProduct(EXISTING_ID1, true)));
+        when(productRepository.findAllByCodeIn(any()))
+                .thenReturn(Arrays.asList(createValidProduct(EXISTING_ID1, true), createValidProduct(EXISTING_ID2, true)));
+        when(productRepository.saveAll(any())).thenAnswer(invocation -> {
+            final List<Product> products = invocation.getArgument(0);
+            products.stream().filter(product -> product.getId() == null).forEach(product -> product.setId(NONEXISTING_ID));
+            return products;
+        });
+
+        final ProductWrapper existingProduct = new ProductWrapper(createValidProduct(EXISTING_ID1, false));
+        existingProduct.setId(EXISTING_ID1);
+        final ProductWrapper nonExistingProduct = new ProductWrapper(createValidProduct(null, false).setCode("1234567899"));
+        nonExistingProduct.setId(NONEXISTING_ID);
+        reqBody.setProducts(Arrays.asList(
+                new ProductWrapper(createValidProduct(null, false)),
+                existingProduct,
+                new ProductWrapper(createValidProduct(null, false).setCode(INVALID_CODE).setPriceHrk(INVALID_PRICE_HRK)),
+                new ProductWrapper(createValidProduct(null, false)),
+                nonExistingProduct,
+                new ProductWrapper(createValidProduct(null, false).setCode(VALID_CODE2))));
+        rspBody = new BatchProductResponse();
+        rspBody.setResults(Arrays.asList(
+                new BatchProductResult(0, HttpStatus.CREATED.value(), null, new ProductWrapper(createValidProduct(null, true))),
+                new BatchProductResult(1, HttpStatus.OK.value(), null, new ProductWrapper(createValidProduct(EXISTING_ID1, true))),
+                new BatchProductResult(2, HttpStatus.BAD_REQUEST.value(), ERR_CREATE_UPDATE_INVALID_CODE_PRICE_HRK, null),
+                new BatchProductResult(3, HttpStatus.CONFLICT.value(), ERR_BATCH_CODE_NOT_UNIQUE, null),
+                new BatchProductResult(4, HttpStatus.NOT_FOUND.value(), ERR_PRODUCT_NOT_FOUND, null),
+                new BatchProductResult(5, HttpStatus.CONFLICT.value(), ERR_CREATE_UPDATE_CODE_NOT_UNIQUE, null)));
+        assertThat(productService.createOrUpdateBatch(reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.MULTI_STATUS));
+        verify(productChangeRepository).record(ProductChangeType.CREATED, Collections.singletonList(NONEXISTING_ID));
+        verify(productChangeRepository).record(ProductChangeType.UPDATED, Collections.singletonList(EXISTING_ID1));
+
+        // All products saved
+        reqBody.setProducts(Arrays.asList(new ProductWrapper(createValidProduct(null, false))));
+        rspBody.setResults(Arrays.asList(
+                new BatchProductResult(0, HttpStatus.CREATED.value(), null, new ProductWrapper(createValidProduct(null, true)))));
+        assertThat(productService.createOrUpdateBatch(reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+    }
+
+    @Test
+    void createOrUpdateBatch_versionConflict() {
+        final Product existingProduct1 = createValidProduct(EXISTING_ID1, true);
+        existingProduct1.setVersion(3L);
+        final Product existingProduct2 = createValidProduct(EXISTING_ID2, true);
+        existingProduct2.setVersion(3L);
+        when(productRepository.findAllById(any())).thenReturn(Arrays.asList(existingProduct1, existingProduct2));
+        when(productRepository.findAllByCodeIn(any()))
+                .thenReturn(Arrays.asList(createValidProduct(EXISTING_ID1, true), createValidProduct(EXISTING_ID2, true)));
+        when(productRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // First product was read before its latest change, second one is current
+        final ProductWrapper staleProduct = new ProductWrapper(createValidProduct(EXISTING_ID1, true));
+        staleProduct.setVersion(2L);
+        final ProductWrapper currentProduct = new ProductWrapper(createValidProduct(EXISTING_ID2, true));
+        currentProduct.setVersion(3L);
+        final BatchProductRequest reqBody = new BatchProductRequest();
+        reqBody.setProducts(Arrays.asList(staleProduct, currentProduct));
+
+        final ResponseEntity<BatchProductResponse> rsp = productService.createOrUpdateBatch(reqBody);
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.MULTI_STATUS);
+        assertThat(rsp.getBody().getResults().get(0))
+                .isEqualTo(new BatchProductResult(0, HttpStatus.CONFLICT.value(), ERR_PRODUCT_MODIFIED, null));
+        assertThat(rsp.getBody().getResults().get(1).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(rsp.getBody().getResults().get(1).getProduct().getId()).isEqualTo(EXISTING_ID2);
+        verify(productChangeRepository).record(ProductChangeType.UPDATED, Collections.singletonList(EXISTING_ID2));
     }
 
     @Test
@@ -229,6 +347,7 @@ class ProductServiceTest {
         CreateProductResponse rspBody = new CreateProductResponse();
 
         // Code exists for another ID
+        when(productRepository.updateIfActive(any(Product.class))).thenThrow(createCodeConflictException());
         reqBody.setProduct(new ProductWrapper(createValidProduct(EXISTING_ID1, false).setCode(VALID_CODE2)));
         rspBody.setErrorMessage(ERR_CREATE_UPDATE_CODE_NOT_UNIQUE);
         assertThat(productService.update(String.valueOf(EXISTING_ID1), reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.CONFLICT));
@@ -245,6 +364,21 @@ class ProductServiceTest {
         assertThat(productService.update(String.valueOf(NONEXISTING_ID), reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND));
     }
 
+    @Test
+    void update_concurrentModification() {
+        CreateProductRequest reqBody = new CreateProductRequest();
+        CreateProductResponse rspBody = new CreateProductResponse();
+
+        // Product exists, but with a different version
+        when(productRepository.updateIfActive(any(Product.class))).thenReturn(Optional.empty());
+        when(productRepository.existsById(EXISTING_ID1)).thenReturn(true);
+        final ProductWrapper productWrapper = new ProductWrapper(createValidProduct(EXISTING_ID1, false));
+        productWrapper.setVersion(1L);
+        reqBody.setProduct(productWrapper);
+        rspBody.setErrorMessage(ERR_PRODUCT_MODIFIED);
+        assertThat(productService.update(String.valueOf(EXISTING_ID1), reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.CONFLICT));
+    }
+
     @Test
     void update_success() {
         CreateProductRequest reqBody = new CreateProductRequest();
@@ -253,7 +387,7 @@ class ProductServiceTest {
         // Updated (with no changes)
         Product preSavedProduct = createValidProduct(EXISTING_ID1, false);
         Product postSavedProduct = createValidProduct(EXISTING_ID1, true);
-        when(productRepository.save(any(Product.class))).thenReturn(postSavedProduct);
+        when(productRepository.updateIfActive(any(Product.class))).thenReturn(Optional.of(postSavedProduct));
         reqBody.setProduct(new ProductWrapper(preSavedProduct));
         rspBody.setProduct(new ProductWrapper(postSavedProduct));
         assertThat(productService.update(String.valueOf(EXISTING_ID1), reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
@@ -261,39 +395,140 @@ class ProductServiceTest {
         // Updated (with changes to code)
         preSavedProduct = createValidProduct(EXISTING_ID1, true).setCode(VALID_CODE3);
         postSavedProduct = createValidProduct(EXISTING_ID1, true).setCode(VALID_CODE3);
-        when(productRepository.save(any(Product.class))).thenReturn(postSavedProduct);
+        when(productRepository.updateIfActive(any(Product.class))).thenReturn(Optional.of(postSavedProduct));
         reqBody.setProduct(new ProductWrapper(createValidProduct(EXISTING_ID1, false).setCode(VALID_CODE3)));
         rspBody.setProduct(new ProductWrapper(createValidProduct(EXISTING_ID1, true).setCode(VALID_CODE3)));
         assertThat(productService.update(String.valueOf(EXISTING_ID1), reqBody)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+        verify(productChangeRepository, times(2)).record(ProductChangeType.UPDATED, Collections.singletonList(EXISTING_ID1));
     }
 
     @Test
     void delete() {
-        doNothing().when(productRepository).deleteById(EXISTING_ID1);
-        doThrow(new IllegalArgumentException()).when(productRepository).deleteById(null);
+        when(productRepository.softDeleteById(EXISTING_ID1)).thenReturn(1);
+        when(productRepository.softDeleteById(NONEXISTING_ID)).thenReturn(0);
 
         assertThat(productService.delete("")).isEqualTo(new ResponseEntity<>(HttpStatus.NOT_FOUND));
         assertThat(productService.delete(null)).isEqualTo(new ResponseEntity<>(HttpStatus.NOT_FOUND));
         assertThat(productService.delete(INVALID_ID)).isEqualTo(new ResponseEntity<>(HttpStatus.NOT_FOUND));
         assertThat(productService.delete(String.valueOf(NONEXISTING_ID))).isEqualTo(new ResponseEntity<>(HttpStatus.NOT_FOUND));
         assertThat(productService.delete(String.valueOf(EXISTING_ID1))).isEqualTo(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+
+        // Only deleted products are recorded as changes
+        verify(productChangeRepository, times(1)).record(any(), any());
+        verify(productChangeRepository).record(ProductChangeType.DELETED, Collections.singletonList(EXISTING_ID1));
+    }
+
+    @Test
+    void deleteAll() {
+        when(productRepository.softDeleteAllActiveById(any())).thenReturn(Arrays.asList(EXISTING_ID1, EXISTING_ID2));
+
+        DeleteProductsResponse rspBody = new DeleteProductsResponse();
+        rspBody.setDeletedCount(2);
+        assertThat(productService.deleteAll(EXISTING_ID1 + "," + EXISTING_ID2 + "," + NONEXISTING_ID))
+                .isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+        verify(productRepository).softDeleteAllActiveById(new HashSet<>(Arrays.asList(EXISTING_ID1, EXISTING_ID2, NONEXISTING_ID)));
+        verify(productChangeRepository).record(ProductChangeType.DELETED, Arrays.asList(EXISTING_ID1, EXISTING_ID2));
+
+        assertThat(productService.deleteAll(null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productService.deleteAll("").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productService.deleteAll(EXISTING_ID1 + "," + INVALID_ID).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
     @Test
     void fetchAll() {
         // DB has data
-        final List<Product> existingProducts = Arrays.asList(createValidProduct(EXISTING_ID1, true), createValidProduct(EXISTING_ID2, true));
-        when(productRepository.findAll()).thenReturn(existingProducts);
+        final List<ProductWrapper> existingProducts = Arrays.asList(new ProductWrapper(createValidProduct(EXISTING_ID1, true)),
+                                                                    new ProductWrapper(createValidProduct(EXISTING_ID2, true)));
+        when(productRepository.findAllWrappers()).thenReturn(existingProducts);
         FetchProductResponse rspBody = new FetchProductResponse();
-        rspBody.setProducts(existingProducts.stream().map(ProductWrapper::new).collect(Collectors.toList()));
+        rspBody.setProducts(existingProducts);
         assertThat(productService.fetchAll()).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
 
         // DB is empty
-        when(productRepository.findAll()).thenReturn(Collections.EMPTY_LIST);
+        when(productRepository.findAllWrappers()).thenReturn(Collections.emptyList());
         rspBody = new FetchProductResponse();
         assertThat(productService.fetchAll()).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
     }
 
+    @Test
+    void fetchPage() {
+        final List<ProductWrapper> existingWrappers = Arrays.asList(new ProductWrapper(createValidProduct(EXISTING_ID1, true)),
+                                                                    new ProductWrapper(createValidProduct(EXISTING_ID2, true)));
+
+        // First page, more products might exist
+        when(productRepository.findWrappersOrderedById(PageRequest.of(0, 2))).thenReturn(existingWrappers);
+        FetchProductResponse rspBody = new FetchProductResponse();
+        rspBody.setProducts(existingWrappers);
+        rspBody.setNextCursor(EXISTING_ID2);
+        assertThat(productService.fetchPage("2", null, null, null)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+        assertThat(productService.fetchPage("2", null, "0", null)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+
+        // Last page
+        when(productRepository.findWrappersAfterId(eq(EXISTING_ID2), any())).thenReturn(Collections.emptyList());
+        rspBody = new FetchProductResponse();
+        assertThat(productService.fetchPage("2", String.valueOf(EXISTING_ID2), null, null)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+
+        // Invalid parameters
+        assertThat(productService.fetchPage("0", null, null, null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productService.fetchPage("abc", null, null, null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productService.fetchPage(null, INVALID_ID, null, null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productService.fetchPage(null, null, "-1", null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productService.fetchPage(null, "1", "1", null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void validatePage() {
+        assertThat(productService.validatePage(null, null, null, null)).isNull();
+        assertThat(productService.validatePage("2", "1", null, "id,priceEur")).isNull();
+        assertThat(productService.validatePage("2", null, "3", null)).isNull();
+
+        assertThat(productService.validatePage("1001", null, null, null).getBody().getErrorMessage())
+                .isEqualTo("limit must be a number between 1 and 1000;");
+        assertThat(productService.validatePage(null, INVALID_ID, null, null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productService.validatePage(null, null, "x", null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productService.validatePage(null, null, null, "deleted").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        // Parameters are validated without accessing the database
+        verifyNoInteractions(productRepository, productProjectionRepository);
+    }
+
+    @Test
+    void fetchPage_fields() {
+        final ProductWrapper product1 = new ProductWrapper();
+        product1.setId(EXISTING_ID1);
+        product1.setPriceEur(VALID_PRICE_EUR1);
+        final ProductWrapper product2 = new ProductWrapper();
+        product2.setId(EXISTING_ID2);
+        product2.setPriceEur(VALID_PRICE_EUR2);
+        final List<ProductWrapper> projectedProducts = Arrays.asList(product1, product2);
+        final EnumSet<ProductField> fields = EnumSet.of(ProductField.ID, ProductField.PRICE_EUR);
+
+        // All products
+        when(productProjectionRepository.findAll(fields)).thenReturn(projectedProducts);
+        FetchProductResponse rspBody = new FetchProductResponse();
+        rspBody.setProducts(projectedProducts);
+        assertThat(productService.fetchPage(null, null, null, "id,priceEur")).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+
+        // Pages (ID is always selected)
+        when(productProjectionRepository.findAllOrderedById(EnumSet.of(ProductField.PRICE_EUR), 0, 2)).thenReturn(projectedProducts);
+        rspBody.setNextCursor(EXISTING_ID2);
+        assertThat(productService.fetchPage("2", null, null, "priceEur")).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+
+        when(productProjectionRepository.findAllAfterId(fields, EXISTING_ID2, 2)).thenReturn(Collections.emptyList());
+        rspBody = new FetchProductResponse();
+        assertThat(productService.fetchPage("2", String.valueOf(EXISTING_ID2), null, "priceEur, id"))
+                .isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+        verify(productRepository, times(0)).findWrappersAfterId(any(), any());
+
+        // Invalid fields
+        final ResponseEntity<FetchProductResponse> rsp = productService.fetchPage(null, null, null, "id,deleted");
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rsp.getBody().getErrorMessage())
+                .isEqualTo("fields must be a comma separated list of id, code, name, priceHrk, priceEur, description, isAvailable, version;");
+        assertThat(productService.fetchPage(null, null, null, "").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productService.fetchPage(null, null, null, "id,,code").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void fetchById() {
         FetchProductResponse rspBody = new FetchProductResponse();
@@ -309,6 +544,43 @@ class ProductServiceTest {
         assertThat(productService.fetchById(null)).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.NOT_FOUND));
     }
 
+    @Test
+    void fetchById_cached() {
+        FetchProductResponse rspBody = new FetchProductResponse();
+        rspBody.setProducts(Arrays.asList(new ProductWrapper(createValidProduct(EXISTING_ID1, true))));
+
+        // Second fetch is served from cache
+        assertThat(productService.fetchById(String.valueOf(EXISTING_ID1))).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+        assertThat(productService.fetchById(String.valueOf(EXISTING_ID1))).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+        verify(productRepository, times(1)).findWrapperById(EXISTING_ID1);
+        assertThat(productCache.stats().hitCount()).isEqualTo(1);
+        assertThat(productCache.stats().missCount()).isEqualTo(1);
+
+        // Update evicts cached product, next fetch loads the updated one
+        final CreateProductRequest reqBody = new CreateProductRequest();
+        final Product updatedProduct = createValidProduct(EXISTING_ID1, true).setCode(VALID_CODE3);
+        when(productRepository.updateIfActive(any(Product.class))).thenReturn(Optional.of(updatedProduct));
+        reqBody.setProduct(new ProductWrapper(createValidProduct(EXISTING_ID1, false).setCode(VALID_CODE3)));
+        productService.update(String.valueOf(EXISTING_ID1), reqBody);
+        assertThat(productCache.getIfPresent(EXISTING_ID1)).isEmpty();
+        when(productRepository.findWrapperById(EXISTING_ID1)).thenReturn(Optional.of(new ProductWrapper(updatedProduct)));
+        rspBody.setProducts(Arrays.asList(new ProductWrapper(updatedProduct)));
+        assertThat(productService.fetchById(String.valueOf(EXISTING_ID1))).isEqualTo(new ResponseEntity<>(rspBody, HttpStatus.OK));
+        verify(productRepository, times(2)).findWrapperById(EXISTING_ID1);
+
+        // Delete evicts cached product
+        when(productRepository.softDeleteById(EXISTING_ID1)).thenReturn(1);
+        when(productRepository.findWrapperById(EXISTING_ID1)).thenReturn(Optional.empty());
+        assertThat(productService.delete(String.valueOf(EXISTING_ID1))).isEqualTo(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+        assertThat(productCache.getIfPresent(EXISTING_ID1)).isEmpty();
+        assertThat(productService.fetchById(String.valueOf(EXISTING_ID1))).isEqualTo(new ResponseEntity<>(new FetchProductResponse(), HttpStatus.NOT_FOUND));
+    }
+
+    private DataIntegrityViolationException createCodeConflictException() {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), "product_code_uq"));
+    }
+
     private Product createValidProduct(final Long id, final boolean fillAllFields) {
         final LocalDateTime ts = LocalDateTime.of(2022, 1, 1, 0, 0);
         Product product = new Product();
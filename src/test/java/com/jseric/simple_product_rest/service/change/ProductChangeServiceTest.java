@@ -0,0 +1,169 @@
+package com.jseric.simple_product_rest.service.change;
+
+import com.jseric.simple_product_rest.model.fe.FetchProductChangesResponse;
+import com.jseric.simple_product_rest.model.fe.ProductChangeWrapper;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.ProductChange;
+import com.jseric.simple_product_rest.model.product.ProductChangeType;
+import com.jseric.simple_product_rest.repository.ProductChangeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest
+class ProductChangeServiceTest {
+    @Mock
+    ProductChangeRepository productChangeRepository;
+
+    ProductChangeService productChangeService;
+
+    SimpleMeterRegistry meterRegistry;
+
+    private final static LocalDateTime CHANGED_AT = LocalDateTime.of(2022, 2, 1, 12, 0);
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        // Waiting requests are completed by calling completeWaiters directly
+        meterRegistry = new SimpleMeterRegistry();
+        productChangeService = new ProductChangeService(productChangeRepository, meterRegistry, 30L, 2, 60000L);
+    }
+
+    @Test
+    void fetchChanges() {
+        final ProductWrapper product = new ProductWrapper(1L, "1234567890", "Test name 123", new BigDecimal("75.00"),
+                                                          new BigDecimal("10.00"), null, true, 1L);
+        when(productChangeRepository.findAllAfter(0L, 0L, 2)).thenReturn(Arrays.asList(
+                new ProductChange(5L, 100L, 1L, ProductChangeType.CREATED, CHANGED_AT, product),
+                new ProductChange(6L, 101L, 2L, ProductChangeType.DELETED, CHANGED_AT, null)));
+
+        // First page, from the beginning
+        final ResponseEntity<FetchProductChangesResponse> rsp = productChangeService.fetchChanges(null, "2", null).join();
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rsp.getBody().getChanges()).containsExactly(
+                new ProductChangeWrapper(1L, ProductChangeType.CREATED, CHANGED_AT, product),
+                new ProductChangeWrapper(2L, ProductChangeType.DELETED, CHANGED_AT, null));
+        assertThat(rsp.getBody().getNextToken()).isEqualTo(ProductChangeService.encodeToken(new ProductChangeService.Position(101L, 6L)));
+
+        // No more changes, token stays the same
+        when(productChangeRepository.findAllAfter(101L, 6L, 100)).thenReturn(Collections.emptyList());
+        final ResponseEntity<FetchProductChangesResponse> nextRsp =
+                productChangeService.fetchChanges(rsp.getBody().getNextToken(), null, null).join();
+        assertThat(nextRsp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(nextRsp.getBody().getChanges()).isEmpty();
+        assertThat(nextRsp.getBody().getNextToken()).isEqualTo(rsp.getBody().getNextToken());
+    }
+
+    @Test
+    void fetchChanges_invalidParameters() {
+        assertThat(productChangeService.fetchChanges("not a token", null, null).join().getBody().getErrorMessage())
+                .isEqualTo("invalid since token;");
+        assertThat(productChangeService.fetchChanges(null, "0", null).join().getBody().getErrorMessage())
+                .isEqualTo("limit must be a number between 1 and 1000;");
+        assertThat(productChangeService.fetchChanges(null, null, "31").join().getBody().getErrorMessage())
+                .isEqualTo("wait must be a number between 0 and 30;");
+        assertThat(productChangeService.fetchChanges(null, null, "abc").join().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(productChangeRepository, never()).findAllAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    void fetchChanges_longPolling() {
+        when(productChangeRepository.findAllAfter(0L, 0L, 100)).thenReturn(Collections.emptyList());
+        when(productChangeRepository.findLast()).thenReturn(Optional.empty());
+
+        // No changes, request waits
+        final CompletableFuture<ResponseEntity<FetchProductChangesResponse>> rsp = productChangeService.fetchChanges(null, null, "10");
+        productChangeService.completeWaiters();
+        assertThat(rsp).isNotDone();
+
+        // Change is made, waiting request is completed
+        final ProductChange change = new ProductChange(5L, 100L, 1L, ProductChangeType.DELETED, CHANGED_AT, null);
+        when(productChangeRepository.findLast()).thenReturn(Optional.of(change));
+        when(productChangeRepository.findAllAfter(0L, 0L, 100)).thenReturn(Collections.singletonList(change));
+        productChangeService.completeWaiters();
+        assertThat(rsp).isDone();
+        assertThat(rsp.join().getBody().getChanges()).containsExactly(new ProductChangeWrapper(change));
+    }
+
+    @Test
+    void fetchChanges_longPollingExpired() {
+        when(productChangeRepository.findAllAfter(0L, 0L, 100)).thenReturn(Collections.emptyList());
+        when(productChangeRepository.findLast()).thenReturn(Optional.empty());
+
+        final CompletableFuture<ResponseEntity<FetchProductChangesResponse>> rsp = productChangeService.fetchChanges(null, null, "0");
+        assertThat(rsp).isDone();
+
+        final CompletableFuture<ResponseEntity<FetchProductChangesResponse>> waitingRsp = productChangeService.fetchChanges(null, null, "1");
+        productChangeService.completeWaiters();
+        assertThat(waitingRsp).isNotDone();
+        try {
+            Thread.sleep(1100);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        productChangeService.completeWaiters();
+        assertThat(waitingRsp).isDone();
+        assertThat(waitingRsp.join().getBody().getChanges()).isEmpty();
+        assertThat(waitingRsp.join().getBody().getNextToken()).isEqualTo(rsp.join().getBody().getNextToken());
+    }
+
+    @Test
+    void fetchChanges_tooManyWaiters() {
+        when(productChangeRepository.findAllAfter(0L, 0L, 100)).thenReturn(Collections.emptyList());
+        when(productChangeRepository.findLast()).thenReturn(Optional.empty());
+
+        final CompletableFuture<ResponseEntity<FetchProductChangesResponse>> rsp1 = productChangeService.fetchChanges(null, null, "1");
+        final CompletableFuture<ResponseEntity<FetchProductChangesResponse>> rsp2 = productChangeService.fetchChanges(null, null, "1");
+        assertThat(rsp1).isNotDone();
+        assertThat(rsp2).isNotDone();
+
+        // Max number of requests is already waiting
+        final ResponseEntity<FetchProductChangesResponse> rejectedRsp = productChangeService.fetchChanges(null, null, "1").join();
+        assertThat(rejectedRsp.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejectedRsp.getBody().getErrorMessage()).isEqualTo("too many requests are waiting for changes;");
+
+        // Requests which don't wait are not limited
+        assertThat(productChangeService.fetchChanges(null, null, null).join().getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        // Once waiting requests are completed, a new request can wait again
+        final ProductChange change = new ProductChange(5L, 100L, 1L, ProductChangeType.DELETED, CHANGED_AT, null);
+        when(productChangeRepository.findLast()).thenReturn(Optional.of(change));
+        productChangeService.completeWaiters();
+        assertThat(rsp1).isDone();
+        assertThat(rsp2).isDone();
+        when(productChangeRepository.findAllAfter(100L, 5L, 100)).thenReturn(Collections.emptyList());
+        assertThat(productChangeService.fetchChanges(ProductChangeService.encodeToken(ProductChangeService.Position.of(change)), null, "1"))
+                .isNotDone();
+    }
+
+    @Test
+    void completeWaiters_countsPendingChanges() {
+        when(productChangeRepository.countPending()).thenReturn(3L);
+
+        // Metric scrapes don't query the database
+        assertThat(meterRegistry.get("product.changes.pending").gauge().value()).isZero();
+        verify(productChangeRepository, never()).countPending();
+
+        // Pending changes are counted by the poll, once per refresh interval
+        productChangeService.completeWaiters();
+        productChangeService.completeWaiters();
+        assertThat(meterRegistry.get("product.changes.pending").gauge().value()).isEqualTo(3.0);
+        verify(productChangeRepository, times(1)).countPending();
+    }
+}
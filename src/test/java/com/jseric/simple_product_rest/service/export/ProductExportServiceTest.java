@@ -0,0 +1,93 @@
+package com.jseric.simple_product_rest.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jseric.simple_product_rest.model.product.Product;
+import com.jseric.simple_product_rest.repository.ProductRepository;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class ProductExportServiceTest {
+    @Mock
+    ProductRepository productRepository;
+
+    @Mock
+    EntityManager entityManager;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    ProductExportService productExportService;
+
+    private final static String PRODUCT1_JSON = "{\"id\":1,\"code\":\"1234567890\",\"name\":\"Test name 123\",\"priceHrk\":75.00," +
+            "\"priceEur\":10.00,\"isAvailable\":true}";
+    private final static String PRODUCT2_JSON = "{\"id\":2,\"code\":\"1234567891\",\"name\":\"Test name 321\",\"priceHrk\":150.00," +
+            "\"priceEur\":20.00,\"description\":\"Test description 321\",\"isAvailable\":false}";
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        productExportService = new ProductExportService(productRepository, entityManager, objectMapper);
+    }
+
+    @Test
+    void exportAll_json() throws IOException {
+        when(productRepository.streamAll()).thenReturn(Stream.of(createProduct1(), createProduct2()));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertThat(productExportService.exportAll(outputStream, ExportFormat.JSON)).isEqualTo(2);
+        assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8))
+                .isEqualTo("[" + PRODUCT1_JSON + "," + PRODUCT2_JSON + "]");
+        verify(entityManager, times(2)).detach(any(Product.class));
+    }
+
+    @Test
+    void exportAll_ndjson() throws IOException {
+        when(productRepository.streamAll()).thenReturn(Stream.of(createProduct1(), createProduct2()));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertThat(productExportService.exportAll(outputStream, ExportFormat.NDJSON)).isEqualTo(2);
+        assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8))
+                .isEqualTo(PRODUCT1_JSON + "\n" + PRODUCT2_JSON + "\n");
+    }
+
+    @Test
+    void exportAll_empty() throws IOException {
+        when(productRepository.streamAll()).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertThat(productExportService.exportAll(outputStream, ExportFormat.JSON)).isZero();
+        assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("[]");
+
+        when(productRepository.streamAll()).thenReturn(Stream.empty());
+        outputStream = new ByteArrayOutputStream();
+        assertThat(productExportService.exportAll(outputStream, ExportFormat.NDJSON)).isZero();
+        assertThat(outputStream.toByteArray()).isEmpty();
+    }
+
+    private Product createProduct1() {
+        final Product product = new Product("1234567890", "Test name 123", new BigDecimal("75.00"), new BigDecimal("10.00"), null, true);
+        product.setId(1L);
+        return product;
+    }
+
+    private Product createProduct2() {
+        final Product product = new Product("1234567891", "Test name 321", new BigDecimal("150.00"), new BigDecimal("20.00"),
+                                            "Test description 321", false);
+        product.setId(2L);
+        return product;
+    }
+}
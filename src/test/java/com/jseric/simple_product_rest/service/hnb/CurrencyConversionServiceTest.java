@@ -2,10 +2,19 @@ package com.jseric.simple_product_rest.service.hnb;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.jseric.simple_product_rest.mock.WireMockManager;
+import com.jseric.simple_product_rest.service.hnb.CurrencyConversionService.ConversionRateKey;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -24,6 +33,24 @@ class CurrencyConversionServiceTest {
     @Autowired
     CurrencyConversionService currencyConversionService;
 
+    @Autowired
+    HnbCommunicator hnbCommunicator;
+
+    @Autowired
+    CircuitBreaker hnbCircuitBreaker;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        currencyConversionService.clearConversionRates();
+        hnbCircuitBreaker.reset();
+    }
+
+    // Circuit breaker is shared by the whole application context, so it is not left open for other tests
+    @AfterEach
+    void tearDown() {
+        hnbCircuitBreaker.reset();
+    }
+
     @Test
     void convertHrkToEur_withWorkingHnbApi() {
         stubFor(get("/tecajn/v1?valuta=EUR").willReturn(aResponse()
@@ -45,4 +72,60 @@ class CurrencyConversionServiceTest {
         assertThat(currencyConversionService.convertHrkToEur(NEGATIVE_HRK)).isEqualTo(BigDecimal.ZERO);
         assertThat(currencyConversionService.convertHrkToEur(POSITIVE_HRK)).isEqualTo(BigDecimal.ZERO);
     }
+
+    @Test
+    void convertHrkToEur_cachedConversionRate() {
+        WireMockManager.startHnbEurStub();
+
+        assertThat(currencyConversionService.convertHrkToEur(POSITIVE_HRK)).isEqualTo(POSITIVE_EUR);
+        assertThat(currencyConversionService.convertHrkToEur(NEGATIVE_HRK)).isEqualTo(NEGATIVE_EUR);
+        verify(1, getRequestedFor(urlEqualTo("/tecajn/v1?valuta=EUR")));
+
+        WireMockManager.stopHnbEurStub();
+    }
+
+    @Test
+    void convertHrkToEur_hnbApiDownAfterFetch() {
+        WireMockManager.startHnbEurStub();
+        assertThat(currencyConversionService.convertHrkToEur(POSITIVE_HRK)).isEqualTo(POSITIVE_EUR);
+        WireMockManager.stopHnbEurStub();
+
+        // Tomorrow's rate cannot be fetched, so today's rate is kept
+        currencyConversionService.refreshConversionRates();
+        assertThat(currencyConversionService.convertHrkToEur(POSITIVE_HRK)).isEqualTo(POSITIVE_EUR);
+    }
+
+    @Test
+    void fetchConversionRate_fallbackPolicy() {
+        final CurrencyConversionService staleRateService =
+                new CurrencyConversionService(hnbCommunicator, new SimpleMeterRegistry(), RateFallbackPolicy.STALE_RATE);
+        final CurrencyConversionService rejectService =
+                new CurrencyConversionService(hnbCommunicator, new SimpleMeterRegistry(), RateFallbackPolicy.REJECT);
+        final ConversionRateKey yesterday = new ConversionRateKey("EUR", CurrencyConversionService.today().minusDays(1));
+        staleRateService.putConversionRate(yesterday, new BigDecimal("7.5"));
+        rejectService.putConversionRate(yesterday, new BigDecimal("7.5"));
+
+        // HNB API is down and the circuit opens
+        WireMockManager.startHnbErrorStub(503);
+        for (int i = 0; i < 2; i++) {
+            assertThat(staleRateService.fetchTodaysEuroConversionRate()).isEqualTo(new BigDecimal("7.5"));
+            assertThat(rejectService.fetchTodaysEuroConversionRate()).isNull();
+        }
+        WireMockManager.stopHnbFaultStub();
+
+        assertThat(hnbCircuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(staleRateService.convertHrkToEur(POSITIVE_HRK)).isEqualTo(POSITIVE_EUR);
+        assertThat(rejectService.convertHrkToEur(POSITIVE_HRK)).isEqualTo(BigDecimal.ZERO);
+
+        // Previous rate is never used when fallback is not wanted (e.g. by re-pricing)
+        assertThat(staleRateService.fetchTodaysEuroConversionRateWithoutFallback()).isNull();
+    }
+
+    @Test
+    void fetchTodaysEuroConversionRateWithoutFallback() {
+        WireMockManager.startHnbEurStub();
+        assertThat(currencyConversionService.fetchTodaysEuroConversionRateWithoutFallback())
+                .isEqualTo(new BigDecimal(7.500000).setScale(6));
+        WireMockManager.stopHnbEurStub();
+    }
 }
@@ -0,0 +1,118 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import com.jseric.simple_product_rest.model.fe.ConvertedProductWrapper;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import com.jseric.simple_product_rest.repository.ExchangeRateRepository;
+import com.jseric.simple_product_rest.service.hnb.CurrencyConversionService.ConversionRateKey;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class ExchangeRateServiceTest {
+    private static final LocalDate TODAY = CurrencyConversionService.today();
+
+    @Mock
+    HnbCommunicator hnbCommunicator;
+
+    @Mock
+    ExchangeRateRepository exchangeRateRepository;
+
+    @Mock
+    CurrencyConversionService currencyConversionService;
+
+    ExchangeRateService exchangeRateService;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        exchangeRateService = new ExchangeRateService(
+                hnbCommunicator, exchangeRateRepository, currencyConversionService, 30, true);
+    }
+
+    @Test
+    void loadExchangeRates_downloadsMissingDays() {
+        final LocalDate lastSavedDate = TODAY.minusDays(3);
+        when(exchangeRateRepository.findAllFrom(TODAY.minusDays(37))).thenReturn(Collections.singletonList(eurRate(lastSavedDate, "7.5")));
+        final List<ExchangeRate> downloadedRates = Arrays.asList(
+                eurRate(TODAY, "7.534500"),
+                new ExchangeRate("JPY", TODAY, 100, new BigDecimal("5.000000")));
+        when(hnbCommunicator.fetchExchangeRates(lastSavedDate.plusDays(1), TODAY)).thenReturn(downloadedRates);
+
+        exchangeRateService.loadExchangeRates();
+
+        verify(exchangeRateRepository).saveAll(downloadedRates);
+        // Only today's and tomorrow's EUR rates are used for conversion of saved prices
+        verify(currencyConversionService, never()).putConversionRate(eq(new ConversionRateKey("EUR", lastSavedDate)), any());
+        verify(currencyConversionService).putConversionRate(
+                new ConversionRateKey("EUR", TODAY), new BigDecimal("7.534500"));
+        assertThat(exchangeRateService.validateConversion("jpy", null)).isEmpty();
+        assertThat(exchangeRateService.findConversion("jpy", null).get().getExchangeRate().getRatePerUnit())
+                .isEqualByComparingTo("0.05");
+    }
+
+    @Test
+    void loadExchangeRates_nothingMissing() {
+        when(exchangeRateRepository.findAllFrom(TODAY.minusDays(37))).thenReturn(Collections.singletonList(eurRate(TODAY, "7.5")));
+
+        exchangeRateService.loadExchangeRates();
+
+        verify(hnbCommunicator, never()).fetchExchangeRates(any(), any());
+    }
+
+    @Test
+    void validateConversion() {
+        when(hnbCommunicator.fetchExchangeRates(TODAY.minusDays(10), TODAY)).thenReturn(Arrays.asList(
+                eurRate(TODAY.minusDays(10), "7.4"),
+                eurRate(TODAY, "7.5")));
+        exchangeRateService.downloadExchangeRates(TODAY.minusDays(10), TODAY);
+
+        assertThat(exchangeRateService.validateConversion(null, null)).isEmpty();
+        assertThat(exchangeRateService.validateConversion("eur", null)).isEmpty();
+        // Rate of the latest list within a week is used
+        assertThat(exchangeRateService.validateConversion(null, TODAY.minusDays(9).toString())).isEmpty();
+        assertThat(exchangeRateService.findConversion(null, TODAY.minusDays(9).toString()).get().getExchangeRate())
+                .isEqualTo(eurRate(TODAY.minusDays(10), "7.4"));
+
+        assertThat(exchangeRateService.validateConversion("EURO", null)).isEqualTo("currency must be a 3 letter currency code;");
+        assertThat(exchangeRateService.validateConversion(null, "18.10.2026")).isEqualTo("date must be in yyyy-MM-dd format;");
+        assertThat(exchangeRateService.validateConversion(null, TODAY.plusDays(1).toString())).isEqualTo("date must not be in the future;");
+        assertThat(exchangeRateService.validateConversion("USD", null)).isEqualTo("no exchange rate for USD on " + TODAY + ";");
+        assertThat(exchangeRateService.validateConversion(null, TODAY.minusDays(20).toString()))
+                .isEqualTo("no exchange rate for EUR on " + TODAY.minusDays(20) + ";");
+        assertThat(exchangeRateService.findConversion(null, null)).isEmpty();
+    }
+
+    @Test
+    void priceConversion_copiesProducts() {
+        final ProductWrapper product = new ProductWrapper(1L, "1234567890", "Test name", new BigDecimal("75.00"),
+                                                          new BigDecimal("10.00"), null, true, 0L);
+        final ProductWrapper sparseProduct = new ProductWrapper();
+        sparseProduct.setId(2L);
+
+        final List<ProductWrapper> converted = new PriceConversion(eurRate(TODAY, "7.534500"))
+                .apply(Arrays.asList(product, sparseProduct));
+
+        assertThat(converted.get(0)).isInstanceOf(ConvertedProductWrapper.class);
+        assertThat(((ConvertedProductWrapper) converted.get(0)).getConvertedPrice().getAmount()).isEqualTo(new BigDecimal("9.95"));
+        assertThat(converted.get(0).getCode()).isEqualTo(product.getCode());
+        assertThat(converted.get(1)).isSameAs(sparseProduct);
+        assertThat(product).isNotInstanceOf(ConvertedProductWrapper.class);
+    }
+
+    private static ExchangeRate eurRate(final LocalDate date, final String rate) {
+        return new ExchangeRate("EUR", date, 1, new BigDecimal(rate));
+    }
+}
@@ -1,19 +1,44 @@
 package com.jseric.simple_product_rest.service.hnb;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import com.github.tomakehurst.wiremock.http.Fault;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import com.jseric.simple_product_rest.mock.WireMockManager;
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Short read timeout only here, so that other tests relying on the HNB stub don't fail on a slow response
+@SpringBootTest(properties = "com.jseric.simple_product_rest.hnb.http.read-timeout-ms=500")
 @WireMockTest(httpPort = 8090)
 class HnbCommunicatorTest {
     @Autowired
     HnbCommunicator hnbCommunicator;
 
+    @Autowired
+    CircuitBreaker hnbCircuitBreaker;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        hnbCircuitBreaker.reset();
+    }
+
+    // Circuit breaker is shared by the whole application context, so it is not left open for other tests
+    @AfterEach
+    void tearDown() {
+        hnbCircuitBreaker.reset();
+    }
+
     @Test
     void fetchTodaysEuroConversionRate_successfulFetch() {
         WireMockManager.startHnbEurStub();
@@ -32,4 +57,74 @@ class HnbCommunicatorTest {
     void fetchTodaysEuroConversionRate_serviceIsDown() {
         assertThat(hnbCommunicator.fetchTodaysEuroConversionRate()).isNull();
     }
+
+    @Test
+    void fetchTodaysEuroConversionRate_readTimeout() {
+        WireMockManager.startHnbSlowStub(2000);
+        assertThat(hnbCommunicator.fetchTodaysEuroConversionRate()).isNull();
+        WireMockManager.stopHnbSlowStub();
+
+        // Timed out request is not retried
+        verify(1, getRequestedFor(urlEqualTo("/tecajn/v1?valuta=EUR")));
+    }
+
+    @Test
+    void fetchTodaysEuroConversionRate_retriesResetConnection() {
+        WireMockManager.startHnbFaultOnceStub(Fault.CONNECTION_RESET_BY_PEER);
+        assertThat(hnbCommunicator.fetchTodaysEuroConversionRate()).isEqualTo(new BigDecimal(7.500000).setScale(6));
+        WireMockManager.stopHnbFaultStub();
+
+        verify(2, getRequestedFor(urlEqualTo("/tecajn/v1?valuta=EUR")));
+    }
+
+    @Test
+    void fetchTodaysEuroConversionRate_circuitBreakerOpens() {
+        WireMockManager.startHnbErrorStub(503);
+        // Every call is retried, so the circuit opens during the second call
+        assertThat(hnbCommunicator.fetchTodaysEuroConversionRate()).isNull();
+        assertThat(hnbCommunicator.fetchTodaysEuroConversionRate()).isNull();
+        assertThat(hnbCircuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        verify(4, getRequestedFor(urlEqualTo("/tecajn/v1?valuta=EUR")));
+
+        // Open circuit fails fast, without sending a request
+        WireMockManager.stopHnbFaultStub();
+        WireMockManager.startHnbEurStub();
+        assertThat(hnbCommunicator.fetchTodaysEuroConversionRate()).isNull();
+        WireMockManager.stopHnbEurStub();
+        verify(4, getRequestedFor(urlEqualTo("/tecajn/v1?valuta=EUR")));
+    }
+
+    @Test
+    void fetchTodaysEuroConversionRate_clientErrorDoesNotOpenCircuit() {
+        WireMockManager.startHnbErrorStub(400);
+        for (int i = 0; i < 5; i++) {
+            assertThat(hnbCommunicator.fetchTodaysEuroConversionRate()).isNull();
+        }
+        WireMockManager.stopHnbFaultStub();
+
+        assertThat(hnbCircuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        verify(5, getRequestedFor(urlEqualTo("/tecajn/v1?valuta=EUR")));
+    }
+
+    @Test
+    void fetchExchangeRates_successfulFetch() {
+        WireMockManager.startHnbRangeStub(
+                "[{\"Datum primjene\":\"17.10.2026\",\"Valuta\":\"EUR\",\"Jedinica\":1,\"Srednji za devize\":\"7,534500\"}," +
+                " {\"Datum primjene\":\"17.10.2026\",\"Valuta\":\"JPY\",\"Jedinica\":100,\"Srednji za devize\":\"5,120000\"}," +
+                " {\"Datum primjene\":\"18.10.2026\",\"Valuta\":\"EUR\",\"Jedinica\":1,\"Srednji za devize\":\"7,535000\"}]");
+        final List<ExchangeRate> rates = hnbCommunicator.fetchExchangeRates(LocalDate.of(2026, 10, 17), LocalDate.of(2026, 10, 18));
+        WireMockManager.stopHnbRangeStub();
+
+        assertThat(rates).containsExactly(
+                new ExchangeRate("EUR", LocalDate.of(2026, 10, 17), 1, new BigDecimal("7.534500")),
+                new ExchangeRate("JPY", LocalDate.of(2026, 10, 17), 100, new BigDecimal("5.120000")),
+                new ExchangeRate("EUR", LocalDate.of(2026, 10, 18), 1, new BigDecimal("7.535000")));
+    }
+
+    @Test
+    void fetchExchangeRates_invalidResponse() {
+        WireMockManager.startHnbRangeStub("[{\"Valuta\":\"EUR\",\"Jedinica\":1,\"Srednji za devize\":\"7,534500\"}]");
+        assertThat(hnbCommunicator.fetchExchangeRates(LocalDate.of(2026, 10, 17), LocalDate.of(2026, 10, 18))).isNull();
+        WireMockManager.stopHnbRangeStub();
+    }
 }
@@ -0,0 +1,61 @@
+package com.jseric.simple_product_rest.service.hnb;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.jseric.simple_product_rest.model.rate.ExchangeRate;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+class HnbResponseParserTest {
+    @Test
+    void parseConversionRate_skipsOtherFields() throws IOException {
+        final String response = "[{\"Država\":\"EMU\",\"Nested\":{\"Srednji za devize\":\"1,0\"},\"Jedinica\":1," +
+                "\"Srednji za devize\":\"7,534500\",\"Prodajni za devize\":\"7,557000\"}]";
+        assertThat(HnbResponseParser.parseConversionRate(body(response))).isEqualTo(new BigDecimal("7.534500"));
+    }
+
+    @Test
+    void parseConversionRate_emptyResponse() throws IOException {
+        assertThat(HnbResponseParser.parseConversionRate(body("[]"))).isNull();
+    }
+
+    @Test
+    void parseConversionRate_invalidResponse() {
+        assertThatThrownBy(() -> HnbResponseParser.parseConversionRate(body("[{\"Valuta\":\"EUR\"}]")))
+                .isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> HnbResponseParser.parseConversionRate(body("{\"Srednji za devize\":\"7,5\"}")))
+                .isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> HnbResponseParser.parseConversionRate(body("[{\"Srednji za devize\":\"7,5x\"}]")))
+                .isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> HnbResponseParser.parseConversionRate(body("[{\"Srednji za devize\":7.5}]")))
+                .isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void parseExchangeRates_allRates() throws IOException {
+        final String response = "[{\"Datum primjene\":\"01.06.2022\",\"Valuta\":\"EUR\",\"Jedinica\":1," +
+                "\"Srednji za devize\":\"7,534500\"},{\"Valuta\":\"HUF\",\"Jedinica\":100," +
+                "\"Srednji za devize\":\"1,890123\",\"Datum primjene\":\"02.06.2022\",\"Država\":\"Mađarska\"}]";
+        assertThat(HnbResponseParser.parseExchangeRates(body(response))).isEqualTo(List.of(
+                new ExchangeRate("EUR", LocalDate.of(2022, 6, 1), 1, new BigDecimal("7.534500")),
+                new ExchangeRate("HUF", LocalDate.of(2022, 6, 2), 100, new BigDecimal("1.890123"))));
+    }
+
+    @Test
+    void parseExchangeRates_missingField() {
+        assertThatThrownBy(() -> HnbResponseParser.parseExchangeRates(
+                body("[{\"Valuta\":\"EUR\",\"Jedinica\":1,\"Srednji za devize\":\"7,534500\"}]")))
+                .isInstanceOf(JsonParseException.class);
+    }
+
+    private static InputStream body(final String response) {
+        return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,200 @@
+package com.jseric.simple_product_rest.service.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jseric.simple_product_rest.model.fe.CreateProductRequest;
+import com.jseric.simple_product_rest.model.fe.CreateProductResponse;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest
+class IdempotencyServiceTest {
+    @Autowired
+    ObjectMapper objectMapper;
+
+    IdempotencyService idempotencyService;
+
+    // Number of times the request was actually run
+    AtomicInteger executions;
+
+    private final static String OPERATION = "POST /api/v1/products";
+    private final static String CLIENT = "ip:10.0.0.1";
+    private final static String KEY = "5f0c7a56-7a3e-4c55-9e1b-1f4a0f1d2c3b";
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        idempotencyService = new IdempotencyService(100_000L, 1000, 60L, objectMapper, new SimpleMeterRegistry());
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void execute_noKey() {
+        final CreateProductRequest reqBody = request("1234567890");
+        execute(null, reqBody, HttpStatus.CREATED);
+        final ResponseEntity<CreateProductResponse> rsp = execute(null, reqBody, HttpStatus.CREATED).join();
+
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(rsp.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void execute_retryIsReplayed() {
+        final ResponseEntity<CreateProductResponse> rsp = execute(KEY, request("1234567890"), HttpStatus.CREATED).join();
+        final ResponseEntity<CreateProductResponse> retryRsp = execute(KEY, request("1234567890"), HttpStatus.CREATED).join();
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(retryRsp.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retryRsp.getBody()).isEqualTo(rsp.getBody());
+        assertThat(retryRsp.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+
+        // Client errors are stored as well
+        execute("other-key", request(null), HttpStatus.BAD_REQUEST).join();
+        assertThat(execute("other-key", request(null), HttpStatus.BAD_REQUEST).join().getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(executions.get()).isEqualTo(2);
+
+        // Keys are unique per operation
+        idempotencyService.execute(CLIENT, KEY, "PUT /api/v1/products/1", request("1234567890"),
+                () -> response(HttpStatus.OK), IdempotencyServiceTest::errorBody).join();
+        assertThat(executions.get()).isEqualTo(3);
+    }
+
+    @Test
+    void execute_keyUsedByDifferentClients() {
+        final ResponseEntity<CreateProductResponse> rsp = execute("key:shop", KEY, request("1234567890"), HttpStatus.CREATED).join();
+        final ResponseEntity<CreateProductResponse> otherRsp = execute("key:importer", KEY, request("1234567890"), HttpStatus.CREATED).join();
+
+        // Each client has its own response, neither is a replay
+        assertThat(executions.get()).isEqualTo(2);
+        assertThat(otherRsp.getBody().getProduct().getId()).isNotEqualTo(rsp.getBody().getProduct().getId());
+        assertThat(otherRsp.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+
+        // Retries get the response of their own client
+        final ResponseEntity<CreateProductResponse> retryRsp = execute("key:shop", KEY, request("1234567890"), HttpStatus.CREATED).join();
+        final ResponseEntity<CreateProductResponse> otherRetryRsp = execute("key:importer", KEY, request("1234567890"), HttpStatus.CREATED).join();
+        assertThat(executions.get()).isEqualTo(2);
+        assertThat(retryRsp.getBody()).isEqualTo(rsp.getBody());
+        assertThat(otherRetryRsp.getBody()).isEqualTo(otherRsp.getBody());
+    }
+
+    @Test
+    void execute_keyReusedForDifferentRequest() {
+        execute(KEY, request("1234567890"), HttpStatus.CREATED).join();
+        final ResponseEntity<CreateProductResponse> rsp = execute(KEY, request("0987654321"), HttpStatus.CREATED).join();
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo("Idempotency-Key was already used for a different request;");
+    }
+
+    @Test
+    void execute_requestInProgress() {
+        final CompletableFuture<ResponseEntity<CreateProductResponse>> pendingRsp = new CompletableFuture<>();
+        final CompletableFuture<ResponseEntity<CreateProductResponse>> rspFuture = idempotencyService.execute(
+                CLIENT, KEY, OPERATION, request("1234567890"), () -> pendingRsp, IdempotencyServiceTest::errorBody);
+
+        final ResponseEntity<CreateProductResponse> retryRsp = execute(KEY, request("1234567890"), HttpStatus.CREATED).join();
+        assertThat(retryRsp.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(retryRsp.getBody().getErrorMessage()).isEqualTo("request with this Idempotency-Key is still in progress;");
+        assertThat(executions.get()).isZero();
+
+        // Another client using the same key is not blocked by it
+        assertThat(execute("key:importer", KEY, request("1234567890"), HttpStatus.CREATED).join().getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+        assertThat(executions.get()).isEqualTo(1);
+
+        // After the first request finishes, its response is replayed
+        pendingRsp.complete(new ResponseEntity<>(new CreateProductResponse(), HttpStatus.CREATED));
+        assertThat(rspFuture.join().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(execute(KEY, request("1234567890"), HttpStatus.CREATED).join().getHeaders()
+                .getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_serverErrorIsNotStored() {
+        assertThat(execute(KEY, request("1234567890"), HttpStatus.SERVICE_UNAVAILABLE).join().getStatusCode())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        final ResponseEntity<CreateProductResponse> retryRsp = execute(KEY, request("1234567890"), HttpStatus.CREATED).join();
+
+        assertThat(executions.get()).isEqualTo(2);
+        assertThat(retryRsp.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retryRsp.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+    }
+
+    @Test
+    void execute_responseTooLargeToStore() {
+        idempotencyService = new IdempotencyService(100_000L, 100, 60L, objectMapper, new SimpleMeterRegistry());
+
+        assertThat(execute(KEY, request("1234567890"), HttpStatus.CREATED).join().getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+        final ResponseEntity<CreateProductResponse> retryRsp = execute(KEY, request("1234567890"), HttpStatus.CREATED).join();
+
+        // Request is not run again, even though its response cannot be replayed
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(retryRsp.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(retryRsp.getBody().getErrorMessage())
+                .isEqualTo("request with this Idempotency-Key was already run, but its response is too large to be replayed;");
+
+        // Small responses are still replayed
+        execute("other-key", request(null), HttpStatus.NO_CONTENT).join();
+        assertThat(execute("other-key", request(null), HttpStatus.NO_CONTENT).join().getHeaders()
+                .getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void execute_invalidKey() {
+        assertThat(execute(" ", request("1234567890"), HttpStatus.CREATED).join().getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        final ResponseEntity<CreateProductResponse> rsp = execute("k".repeat(256), request("1234567890"), HttpStatus.CREATED).join();
+
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo("Idempotency-Key must be 1 to 255 characters long;");
+        assertThat(executions.get()).isZero();
+    }
+
+    private CompletableFuture<ResponseEntity<CreateProductResponse>> execute(final String key,
+                                                                            final CreateProductRequest reqBody,
+                                                                            final HttpStatus status) {
+        return execute(CLIENT, key, reqBody, status);
+    }
+
+    private CompletableFuture<ResponseEntity<CreateProductResponse>> execute(final String client, final String key,
+                                                                            final CreateProductRequest reqBody,
+                                                                            final HttpStatus status) {
+        return idempotencyService.execute(client, key, OPERATION, reqBody, () -> response(status), IdempotencyServiceTest::errorBody);
+    }
+
+    private CompletableFuture<ResponseEntity<CreateProductResponse>> response(final HttpStatus status) {
+        if (status == HttpStatus.NO_CONTENT) {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture(new ResponseEntity<>(status));
+        }
+        final CreateProductResponse rspBody = new CreateProductResponse();
+        rspBody.setProduct(new ProductWrapper(executions.incrementAndGet() + 0L, "1234567890", "Test name 123",
+                new BigDecimal("75.00"), new BigDecimal("10.00"), null, true, 1L));
+        return CompletableFuture.completedFuture(new ResponseEntity<>(rspBody, status));
+    }
+
+    private static CreateProductRequest request(final String code) {
+        final CreateProductRequest reqBody = new CreateProductRequest();
+        reqBody.setProduct(new ProductWrapper(null, code, "Test name 123", new BigDecimal("75.00"), null, null, true, null));
+        return reqBody;
+    }
+
+    private static CreateProductResponse errorBody(final String errorMessage) {
+        final CreateProductResponse rspBody = new CreateProductResponse();
+        rspBody.setErrorMessage(errorMessage);
+        return rspBody;
+    }
+}
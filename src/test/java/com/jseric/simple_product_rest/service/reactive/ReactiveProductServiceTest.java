@@ -0,0 +1,212 @@
+package com.jseric.simple_product_rest.service.reactive;
+
+import com.jseric.simple_product_rest.model.fe.CreateProductRequest;
+import com.jseric.simple_product_rest.model.fe.CreateProductResponse;
+import com.jseric.simple_product_rest.model.fe.FetchProductResponse;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.product.ProductRecord;
+import com.jseric.simple_product_rest.repository.reactive.ReactiveProductRepository;
+import com.jseric.simple_product_rest.service.hnb.ReactiveCurrencyConversionService;
+import com.jseric.simple_product_rest.service.validation.ProductValidationService;
+import io.r2dbc.postgresql.api.ErrorDetails;
+import io.r2dbc.postgresql.api.PostgresqlException;
+import io.r2dbc.postgresql.message.backend.Field;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+class ReactiveProductServiceTest {
+    @Mock
+    ReactiveProductRepository reactiveProductRepository;
+
+    @Mock
+    R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    @Mock
+    ReactiveCurrencyConversionService reactiveCurrencyConversionService;
+
+    @Autowired
+    ProductValidationService productValidationService;
+
+    ReactiveProductService reactiveProductService;
+
+    private final static Long EXISTING_ID = 1L;
+    private final static Long NONEXISTING_ID = 3L;
+    private final static String VALID_CODE = "1234567890";
+    private final static String VALID_NAME = "Test name 123";
+    private final static BigDecimal VALID_PRICE_HRK = new BigDecimal(75.00).setScale(2);
+    private final static BigDecimal VALID_PRICE_EUR = new BigDecimal(10.00).setScale(2);
+    private final static Boolean VALID_IS_AVAILABLE = true;
+
+    private final static String ERR_CREATE_UPDATE_CODE_NOT_UNIQUE = "another object with same code field already exists in system;";
+    private final static String ERR_PRODUCT_NOT_FOUND = "product was not found;";
+    private final static String ERR_PRODUCT_MODIFIED = "product was modified by another request;";
+    private final static String ERR_CONVERSION_RATE_UNAVAILABLE = "conversion rate is not available, try again later;";
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        reactiveProductService = new ReactiveProductService(reactiveProductRepository, r2dbcEntityTemplate,
+                                                            productValidationService, reactiveCurrencyConversionService);
+
+        when(reactiveCurrencyConversionService.convertHrkToEur(VALID_PRICE_HRK)).thenReturn(Mono.just(VALID_PRICE_EUR));
+        when(reactiveProductRepository.findActiveById(EXISTING_ID)).thenReturn(Mono.just(createValidRecord(EXISTING_ID)));
+        when(reactiveProductRepository.findActiveById(NONEXISTING_ID)).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void createAndSave_validRequest() {
+        when(reactiveProductRepository.insert(any(ProductRecord.class)))
+                .thenAnswer(invocation -> Mono.just(((ProductRecord) invocation.getArgument(0)).setId(EXISTING_ID).setVersion(0L)));
+
+        final ResponseEntity<CreateProductResponse> rsp = reactiveProductService.createAndSave(createValidRequest()).block();
+
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(rsp.getBody().getErrorMessage()).isNull();
+        assertThat(rsp.getBody().getProduct().getId()).isEqualTo(EXISTING_ID);
+        assertThat(rsp.getBody().getProduct().getPriceEur()).isEqualTo(VALID_PRICE_EUR);
+    }
+
+    @Test
+    void createAndSave_invalidRequest() {
+        final CreateProductRequest request = new CreateProductRequest();
+        request.setProduct(new ProductWrapper());
+
+        final ResponseEntity<CreateProductResponse> rsp = reactiveProductService.createAndSave(request).block();
+
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rsp.getBody().getErrorMessage()).isNotEmpty();
+    }
+
+    @Test
+    void createAndSave_codeNotUnique() {
+        when(reactiveProductRepository.insert(any(ProductRecord.class))).thenReturn(Mono.error(createCodeConflictException()));
+
+        final ResponseEntity<CreateProductResponse> rsp = reactiveProductService.createAndSave(createValidRequest()).block();
+
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo(ERR_CREATE_UPDATE_CODE_NOT_UNIQUE);
+    }
+
+    @Test
+    void createAndSave_conversionRateUnavailable() {
+        when(reactiveCurrencyConversionService.convertHrkToEur(VALID_PRICE_HRK)).thenReturn(Mono.empty());
+
+        final ResponseEntity<CreateProductResponse> rsp = reactiveProductService.createAndSave(createValidRequest()).block();
+
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo(ERR_CONVERSION_RATE_UNAVAILABLE);
+        verify(reactiveProductRepository, never()).insert(any(ProductRecord.class));
+    }
+
+    @Test
+    void update_conversionRateUnavailable() {
+        when(reactiveCurrencyConversionService.convertHrkToEur(VALID_PRICE_HRK)).thenReturn(Mono.empty());
+
+        final ResponseEntity<CreateProductResponse> rsp =
+                reactiveProductService.update(EXISTING_ID.toString(), createValidRequest()).block();
+
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo(ERR_CONVERSION_RATE_UNAVAILABLE);
+        verify(reactiveProductRepository, never()).updateIfActive(any(ProductRecord.class));
+    }
+
+    @Test
+    void update_concurrentModification() {
+        final CreateProductRequest request = createValidRequest();
+        request.getProduct().setVersion(0L);
+        when(reactiveProductRepository.updateIfActive(any(ProductRecord.class))).thenReturn(Mono.empty());
+        when(reactiveProductRepository.existsActiveById(EXISTING_ID)).thenReturn(Mono.just(true));
+
+        final ResponseEntity<CreateProductResponse> rsp =
+                reactiveProductService.update(EXISTING_ID.toString(), request).block();
+
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo(ERR_PRODUCT_MODIFIED);
+    }
+
+    @Test
+    void update_nonexistingProduct() {
+        when(reactiveProductRepository.updateIfActive(any(ProductRecord.class))).thenReturn(Mono.empty());
+
+        final ResponseEntity<CreateProductResponse> rsp =
+                reactiveProductService.update(NONEXISTING_ID.toString(), createValidRequest()).block();
+
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo(ERR_PRODUCT_NOT_FOUND);
+    }
+
+    @Test
+    void delete() {
+        when(reactiveProductRepository.softDeleteById(EXISTING_ID)).thenReturn(Mono.just(1));
+        when(reactiveProductRepository.softDeleteById(NONEXISTING_ID)).thenReturn(Mono.just(0));
+
+        assertThat(reactiveProductService.delete(EXISTING_ID.toString()).block().getStatusCode())
+                .isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(reactiveProductService.delete(NONEXISTING_ID.toString()).block().getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void fetchById() {
+        final ResponseEntity<FetchProductResponse> rsp = reactiveProductService.fetchById(EXISTING_ID.toString()).block();
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rsp.getBody().getProducts()).hasSize(1);
+        assertThat(rsp.getBody().getProducts().get(0).getId()).isEqualTo(EXISTING_ID);
+
+        assertThat(reactiveProductService.fetchById(NONEXISTING_ID.toString()).block().getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private static CreateProductRequest createValidRequest() {
+        final ProductWrapper product = new ProductWrapper();
+        product.setCode(VALID_CODE);
+        product.setName(VALID_NAME);
+        product.setPriceHrk(VALID_PRICE_HRK);
+        product.setIsAvailable(VALID_IS_AVAILABLE);
+
+        final CreateProductRequest request = new CreateProductRequest();
+        request.setProduct(product);
+        return request;
+    }
+
+    private static ProductRecord createValidRecord(final Long id) {
+        return new ProductRecord()
+                .setId(id)
+                .setCode(VALID_CODE)
+                .setName(VALID_NAME)
+                .setPriceHrk(VALID_PRICE_HRK)
+                .setPriceEur(VALID_PRICE_EUR)
+                .setIsAvailable(VALID_IS_AVAILABLE)
+                .setVersion(0L);
+    }
+
+    /**
+     * Exception thrown by R2DBC when product_code_uq unique index is violated
+     */
+    private static DataIntegrityViolationException createCodeConflictException() {
+        return new DataIntegrityViolationException("duplicate key", new CodeConflictException());
+    }
+
+    private static class CodeConflictException extends R2dbcDataIntegrityViolationException implements PostgresqlException {
+        @Override
+        public ErrorDetails getErrorDetails() {
+            return new ErrorDetails(Collections.singletonList(new Field(Field.FieldType.CONSTRAINT_NAME, "product_code_uq")));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.jseric.simple_product_rest.service.repricing;
+
+import com.jseric.simple_product_rest.model.product.RepricingJob;
+import com.jseric.simple_product_rest.model.product.RepricingJobStatus;
+import com.jseric.simple_product_rest.repository.RepricingRepository;
+import com.jseric.simple_product_rest.service.cache.ProductCache;
+import com.jseric.simple_product_rest.service.hnb.CurrencyConversionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+@SpringBootTest
+class RepricingServiceTest {
+    private static final LocalDate TODAY = CurrencyConversionService.today();
+    private static final BigDecimal RATE = new BigDecimal("7.534500");
+
+    @Mock
+    RepricingRepository repricingRepository;
+
+    @Mock
+    CurrencyConversionService currencyConversionService;
+
+    @Mock
+    ProductCache productCache;
+
+    @Autowired
+    CurrencyConversionService conversionService;
+
+    @Autowired
+    NamedParameterJdbcTemplate jdbcTemplate;
+
+    RepricingService repricingService;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        repricingService = new RepricingService(repricingRepository, currencyConversionService, productCache,
+                                                TransactionOperations.withoutTransaction(), new SimpleMeterRegistry(),
+                                                2, 0, 60000, true);
+        when(currencyConversionService.fetchTodaysEuroConversionRateWithoutFallback()).thenReturn(RATE);
+    }
+
+    @Test
+    void reprice_newJob() {
+        when(repricingRepository.findJob(TODAY)).thenReturn(Optional.empty());
+        when(repricingRepository.lockJob(TODAY)).thenReturn(
+                Optional.of(runningJob(0L, 0L)), Optional.of(runningJob(5L, 2L)), Optional.of(runningJob(9L, 3L)));
+        when(repricingRepository.findChunkEnd(0, 2)).thenReturn(Optional.of(5L));
+        when(repricingRepository.findChunkEnd(5, 2)).thenReturn(Optional.of(9L));
+        when(repricingRepository.findChunkEnd(9, 2)).thenReturn(Optional.empty());
+        when(repricingRepository.repriceChunk(0, 5, RATE)).thenReturn(Arrays.asList(1L, 5L));
+        when(repricingRepository.repriceChunk(5, 9, RATE)).thenReturn(Collections.singletonList(9L));
+
+        repricingService.reprice();
+
+        final InOrder inOrder = inOrder(repricingRepository);
+        inOrder.verify(repricingRepository).startJob(TODAY, RATE);
+        inOrder.verify(repricingRepository).lockJob(TODAY);
+        inOrder.verify(repricingRepository).saveProgress(TODAY, 5, 2);
+        inOrder.verify(repricingRepository).lockJob(TODAY);
+        inOrder.verify(repricingRepository).saveProgress(TODAY, 9, 1);
+        inOrder.verify(repricingRepository).lockJob(TODAY);
+        inOrder.verify(repricingRepository).completeJob(TODAY);
+        verify(productCache).invalidate(1L);
+        verify(productCache).invalidate(5L);
+        verify(productCache).invalidate(9L);
+    }
+
+    @Test
+    void reprice_resumesInterruptedJob() {
+        when(repricingRepository.findJob(TODAY)).thenReturn(Optional.of(runningJob(5L, 2L)));
+        when(repricingRepository.lockJob(TODAY)).thenReturn(Optional.of(runningJob(5L, 2L)), Optional.of(runningJob(9L, 2L)));
+        when(repricingRepository.findChunkEnd(5, 2)).thenReturn(Optional.of(9L));
+        when(repricingRepository.findChunkEnd(9, 2)).thenReturn(Optional.empty());
+        when(repricingRepository.repriceChunk(5, 9, RATE)).thenReturn(Collections.emptyList());
+
+        repricingService.reprice();
+
+        verify(repricingRepository, never()).startJob(any(), any());
+        verify(repricingRepository, never()).findChunkEnd(0, 2);
+        verify(repricingRepository).saveProgress(TODAY, 9, 0);
+        verify(repricingRepository).completeJob(TODAY);
+    }
+
+    @Test
+    void reprice_completedJob() {
+        when(repricingRepository.findJob(TODAY)).thenReturn(Optional.of(
+                new RepricingJob(TODAY, new BigDecimal("7.5345"), RepricingJobStatus.COMPLETED, 9L, 3L)));
+
+        repricingService.reprice();
+
+        verify(repricingRepository, never()).startJob(any(), any());
+        verify(repricingRepository, never()).findChunkEnd(anyLong(), anyInt());
+    }
+
+    @Test
+    void reprice_rateChanged() {
+        when(repricingRepository.findJob(TODAY)).thenReturn(Optional.of(
+                new RepricingJob(TODAY, new BigDecimal("7.5"), RepricingJobStatus.COMPLETED, 9L, 3L)));
+        when(repricingRepository.lockJob(TODAY)).thenReturn(Optional.of(runningJob(0L, 0L)));
+        when(repricingRepository.findChunkEnd(0, 2)).thenReturn(Optional.empty());
+
+        repricingService.reprice();
+
+        verify(repricingRepository).startJob(TODAY, RATE);
+        verify(repricingRepository).completeJob(TODAY);
+    }
+
+    @Test
+    void reprice_runningOnAnotherInstance() {
+        when(repricingRepository.findJob(TODAY)).thenReturn(Optional.of(runningJob(5L, 2L)));
+        // Job row is locked by the chunk transaction of another instance
+        when(repricingRepository.lockJob(TODAY)).thenReturn(Optional.empty());
+
+        repricingService.reprice();
+
+        verify(repricingRepository, never()).findChunkEnd(anyLong(), anyInt());
+        verify(repricingRepository, never()).repriceChunk(anyLong(), anyLong(), any());
+        verify(repricingRepository, never()).completeJob(any());
+    }
+
+    @Test
+    void reprice_restartedWithAnotherRate() {
+        when(repricingRepository.findJob(TODAY)).thenReturn(Optional.of(runningJob(5L, 2L)));
+        when(repricingRepository.lockJob(TODAY)).thenReturn(Optional.of(
+                new RepricingJob(TODAY, new BigDecimal("7.6"), RepricingJobStatus.RUNNING, 0L, 0L)));
+
+        repricingService.reprice();
+
+        verify(repricingRepository, never()).repriceChunk(anyLong(), anyLong(), any());
+        verify(repricingRepository, never()).completeJob(any());
+    }
+
+    @Test
+    void reprice_unknownRate() {
+        // Previous rate is never used, job is retried until today's rate is fetched
+        repricingService = new RepricingService(repricingRepository, currencyConversionService, productCache,
+                                                TransactionOperations.withoutTransaction(), new SimpleMeterRegistry(),
+                                                2, 0, 10, true);
+        when(currencyConversionService.fetchTodaysEuroConversionRateWithoutFallback()).thenReturn(null, RATE);
+        when(repricingRepository.findJob(TODAY)).thenReturn(Optional.of(
+                new RepricingJob(TODAY, RATE, RepricingJobStatus.COMPLETED, 9L, 3L)));
+
+        repricingService.reprice();
+        verify(repricingRepository, never()).startJob(any(), any());
+
+        verify(repricingRepository, timeout(5000)).findJob(TODAY);
+        verify(currencyConversionService, never()).fetchTodaysEuroConversionRate();
+        repricingService.shutdown();
+    }
+
+    @Test
+    void repricedPrice_roundedLikeConversionService() {
+        final BigDecimal rate = new BigDecimal("2.000000");
+        // Half cent ties (rounded to even cent), a near tie and regular values
+        for (final String priceHrk : Arrays.asList("0.05", "0.07", "-0.05", "-0.07", "10.01", "10.03", "0.0500001", "75.00")) {
+            final BigDecimal repricedPrice = jdbcTemplate.queryForObject(
+                    "SELECT " + RepricingRepository.PRICE_EUR + " FROM (SELECT CAST(:priceHrk AS numeric) AS price_hrk) p",
+                    new MapSqlParameterSource("priceHrk", new BigDecimal(priceHrk)).addValue("rate", rate),
+                    BigDecimal.class);
+            assertThat(repricedPrice).as(priceHrk)
+                    .isEqualByComparingTo(conversionService.convertHrkToEur(new BigDecimal(priceHrk), rate));
+        }
+        assertThat(conversionService.convertHrkToEur(new BigDecimal("0.05"), rate)).isEqualTo(new BigDecimal("0.02"));
+        assertThat(conversionService.convertHrkToEur(new BigDecimal("0.07"), rate)).isEqualTo(new BigDecimal("0.04"));
+    }
+
+    private static RepricingJob runningJob(final long lastProductId, final long updatedCount) {
+        return new RepricingJob(TODAY, RATE, RepricingJobStatus.RUNNING, lastProductId, updatedCount);
+    }
+}
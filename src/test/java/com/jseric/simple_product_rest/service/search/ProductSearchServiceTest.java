@@ -0,0 +1,154 @@
+package com.jseric.simple_product_rest.service.search;
+
+import com.jseric.simple_product_rest.model.fe.ProductSearchRequest;
+import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import com.jseric.simple_product_rest.model.fe.SearchProductResponse;
+import com.jseric.simple_product_rest.model.product.ProductSearchCriteria;
+import com.jseric.simple_product_rest.model.product.ProductSortField;
+import com.jseric.simple_product_rest.repository.ProductSearchRepository;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest
+class ProductSearchServiceTest {
+    @Mock
+    ProductSearchRepository productSearchRepository;
+
+    ProductSearchService productSearchService;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        productSearchService = new ProductSearchService(productSearchRepository);
+    }
+
+    @Test
+    void search_filtersAndDefaults() {
+        when(productSearchRepository.search(any())).thenReturn(Collections.singletonList(createProduct(1L, "Test name 123", "75.00")));
+
+        final ProductSearchRequest request = new ProductSearchRequest();
+        request.setQ(" test ");
+        request.setCodePrefix("12");
+        request.setMinPrice("10");
+        request.setMaxPrice("20.5");
+        request.setCurrency("eur");
+        request.setIsAvailable("false");
+
+        final ResponseEntity<SearchProductResponse> rsp = productSearchService.search(request);
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rsp.getBody().getProducts()).hasSize(1);
+        assertThat(rsp.getBody().getNextCursor()).isNull();
+
+        final ArgumentCaptor<ProductSearchCriteria> captor = ArgumentCaptor.forClass(ProductSearchCriteria.class);
+        verify(productSearchRepository).search(captor.capture());
+        final ProductSearchCriteria criteria = captor.getValue();
+        assertThat(criteria.getText()).isEqualTo("test");
+        assertThat(criteria.getName()).isNull();
+        assertThat(criteria.getCodePrefix()).isEqualTo("12");
+        assertThat(criteria.getMinPrice()).isEqualByComparingTo("10");
+        assertThat(criteria.getMaxPrice()).isEqualByComparingTo("20.5");
+        assertThat(criteria.isPriceInEur()).isTrue();
+        assertThat(criteria.getIsAvailable()).isFalse();
+        assertThat(criteria.getSortField()).isEqualTo(ProductSortField.ID);
+        assertThat(criteria.isDescending()).isFalse();
+        assertThat(criteria.getLimit()).isEqualTo(100);
+        assertThat(criteria.getCursorId()).isNull();
+    }
+
+    @Test
+    void search_invalidParameters() {
+        final ProductSearchRequest request = new ProductSearchRequest();
+        request.setName("ab");
+        request.setMinPrice("-1");
+        request.setMaxPrice("abc");
+        request.setCurrency("USD");
+        request.setIsAvailable("yes");
+        request.setSort("code");
+        request.setLimit("1001");
+
+        final ResponseEntity<SearchProductResponse> rsp = productSearchService.search(request);
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo(
+                "name must have between 3 and 64 characters;" +
+                "currency must be HRK or EUR;" +
+                "minPrice must be a non-negative number;" +
+                "maxPrice must be a non-negative number;" +
+                "isAvailable must be true or false;" +
+                "sort must be one of id, name, priceHrk or priceEur (prefixed with - for descending order);" +
+                "limit must be a number between 1 and 1000;");
+        verify(productSearchRepository, never()).search(any());
+    }
+
+    @Test
+    void search_minPriceGreaterThanMaxPrice() {
+        final ProductSearchRequest request = new ProductSearchRequest();
+        request.setMinPrice("20");
+        request.setMaxPrice("10");
+
+        final ResponseEntity<SearchProductResponse> rsp = productSearchService.search(request);
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo("minPrice must not be greater than maxPrice;");
+    }
+
+    @Test
+    void search_keysetPagination() {
+        when(productSearchRepository.search(any())).thenReturn(Arrays.asList(
+                createProduct(7L, "Test name 321", "150.00"),
+                createProduct(3L, "Test name 123", "75.00")));
+
+        final ProductSearchRequest request = new ProductSearchRequest();
+        request.setSort("-priceHrk");
+        request.setLimit("2");
+
+        final ResponseEntity<SearchProductResponse> firstPage = productSearchService.search(request);
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(firstPage.getBody().getNextCursor()).isNotNull();
+
+        // Next page continues after the last product of the first page
+        request.setCursor(firstPage.getBody().getNextCursor());
+        productSearchService.search(request);
+
+        final ArgumentCaptor<ProductSearchCriteria> captor = ArgumentCaptor.forClass(ProductSearchCriteria.class);
+        verify(productSearchRepository, times(2)).search(captor.capture());
+        final ProductSearchCriteria criteria = captor.getAllValues().get(1);
+        assertThat(criteria.getSortField()).isEqualTo(ProductSortField.PRICE_HRK);
+        assertThat(criteria.isDescending()).isTrue();
+        assertThat(criteria.getLimit()).isEqualTo(2);
+        assertThat(criteria.getCursorId()).isEqualTo(3L);
+        assertThat(criteria.getCursorValue()).isEqualTo(new BigDecimal("75.00"));
+    }
+
+    @Test
+    void search_invalidCursor() {
+        final ProductSearchRequest request = new ProductSearchRequest();
+        request.setCursor("not a cursor");
+        assertThat(productSearchService.search(request).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        // Cursor created for a different sort
+        request.setCursor(ProductSearchService.encodeCursor("name", ProductSortField.NAME, createProduct(1L, "Test name 123", "75.00")));
+        request.setSort("priceHrk");
+        final ResponseEntity<SearchProductResponse> rsp = productSearchService.search(request);
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rsp.getBody().getErrorMessage()).isEqualTo("invalid cursor;");
+
+        verify(productSearchRepository, never()).search(any());
+    }
+
+    private static ProductWrapper createProduct(final Long id, final String name, final String priceHrk) {
+        return new ProductWrapper(id, "123456789" + id, name, new BigDecimal(priceHrk), new BigDecimal("10.00"),
+                                  null, true, 0L);
+    }
+}
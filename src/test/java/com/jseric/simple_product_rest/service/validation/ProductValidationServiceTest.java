@@ -1,6 +1,8 @@
 package com.jseric.simple_product_rest.service.validation;
 
 import com.jseric.simple_product_rest.model.fe.ProductWrapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import org.apache.commons.lang3.StringUtils;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -118,4 +120,25 @@ class ProductValidationServiceTest {
         expectedError = StringUtils.chop(INVALID_CODE_LENGTH_ERR);
         assertThat(productValidationService.validateCreateUpdateRequest(pw)).isEqualTo(expectedError);
     }
+
+    @Test
+    void validateCreateUpdateRequest_failureCounters() {
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final ProductValidationService service = new ProductValidationService(meterRegistry);
+
+        final ProductWrapper pw = new ProductWrapper();
+        pw.setCode(INVALID_CODE);
+        pw.setName(VALID_NAME);
+        pw.setPriceHrk(INVALID_PRICE_HRK);
+        service.validateCreateUpdateRequest(pw);
+
+        assertThat(failureCount(meterRegistry, "code")).isEqualTo(1.0);
+        assertThat(failureCount(meterRegistry, "name")).isEqualTo(0.0);
+        assertThat(failureCount(meterRegistry, "priceHrk")).isEqualTo(1.0);
+        assertThat(failureCount(meterRegistry, "isAvailable")).isEqualTo(1.0);
+    }
+
+    private static double failureCount(final MeterRegistry meterRegistry, final String field) {
+        return meterRegistry.get("product.validation.failures").tag("field", field).counter().count();
+    }
 }